@@ -9,6 +9,12 @@ import org.slf4j.LoggerFactory;
 import ru.blc.cutlet.api.bot.Bot;
 import ru.blc.cutlet.api.bot.BotManager;
 import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandArguments;
+import ru.blc.cutlet.api.command.CommandDispatcher;
+import ru.blc.cutlet.api.command.CommandMetrics;
+import ru.blc.cutlet.api.command.CommandOutcome;
+import ru.blc.cutlet.api.command.CommandTokenizer;
+import ru.blc.cutlet.api.command.FloodControl;
 import ru.blc.cutlet.api.command.sender.CommandSender;
 import ru.blc.cutlet.api.console.Console;
 import ru.blc.cutlet.api.event.command.CommandPreprocessEvent;
@@ -18,7 +24,7 @@ import ru.blc.cutlet.api.timer.Timer;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 import java.util.stream.Stream;
 
@@ -42,6 +48,9 @@ public class Cutlet {
     private final File modulesFolder = new File("modules");
     private final BotManager botManager;
     private final ModuleLoader moduleLoader;
+    private final CommandDispatcher commandDispatcher = new CommandDispatcher();
+    private final FloodControl floodControl = new FloodControl();
+    private final CommandMetrics commandMetrics = new CommandMetrics();
     @Getter
     private Timer timer;
 
@@ -91,6 +100,7 @@ public class Cutlet {
         getLogger().info("Disabling cutlet");
         getBotManager().disableBots();
         getModuleLoader().disableModules();
+        getCommandDispatcher().shutdown();
         getConsole().disable();
         running = false;
     }
@@ -139,6 +149,27 @@ public class Cutlet {
         return botManager;
     }
 
+    /**
+     * @return metrics of all commands dispatches, including unknown commands
+     */
+    public CommandMetrics getCommandMetrics() {
+        return commandMetrics;
+    }
+
+    /**
+     * @return commands rate limiter
+     */
+    public FloodControl getFloodControl() {
+        return floodControl;
+    }
+
+    /**
+     * @return dispatcher of async commands
+     */
+    public CommandDispatcher getCommandDispatcher() {
+        return commandDispatcher;
+    }
+
     /**
      * @deprecated use {@link Cutlet#getCommand(String, Bot)}
      */
@@ -156,13 +187,16 @@ public class Cutlet {
     }
 
     public boolean dispatchCommand(String command, CommandSender sender, boolean answerIfUnknown) {
-        String[] args = command.split(" ");
-        Command c = getCommand(args[0], sender.getBot());
+        CommandArguments args = CommandTokenizer.tokenize(command);
+        String label = args.isEmpty() ? "" : args.get(0);
+        Command c = getBotManager().findCommand(label, sender.getBot());
         if (c == null) {
-            if (answerIfUnknown) sender.sendMessage(String.format(getTranslation("unknown_command"), args[0]));
+            commandMetrics.record(CommandOutcome.UNKNOWN);
+            if (answerIfUnknown) sender.sendMessage(unknownCommand(label, sender.getBot()));
             return answerIfUnknown;
         }
-        if (!c.getDialogType().allows(sender.getDialogType())) {
+        if (!c.isAllowedIn(sender.getDialogType())) {
+            record(c, CommandOutcome.DIALOG_REJECTED);
             switch (c.getDialogType()) {
                 case PRIVATE_MESSAGE:
                     sender.sendMessage(getTranslation("command_only_pm"));
@@ -176,9 +210,19 @@ public class Cutlet {
                     return true;
             }
         }
+        switch (getFloodControl().acquire(sender.getUserSender(), c)) {
+            case THROTTLED:
+                record(c, CommandOutcome.THROTTLED);
+                sender.sendMessage(getTranslation("command_flood"));
+                return true;
+            case THROTTLED_SILENT:
+                record(c, CommandOutcome.THROTTLED);
+                return true;
+        }
         CommandPreprocessEvent e = new CommandPreprocessEvent(sender, c, command);
-        getBotManager().callEvent(e, b -> b == c.getOwner());
+        getBotManager().callEventFor(e, c.getOwner() instanceof Bot owner ? owner : null);
         if (e.isCancelled()) {
+            record(c, CommandOutcome.CANCELLED);
             return true;
         }
         Logger log = getLogger();
@@ -186,10 +230,24 @@ public class Cutlet {
             log = sender.getBot().getLogger();
         }
         log.info("{} dispatched command {} with text {}", sender.getName(), c.getName(), command);
-        c.dispatch(sender, args[0], Arrays.copyOfRange(args, 1, args.length));
+        c.dispatch(sender, label, args.from(1));
         return true;
     }
 
+    /**
+     * @return unknown command message with suggestions of similar commands
+     */
+    public String unknownCommand(String label, Bot owner) {
+        List<String> suggestions = getBotManager().suggestCommands(label, owner, 3);
+        if (suggestions.isEmpty()) return String.format(getTranslation("unknown_command"), label);
+        return String.format(getTranslation("unknown_command_suggestion"), label, String.join(", ", suggestions));
+    }
+
+    private void record(Command command, CommandOutcome outcome) {
+        command.getMetrics().record(outcome);
+        commandMetrics.record(outcome);
+    }
+
     public ModuleLoader getModuleLoader() {
         return moduleLoader;
     }
@@ -7,6 +7,8 @@ import ru.blc.cutlet.api.Cutlet;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.security.CodeSigner;
@@ -31,6 +33,7 @@ public class BotClassLoader extends URLClassLoader {
     private final URL url;
 
     private Bot bot;
+    private volatile MethodHandles.Lookup lookup;
 
     public BotClassLoader(Cutlet cutlet, File file, BotDescription botDescription) throws IOException {
         super(new URL[]{file.toURI().toURL()});
@@ -128,6 +131,32 @@ public class BotClassLoader extends URLClassLoader {
         }
     }
 
+    /**
+     * Lookup with full access to classes of this loader, i.e. to generate event executors for bot listeners.<br>
+     * Lookup class is copy of {@link BotLookup} defined at this loader
+     *
+     * @return lookup of this loader
+     */
+    public MethodHandles.Lookup getLookup() {
+        MethodHandles.Lookup lookup = this.lookup;
+        if (lookup != null) return lookup;
+        synchronized (this) {
+            if (this.lookup == null) {
+                try (InputStream is = BotLookup.class.getResourceAsStream(BotLookup.class.getSimpleName() + ".class")) {
+                    if (is == null) throw new IllegalStateException("Cannot find " + BotLookup.class.getName());
+                    byte[] classBytes = ByteStreams.toByteArray(is);
+                    Class<?> clazz = this.defineClass(BotLookup.class.getName(), classBytes, 0, classBytes.length);
+                    Method method = clazz.getDeclaredMethod("lookup");
+                    method.setAccessible(true);
+                    this.lookup = (MethodHandles.Lookup) method.invoke(null);
+                } catch (ReflectiveOperationException | IOException e) {
+                    throw new IllegalStateException("Cannot create lookup for " + this, e);
+                }
+            }
+            return this.lookup;
+        }
+    }
+
     void init(Bot bot) {
         Preconditions.checkArgument(bot != null, "bot");
         Preconditions.checkArgument(bot.getClass().getClassLoader() == this, "Bot has incorrect ClassLoader");
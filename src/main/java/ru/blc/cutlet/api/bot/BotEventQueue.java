@@ -0,0 +1,302 @@
+package ru.blc.cutlet.api.bot;
+
+import org.jetbrains.annotations.NotNull;
+import ru.blc.cutlet.api.event.CoalescingEvent;
+import ru.blc.cutlet.api.event.Event;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Bounded queue of events pending for one bot.<br>
+ * Events are delivered one by one at bot's event executor ({@link BotManager#setEventExecutor(Bot, java.util.concurrent.Executor)}),
+ * so slow bot does not block callers and other bots
+ *
+ * @see BotManager#queueEvent(Event, Predicate)
+ */
+public class BotEventQueue {
+
+    /**
+     * Max events delivered by one executor task
+     */
+    private static final int DRAIN_BATCH = 64;
+    /**
+     * How often blocked caller checks that queue is still drained
+     */
+    private static final long BLOCK_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BotManager manager;
+    private final Bot bot;
+    private final OverflowPolicy policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Event[] events;
+    private final Predicate<Bot>[] filters;
+    /**
+     * Sequence of pending coalescing event by event type and key. Only for {@link OverflowPolicy#COALESCE}
+     */
+    private final Map<PendingKey, Long> pending;
+    private long head;
+    private long tail;
+    private boolean closed;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    /**
+     * Thread that delivers events now. It can not wait for free space, because nobody else would free it
+     */
+    private volatile Thread drainingThread;
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private volatile int maxDepth;
+
+    BotEventQueue(@NotNull BotManager manager, @NotNull Bot bot, int capacity, @NotNull OverflowPolicy policy) {
+        this.manager = manager;
+        this.bot = bot;
+        this.policy = policy;
+        this.events = new Event[capacity];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Predicate<Bot>[] filters = new Predicate[capacity];
+        this.filters = filters;
+        this.pending = policy == OverflowPolicy.COALESCE ? new HashMap<>() : null;
+    }
+
+    /**
+     * Adds event to queue
+     *
+     * @param event  event
+     * @param filter bot filter
+     * @return true if event was queued or coalesced, false if it was dropped
+     */
+    boolean offer(Event event, Predicate<Bot> filter) {
+        offered.increment();
+        boolean selfBlocked = false;
+        lock.lock();
+        try {
+            if (pending != null && event instanceof CoalescingEvent coalescing) {
+                Long sequence = pending.get(new PendingKey(event.getClass(), coalescing.getCoalescingKey()));
+                if (sequence != null) {
+                    events[index(sequence)] = event;
+                    filters[index(sequence)] = filter;
+                    coalesced.increment();
+                    return true;
+                }
+            }
+            while (!closed && tail - head == events.length) {
+                if (policy == OverflowPolicy.DROP_NEWEST) {
+                    dropped.increment();
+                    return false;
+                } else if (policy == OverflowPolicy.BLOCK) {
+                    if (Thread.currentThread() == drainingThread) {
+                        // listener of this bot queues event to own full queue, waiting would never end
+                        selfBlocked = true;
+                        dropped.increment();
+                        return false;
+                    }
+                    try {
+                        if (notFull.awaitNanos(BLOCK_CHECK_NANOS) <= 0 && !draining.get() && tail - head == events.length) {
+                            // executor rejected drain, nobody would free space unless drain is scheduled again
+                            boolean scheduled;
+                            lock.unlock();
+                            try {
+                                scheduled = scheduleDrain();
+                            } finally {
+                                lock.lock();
+                            }
+                            if (!scheduled) {
+                                dropped.increment();
+                                return false;
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.increment();
+                        return false;
+                    }
+                } else {
+                    removeHead();
+                    dropped.increment();
+                }
+            }
+            if (closed) {
+                dropped.increment();
+                return false;
+            }
+            events[index(tail)] = event;
+            filters[index(tail)] = filter;
+            if (pending != null && event instanceof CoalescingEvent coalescing) {
+                pending.put(new PendingKey(event.getClass(), coalescing.getCoalescingKey()), tail);
+            }
+            tail++;
+            if (tail - head > maxDepth) {
+                maxDepth = (int) (tail - head);
+            }
+        } finally {
+            lock.unlock();
+            if (selfBlocked) {
+                manager.getCutlet().getLogger().warn("Event {} is dropped: bot {} queued it to own full queue while delivering events",
+                        event.getEventName(), bot.getName());
+            }
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % events.length);
+    }
+
+    private void removeHead() {
+        int index = index(head);
+        if (pending != null && events[index] instanceof CoalescingEvent coalescing) {
+            pending.remove(new PendingKey(events[index].getClass(), coalescing.getCoalescingKey()), head);
+        }
+        events[index] = null;
+        filters[index] = null;
+        head++;
+        notFull.signal();
+    }
+
+    /**
+     * @return false if executor rejected drain
+     */
+    private boolean scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                manager.getEventExecutor(bot).execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                manager.getCutlet().getLogger().error("Could not deliver queued events to bot " + bot.getName(), e);
+                lock.lock();
+                try {
+                    // blocked callers check that queue is not drained and give up
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void drain() {
+        Thread previous = drainingThread;
+        drainingThread = Thread.currentThread();
+        try {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Event event;
+                Predicate<Bot> filter;
+                lock.lock();
+                try {
+                    if (closed || head == tail) break;
+                    event = events[index(head)];
+                    filter = filters[index(head)];
+                    removeHead();
+                } finally {
+                    lock.unlock();
+                }
+                manager.deliverQueued(bot, event, filter);
+                delivered.increment();
+            }
+        } finally {
+            drainingThread = previous;
+            draining.set(false);
+        }
+        if (getDepth() > 0) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Closes queue. Pending events are dropped, waiting callers are released
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            while (head != tail) {
+                removeHead();
+                dropped.increment();
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public @NotNull Bot getBot() {
+        return bot;
+    }
+
+    public @NotNull OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getCapacity() {
+        return events.length;
+    }
+
+    /**
+     * @return number of pending events
+     */
+    public int getDepth() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return max number of pending events since queue creation
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return number of events passed to this queue
+     */
+    public long getOffered() {
+        return offered.sum();
+    }
+
+    /**
+     * @return number of events delivered to bot
+     */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    /**
+     * @return number of events dropped by overflow policy or queue closing
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of events that replaced pending events
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Events of different types with equal keys do not replace each other
+     */
+    private record PendingKey(Class<?> type, Object key) {
+    }
+}
@@ -0,0 +1,19 @@
+package ru.blc.cutlet.api.bot;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Copy of this class is defined at every {@link BotClassLoader}, so cutlet can get lookup
+ * with full access to classes of bot (lookup from cutlet classes has no module access to them)
+ *
+ * @see BotClassLoader#getLookup()
+ */
+final class BotLookup {
+
+    private BotLookup() {
+    }
+
+    static MethodHandles.Lookup lookup() {
+        return MethodHandles.lookup();
+    }
+}
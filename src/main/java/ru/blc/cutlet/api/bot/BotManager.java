@@ -3,24 +3,35 @@ package ru.blc.cutlet.api.bot;
 import com.google.common.base.Preconditions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 import org.jetbrains.annotations.UnmodifiableView;
 import ru.blc.cutlet.api.Cutlet;
 import ru.blc.cutlet.api.Plugin;
 import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandRegistry;
 import ru.blc.cutlet.api.event.*;
 import ru.blc.cutlet.api.event.bot.BotDisabledEvent;
 import ru.blc.cutlet.api.event.bot.BotEnabledEvent;
 import ru.blc.cutlet.api.module.Module;
+import ru.blc.cutlet.api.timing.Timings;
 import ru.blc.objconfig.yml.YamlConfiguration;
 
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.net.URLClassLoader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
@@ -28,11 +39,16 @@ import java.util.stream.Collectors;
 public class BotManager {
 
     private final Cutlet cutlet;
-    private final Map<Plugin, Map<String, Command>> commandsByBots = new HashMap<>();
+    private final CommandRegistry commands = new CommandRegistry();
 
     private final Map<String, Bot> bots = new HashMap<>();
     private Map<String, BotDescription> toLoad = new HashMap<>();
 
+    private final Map<Bot, Executor> eventExecutors = new ConcurrentHashMap<>();
+    private volatile Executor defaultEventExecutor = ForkJoinPool.commonPool();
+    private final Map<Bot, BotEventQueue> eventQueues = new ConcurrentHashMap<>();
+    private final Set<Bot> prefixMatching = ConcurrentHashMap.newKeySet();
+
     public BotManager(Cutlet cutlet) {
         this.cutlet = cutlet;
     }
@@ -54,17 +70,16 @@ public class BotManager {
             getCutlet().getLogger().warn("{} attempted to register commands while not enabled!", plugin.getName());
             return false;
         }
-        if (commandsByBots.computeIfAbsent(plugin, b -> new HashMap<>()).containsKey(command.getName().toLowerCase(Locale.ROOT)))
-            return false;
-        for (String alias : command.getAliases()) {
-            if (commandsByBots.computeIfAbsent(plugin, b -> new HashMap<>()).containsKey(alias.toLowerCase(Locale.ROOT)))
-                return false;
-        }
-        commandsByBots.computeIfAbsent(plugin, b -> new HashMap<>()).put(command.getName().toLowerCase(Locale.ROOT), command);
-        for (String alias : command.getAliases()) {
-            commandsByBots.computeIfAbsent(plugin, b -> new HashMap<>()).put(alias.toLowerCase(Locale.ROOT), command);
-        }
-        return true;
+        command.compileArguments();
+        command.compileGuards();
+        return commands.register(plugin, command);
+    }
+
+    /**
+     * @return registry of all commands
+     */
+    public @NotNull CommandRegistry getCommandRegistry() {
+        return commands;
     }
 
     /**
@@ -73,7 +88,7 @@ public class BotManager {
      * @param command command
      */
     public void unregisterCommand(Command command) {
-        commandsByBots.computeIfAbsent(command.getOwner(), c -> new HashMap<>()).values().remove(command);
+        commands.unregister(command);
     }
 
     /**
@@ -82,12 +97,13 @@ public class BotManager {
      * @param bot command owner
      */
     public void unregisterCommands(Bot bot) {
-        commandsByBots.remove(bot);
+        commands.unregisterAll(bot);
     }
 
 
     /**
-     * returns command by name or alias
+     * returns command by name or alias<br>
+     * If several bots have such alias, cutlet command is returned, otherwise command registered first
      *
      * @param alias command name or alias
      * @return command or null if no matching command founded
@@ -95,12 +111,7 @@ public class BotManager {
      */
     @Deprecated
     public Command getCommand(String alias) {
-        for (Map<String, Command> value : commandsByBots.values()) {
-            if (value.containsKey(alias.toLowerCase(Locale.ROOT))) {
-                return value.get(alias.toLowerCase(Locale.ROOT));
-            }
-        }
-        return null;
+        return commands.get(alias);
     }
 
     /**
@@ -111,15 +122,78 @@ public class BotManager {
      * @return command or null if no matching command founded
      */
     public @Nullable Command getCommand(@NotNull String alias, @Nullable Bot owner) {
-        return commandsByBots.computeIfAbsent(owner, b -> new HashMap<>()).get(alias.toLowerCase(Locale.ROOT));
+        return commands.get(alias, owner);
+    }
+
+    /**
+     * returns command by name or alias. If bot allows unique prefixes ({@link #setPrefixMatching(Bot, boolean)}),
+     * command can also be found by prefix of its name or alias that no other command of bot has
+     *
+     * @param alias command name, alias or prefix of them
+     * @param owner command owner. null for cutlet commands
+     * @return command or null if no matching command founded
+     */
+    public @Nullable Command findCommand(@NotNull String alias, @Nullable Bot owner) {
+        Command command = commands.get(alias, owner);
+        if (command == null && owner != null && prefixMatching.contains(owner)) {
+            command = commands.getByPrefix(alias, owner);
+        }
+        return command;
+    }
+
+    /**
+     * Allows users of bot to type only unique prefix of command, i.e. "he" instead of "help".<br>
+     * Disabled by default and reset on bot disable
+     *
+     * @param bot     bot
+     * @param enabled is prefix matching enabled
+     */
+    public void setPrefixMatching(@NotNull Bot bot, boolean enabled) {
+        if (enabled) {
+            prefixMatching.add(bot);
+        } else {
+            prefixMatching.remove(bot);
+        }
+    }
+
+    /**
+     * @param bot bot
+     * @return true if bot allows unique prefixes of commands
+     */
+    public boolean isPrefixMatching(@NotNull Bot bot) {
+        return prefixMatching.contains(bot);
+    }
+
+    /**
+     * Searches commands similar to mistyped command.
+     * Short words allow only one mistake, longer ones - two
+     *
+     * @param word  mistyped command
+     * @param owner command owner. null for cutlet commands
+     * @param limit max number of suggestions
+     * @return closest names or aliases, closer first
+     */
+    public @NotNull List<@NotNull String> suggestCommands(@NotNull String word, @Nullable Bot owner, int limit) {
+        if (word.isEmpty()) return Collections.emptyList();
+        return commands.suggest(word, owner, word.length() <= 4 ? 1 : 2, limit);
+    }
+
+    /**
+     * @param prefix prefix of command name or alias
+     * @param owner  command owner. null for cutlet commands
+     * @param limit  max number of results
+     * @return names and aliases starting with prefix, in alphabetical order
+     */
+    public @NotNull List<@NotNull String> completeCommand(@NotNull String prefix, @Nullable Bot owner, int limit) {
+        return commands.complete(prefix, owner, limit);
     }
 
     /**
      * @param owner command owner. null for cutlet commands
      * @return all commands owned by specified bot
      */
-    public @NotNull Collection<@NotNull Command> getCommands(@Nullable Bot owner) {
-        return new HashSet<>(commandsByBots.getOrDefault(owner, new HashMap<>()).values());
+    public @Unmodifiable @NotNull Collection<@NotNull Command> getCommands(@Nullable Bot owner) {
+        return commands.getCommands(owner);
     }
 
     /**
@@ -307,8 +381,12 @@ public class BotManager {
                 getCutlet().getLogger().error("Exception while enabling bot " + bot.getName(), e);
                 try {
                     HandlerList.unregisterAll(bot);
+                    Timings.removeEvents(bot.getClass().getClassLoader());
                     getCutlet().getTimer().cancelAll(bot);
                     this.unregisterCommands(bot);
+                    this.eventExecutors.remove(bot);
+                    this.removeEventQueue(bot);
+                    this.prefixMatching.remove(bot);
                     bot.setEnabled(false);
                 } catch (Exception ignored) {
                 }
@@ -327,7 +405,11 @@ public class BotManager {
                 } finally {
                     bot.setEnabled(false);
                     HandlerList.unregisterAll(bot);
+                    Timings.removeEvents(bot.getClass().getClassLoader());
                     this.unregisterCommands(bot);
+                    this.eventExecutors.remove(bot);
+                    this.removeEventQueue(bot);
+                    this.prefixMatching.remove(bot);
                     callEvent(new BotDisabledEvent(bot));
                     getCutlet().getLogger().info("Disabled bot {} version {} by {}", bot.getName(), bot.getDescription().getVersion(), bot.getDescription().getAuthor());
                 }
@@ -341,7 +423,7 @@ public class BotManager {
      * @param event event to call
      */
     public void callEvent(@NotNull Event event) {
-        this.callEvent(event, null);
+        this.fireEvent(event, null);
     }
 
     /**
@@ -355,71 +437,492 @@ public class BotManager {
         this.fireEvent(event, filter);
     }
 
+    /**
+     * Calls event only if someone listens it.<br>
+     * Event is not created if there is no listeners
+     *
+     * @param handlers handler list of event type, i.e. {@code ExampleEvent.getHandlerList()}
+     * @param event    event factory
+     * @param <E>      event type
+     * @return called event or null if there is no listeners
+     * @see #callEventIfObserved(HandlerList, Supplier, Predicate)
+     */
+    public <E extends Event> @Nullable E callEventIfObserved(@NotNull HandlerList handlers, @NotNull Supplier<E> event) {
+        return this.callEventIfObserved(handlers, event, null);
+    }
+
+    /**
+     * Calls event with bot filter only if at least one listener would get it.<br>
+     * Event is not created if there is no such listeners
+     *
+     * @param handlers handler list of event type, i.e. {@code ExampleEvent.getHandlerList()}
+     * @param event    event factory
+     * @param filter   bot filter
+     * @param <E>      event type
+     * @return called event or null if there is no listeners
+     */
+    public <E extends Event> @Nullable E callEventIfObserved(@NotNull HandlerList handlers, @NotNull Supplier<E> event,
+                                                            @Nullable Predicate<Bot> filter) {
+        if (!handlers.hasListeners(filter)) return null;
+        E e = event.get();
+        this.fireEvent(e, filter);
+        return e;
+    }
+
+    /**
+     * Calls specified event only for one bot<br>
+     * Same as filter {@code b -> b == target}, but walks only target's listeners and listeners ignoring filter
+     *
+     * @param event  event to call
+     * @param target bot that gets event. null for only listeners ignoring filter
+     */
+    public void callEventFor(@NotNull Event event, @Nullable Bot target) {
+        long start = Timings.shouldSample() ? System.nanoTime() : 0;
+        for (RegisteredListener registration : event.getHandlers().getTargetedListeners(target)) {
+            callListener(registration, event, null);
+        }
+        if (start != 0) {
+            Timings.getEventTiming(event.getClass()).record(System.nanoTime() - start, Timings.getSampleInterval());
+        }
+    }
+
     private void fireEvent(Event event, Predicate<Bot> filter) {
         HandlerList handlers = event.getHandlers();
-        RegisteredListener[] listeners = handlers.getRegisteredListeners();
-        for (RegisteredListener registration : listeners) {
+        long start = Timings.shouldSample() ? System.nanoTime() : 0;
+        if (event instanceof KeyedEvent keyedEvent) {
+            HandlerList.KeyedListeners listeners = handlers.getListeners(keyedEvent.getEventKey());
+            fireKeyedEvent(event, filter, listeners.unkeyed(), listeners.keyed());
+        } else {
+            for (RegisteredListener registration : handlers.getUnkeyedListeners()) {
+                callListener(registration, event, filter);
+            }
+        }
+        if (start != 0) {
+            Timings.getEventTiming(event.getClass()).record(System.nanoTime() - start, Timings.getSampleInterval());
+        }
+    }
+
+    /**
+     * Merges unkeyed and keyed listeners in priority order. On same priority unkeyed listeners are called first
+     */
+    private void fireKeyedEvent(Event event, Predicate<Bot> filter, RegisteredListener[] unkeyed, RegisteredListener[] keyed) {
+        int i = 0;
+        int j = 0;
+        while (i < unkeyed.length || j < keyed.length) {
+            if (j == keyed.length || (i < unkeyed.length
+                    && unkeyed[i].getPriority().ordinal() <= keyed[j].getPriority().ordinal())) {
+                callListener(unkeyed[i++], event, filter);
+            } else {
+                callListener(keyed[j++], event, filter);
+            }
+        }
+    }
+
+    /**
+     * Calls batch of events
+     *
+     * @param events events to call
+     * @see #callEvents(Collection, Predicate)
+     */
+    public void callEvents(@NotNull Collection<? extends Event> events) {
+        this.callEvents(events, null);
+    }
+
+    /**
+     * Calls batch of events with bot filter<br>
+     * Listeners array of every event type is walked once per batch.
+     * Handlers that accepts {@link List} of events get all events of batch at once,
+     * other handlers get events one by one.<br>
+     * Priority order holds for every event, but each listener handles whole batch before next listener is called.<br>
+     * Dispatch timing of every event type is recorded once per batch, like timings of batch listeners
+     *
+     * @param events events to call
+     * @param filter bot filter
+     */
+    public void callEvents(@NotNull Collection<? extends Event> events, @Nullable Predicate<Bot> filter) {
+        if (events.isEmpty()) return;
+        Map<HandlerList, List<Event>> byHandlers = new LinkedHashMap<>();
+        for (Event event : events) {
+            byHandlers.computeIfAbsent(event.getHandlers(), h -> new ArrayList<>(events.size())).add(event);
+        }
+        for (Map.Entry<HandlerList, List<Event>> entry : byHandlers.entrySet()) {
+            List<Event> batch = entry.getValue();
+            long start = Timings.shouldSample() ? System.nanoTime() : 0;
+            for (RegisteredListener registration : entry.getKey().getRegisteredListeners()) {
+                if (registration.isBatch()) {
+                    try {
+                        registration.callEvents(batch, filter);
+                    } catch (Throwable arg10) {
+                        getCutlet().getLogger().warn("Could not pass " + batch.size() + " events " + batch.get(0).getEventName()
+                                + " to " + registration.getBot().getName(), arg10);
+                    }
+                } else {
+                    for (Event event : batch) {
+                        callListener(registration, event, filter);
+                    }
+                }
+            }
+            if (start != 0) {
+                Timings.getEventTiming(batch.get(0).getClass()).record(System.nanoTime() - start, Timings.getSampleInterval());
+            }
+        }
+    }
+
+    private void callListener(RegisteredListener registration, Event event, Predicate<Bot> filter) {
+        try {
+            registration.callEvent(event, filter);
+        } catch (Throwable arg10) {
+            getCutlet().getLogger().warn("Could not pass event " + event.getEventName() + " to "
+                    + registration.getBot().getName(), arg10);
+        }
+    }
+
+    /**
+     * Calls specified event asynchronously
+     *
+     * @param event event to call
+     * @return future completed with passed event when all listeners were called
+     * @see #callEventAsync(Event, Predicate)
+     */
+    public @NotNull CompletableFuture<Event> callEventAsync(@NotNull Event event) {
+        return this.callEventAsync(event, null);
+    }
+
+    /**
+     * Calls specified event with bot filter asynchronously<br>
+     * Listeners of every bot are called at bot's event executor ({@link #setEventExecutor(Bot, Executor)}),
+     * so listeners of different bots runs at the same time, but listeners of one bot still runs one by one in priority order.
+     * If executor of bot rejects event, it is logged and other bots still get event.<br>
+     * Rules for {@link Cancellable} events:
+     * <ul>
+     *     <li>Listeners of one bot always see cancellation state set by previous listeners of this bot</li>
+     *     <li>Cancellation state set by one bot can be seen or not seen by listeners of other bots, running at the same time</li>
+     *     <li>{@link EventPriority#MONITOR} listeners are called only after all other listeners of all bots completed,
+     *     so they see final cancellation state. Returned future completes after monitors</li>
+     * </ul>
+     *
+     * @param event  event to call
+     * @param filter bot filter
+     * @return future completed with passed event when all listeners were called
+     */
+    public @NotNull CompletableFuture<Event> callEventAsync(@NotNull Event event, @Nullable Predicate<Bot> filter) {
+        Map<Bot, List<RegisteredListener>> listeners = new LinkedHashMap<>();
+        Map<Bot, List<RegisteredListener>> monitors = new LinkedHashMap<>();
+        Map<Bot, Boolean> accepted = filter == null ? null : new HashMap<>();
+        for (RegisteredListener registration : event.getHandlers().getRegisteredListeners()) {
+            if (accepted != null && !registration.isIgnoringFilter()
+                    && !accepted.computeIfAbsent(registration.getBot(), b -> testFilter(filter, b, event))) {
+                continue;
+            }
+            (registration.getPriority() == EventPriority.MONITOR ? monitors : listeners)
+                    .computeIfAbsent(registration.getBot(), b -> new ArrayList<>()).add(registration);
+        }
+        return fireEventAsync(event, listeners)
+                .thenCompose(v -> fireEventAsync(event, monitors))
+                .thenApply(v -> event);
+    }
+
+    /**
+     * @param listeners listeners passed filter
+     * @return future completed when listeners of all bots were called or failed
+     */
+    private CompletableFuture<Void> fireEventAsync(Event event, Map<Bot, List<RegisteredListener>> listeners) {
+        if (listeners.isEmpty()) return CompletableFuture.completedFuture(null);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[listeners.size()];
+        int i = 0;
+        for (Map.Entry<Bot, List<RegisteredListener>> entry : listeners.entrySet()) {
+            Bot bot = entry.getKey();
+            CompletableFuture<Void> future;
             try {
-                registration.callEvent(event, filter);
-            } catch (Throwable arg10) {
+                future = CompletableFuture.runAsync(() -> {
+                    for (RegisteredListener registration : entry.getValue()) {
+                        callListener(registration, event, null);
+                    }
+                }, getEventExecutor(bot));
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            // one bot can not break dispatch to others, monitors are called anyway
+            futures[i++] = future.exceptionally(t -> {
                 getCutlet().getLogger().warn("Could not pass event " + event.getEventName() + " to "
-                        + registration.getBot().getName(), arg10);
+                        + (bot == null ? "cutlet" : bot.getName()), t);
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Same as filter check of listener, but once for all listeners of bot
+     */
+    private boolean testFilter(Predicate<Bot> filter, Bot bot, Event event) {
+        try {
+            return filter.test(bot);
+        } catch (Exception e) {
+            getCutlet().getLogger().error("Error while trying filter event " + event.getEventName() + "." +
+                    " Event would not be fired for bot " + (bot == null ? "cutlet" : bot.getName()), e);
+            return false;
+        }
+    }
+
+    /**
+     * @param bot bot
+     * @return executor for asynchronous events of specified bot
+     * @see #callEventAsync(Event, Predicate)
+     */
+    public @NotNull Executor getEventExecutor(@Nullable Bot bot) {
+        if (bot == null) return defaultEventExecutor;
+        return eventExecutors.getOrDefault(bot, defaultEventExecutor);
+    }
+
+    /**
+     * Sets executor for asynchronous events of specified bot.<br>
+     * Executor is reset when bot disables
+     *
+     * @param bot      bot
+     * @param executor executor for bot listeners. null for default executor
+     * @see #callEventAsync(Event, Predicate)
+     */
+    public void setEventExecutor(@NotNull Bot bot, @Nullable Executor executor) {
+        Preconditions.checkNotNull(bot, "bot");
+        if (executor == null) {
+            eventExecutors.remove(bot);
+        } else {
+            eventExecutors.put(bot, executor);
+        }
+    }
+
+    /**
+     * Sets executor for asynchronous events of bots without own executor.<br>
+     * By default {@link ForkJoinPool#commonPool()}
+     *
+     * @param executor default executor
+     */
+    public void setDefaultEventExecutor(@NotNull Executor executor) {
+        Preconditions.checkNotNull(executor, "executor");
+        this.defaultEventExecutor = executor;
+    }
+
+    /**
+     * Queues specified event
+     *
+     * @param event event to queue
+     * @see #queueEvent(Event, Predicate)
+     */
+    public void queueEvent(@NotNull Event event) {
+        this.queueEvent(event, null);
+    }
+
+    /**
+     * Queues specified event with bot filter<br>
+     * Bots with event queue ({@link #setEventQueue(Bot, int, OverflowPolicy)}) get event later at their event executor,
+     * according to queue overflow policy. Other bots get event immediately, as with {@link #callEvent(Event, Predicate)}.<br>
+     * Priority order holds only inside one bot, so {@link EventPriority#MONITOR} listeners of queued bot
+     * do not see changes made by other bots after the event was queued
+     *
+     * @param event  event to queue
+     * @param filter bot filter
+     */
+    public void queueEvent(@NotNull Event event, @Nullable Predicate<Bot> filter) {
+        if (eventQueues.isEmpty()) {
+            this.fireEvent(event, filter);
+            return;
+        }
+        HandlerList handlers = event.getHandlers();
+        for (Bot bot : handlers.getListeningBots()) {
+            BotEventQueue queue = eventQueues.get(bot);
+            if (queue != null && accepts(handlers.getBotListeners(bot), bot, filter)) {
+                queue.offer(event, filter);
+            }
+        }
+        for (RegisteredListener registration : handlers.getRegisteredListeners()) {
+            if (registration.getBot() == null || !eventQueues.containsKey(registration.getBot())) {
+                callListener(registration, event, filter);
             }
         }
+    }
+
+    private boolean accepts(RegisteredListener[] listeners, Bot bot, Predicate<Bot> filter) {
+        if (filter == null) return true;
+        for (RegisteredListener registration : listeners) {
+            if (registration.isIgnoringFilter()) return true;
+        }
+        try {
+            return filter.test(bot);
+        } catch (Throwable t) {
+            // let listeners report broken filter
+            return true;
+        }
+    }
 
+    /**
+     * Delivers queued event to listeners of specified bot
+     */
+    void deliverQueued(Bot bot, Event event, Predicate<Bot> filter) {
+        for (RegisteredListener registration : event.getHandlers().getBotListeners(bot)) {
+            callListener(registration, event, filter);
+        }
     }
 
     /**
-     * Registers events listener
+     * Sets bounded event queue for specified bot.<br>
+     * Events passed to {@link #queueEvent(Event, Predicate)} are delivered to bot at its event executor.
+     * Previous queue of bot is closed, its pending events are dropped.<br>
+     * Queue is removed when bot disables
+     *
+     * @param bot      bot
+     * @param capacity max number of pending events
+     * @param policy   what to do when queue is full
+     * @return new queue
+     */
+    public @NotNull BotEventQueue setEventQueue(@NotNull Bot bot, int capacity, @NotNull OverflowPolicy policy) {
+        Preconditions.checkNotNull(bot, "bot");
+        Preconditions.checkNotNull(policy, "policy");
+        Preconditions.checkArgument(capacity > 0, "capacity should be positive");
+        BotEventQueue queue = new BotEventQueue(this, bot, capacity, policy);
+        BotEventQueue old = eventQueues.put(bot, queue);
+        if (old != null) old.close();
+        return queue;
+    }
+
+    /**
+     * Removes event queue of specified bot. Pending events are dropped
+     *
+     * @param bot bot
+     */
+    public void removeEventQueue(@NotNull Bot bot) {
+        BotEventQueue queue = eventQueues.remove(bot);
+        if (queue != null) queue.close();
+    }
+
+    /**
+     * @param bot bot
+     * @return event queue of specified bot or null if bot gets events immediately
+     */
+    public @Nullable BotEventQueue getEventQueue(@NotNull Bot bot) {
+        return eventQueues.get(bot);
+    }
+
+    /**
+     * @return event queues of all bots
+     */
+    public @UnmodifiableView Collection<BotEventQueue> getEventQueues() {
+        return Collections.unmodifiableCollection(eventQueues.values());
+    }
+
+    /**
+     * Registers events listener.<br>
+     * All handlers of listener are registered with one change of every handler list
      *
      * @param bot      bot that listen event
      * @param listener listener
      */
-    @SuppressWarnings("unchecked")
     public void registerEvents(@NotNull Bot bot, @NotNull Listener listener) {
+        this.registerEvents(bot, listener, false, 0);
+    }
+
+    /**
+     * Registers keyed events listener.<br>
+     * Handlers of {@link KeyedEvent} types get only events with specified key,
+     * i.e. events of one chat. Such events are dispatched only to listeners with matching key and unkeyed listeners,
+     * so many keyed listeners do not slow down event dispatch.<br>
+     * Handlers of other event types are registered as usual
+     *
+     * @param bot      bot that listen event
+     * @param listener listener
+     * @param key      event key, i.e. chat id or {@link ru.blc.cutlet.api.bean.ChatUser#userId()}
+     */
+    public void registerEvents(@NotNull Bot bot, @NotNull Listener listener, long key) {
+        this.registerEvents(bot, listener, true, key);
+    }
+
+    private void registerEvents(Bot bot, Listener listener, boolean keyed, long key) {
         Preconditions.checkNotNull(bot, "bot");
         Preconditions.checkNotNull(listener, "Listener");
         if (!bot.isEnabled()) {
             getCutlet().getLogger().warn("{} attempted to register events while not enabled!", bot.getName());
             return;
         }
-        HashMap<Class<? extends Event>, Set<RegisteredListener>> map = new HashMap<>();
+        ListenerMetadata metadata = LISTENER_METADATA.get(listener.getClass());
+        for (Method m : metadata.invalid()) {
+            bot.getLogger().warn("{} attempted to register an invalid EventHandler method signature \"{}\" in {}",
+                    bot.getName(), m.toGenericString(), listener.getClass());
+        }
+        Map<HandlerList, List<RegisteredListener>> map = new IdentityHashMap<>();
+        for (HandlerMethod handler : metadata.handlers()) {
+            map.computeIfAbsent(handler.handlers(), h -> new ArrayList<>()).add(new RegisteredListener(listener,
+                    handler.executor(), handler.annotation().eventPriority(), bot,
+                    handler.annotation().ignoreCancelled(),
+                    handler.annotation().ignoreFilter(), handler.eventClass(),
+                    keyed && KeyedEvent.class.isAssignableFrom(handler.eventClass()), key));
+        }
+        for (Map.Entry<HandlerList, List<RegisteredListener>> entry : map.entrySet()) {
+            entry.getKey().registerAll(entry.getValue());
+        }
+    }
 
-        for (Method m : listener.getClass().getMethods()) {
-            if (m.isAnnotationPresent(EventHandler.class)) {
-                if (m.getParameterTypes().length == 1 && Event.class.isAssignableFrom(m.getParameterTypes()[0])) {
-                    map.put((Class<? extends Event>) m.getParameterTypes()[0], new HashSet<>());
-                } else {
-                    bot.getLogger().warn("{} attempted to register an invalid EventHandler method signature \"{}\" in {}",
-                            bot.getName(), m.toGenericString(), listener.getClass());
-                }
-            }
+    /**
+     * Handler list of every event type. Resolved once per event class
+     */
+    private static final ClassValue<HandlerList> HANDLER_LISTS = new ClassValue<>() {
+        @Override
+        protected HandlerList computeValue(Class<?> type) {
+            return getEventListeners(type.asSubclass(Event.class));
         }
-        for (Method m : listener.getClass().getMethods()) {
-            if (m.isAnnotationPresent(EventHandler.class)) {
-                if (m.getParameterTypes().length == 1 && Event.class.isAssignableFrom(m.getParameterTypes()[0])) {
+    };
 
-                    map.get(m.getParameterTypes()[0]).add(new RegisteredListener(listener, new BotManagerEventExecutor(m.getParameterTypes()[0], m),
-                            m.getAnnotation(EventHandler.class).eventPriority(), bot,
-                            m.getAnnotation(EventHandler.class).ignoreCancelled(),
-                            m.getAnnotation(EventHandler.class).ignoreFilter()));
+    /**
+     * Parsed handler methods of every listener class. Resolved once per listener class
+     */
+    private static final ClassValue<ListenerMetadata> LISTENER_METADATA = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected ListenerMetadata computeValue(Class<?> type) {
+            List<HandlerMethod> handlers = new ArrayList<>();
+            List<Method> invalid = new ArrayList<>();
+            for (Method m : type.getMethods()) {
+                EventHandler annotation = m.getAnnotation(EventHandler.class);
+                if (annotation == null) continue;
+                Class<?>[] parameters = m.getParameterTypes();
+                if (parameters.length == 1 && Event.class.isAssignableFrom(parameters[0])) {
+                    Class<? extends Event> eventClass = (Class<? extends Event>) parameters[0];
+                    handlers.add(new HandlerMethod(eventClass, HANDLER_LISTS.get(eventClass),
+                            EventExecutorFactory.create(eventClass, m), annotation));
+                } else if (parameters.length == 1 && parameters[0] == List.class && getBatchEventClass(m) != null) {
+                    Class<? extends Event> eventClass = getBatchEventClass(m);
+                    handlers.add(new HandlerMethod(eventClass, HANDLER_LISTS.get(eventClass),
+                            EventExecutorFactory.createBatch(eventClass, m), annotation));
+                } else {
+                    invalid.add(m);
                 }
             }
+            return new ListenerMetadata(List.copyOf(handlers), List.copyOf(invalid));
         }
+    };
 
-        for (Map.Entry<Class<? extends Event>, Set<RegisteredListener>> entry : map.entrySet()) {
-            this.getEventListeners(this.getRegistrationClass(entry.getKey()))
-                    .registerAll(entry.getValue());
+    /**
+     * @param method handler method with one {@link List} parameter
+     * @return event type of list elements or null if list is not list of events
+     */
+    private static @Nullable Class<? extends Event> getBatchEventClass(Method method) {
+        if (!(method.getGenericParameterTypes()[0] instanceof ParameterizedType type)) return null;
+        Type element = type.getActualTypeArguments()[0];
+        if (element instanceof WildcardType wildcard && wildcard.getLowerBounds().length == 0) {
+            element = wildcard.getUpperBounds()[0];
         }
+        if (element instanceof Class<?> clazz && Event.class.isAssignableFrom(clazz)) {
+            return clazz.asSubclass(Event.class);
+        }
+        return null;
     }
 
     /**
      * @param type event type
      * @return all event listeners for specified event
      */
-    private @NotNull HandlerList getEventListeners(@NotNull Class<? extends Event> type) {
+    private static @NotNull HandlerList getEventListeners(@NotNull Class<? extends Event> type) {
         try {
-            Method e = this.getRegistrationClass(type).getDeclaredMethod("getHandlerList");
+            Method e = getRegistrationClass(type).getDeclaredMethod("getHandlerList");
             e.setAccessible(true);
             return (HandlerList) e.invoke(null, new Object[0]);
         } catch (Exception e) {
@@ -432,38 +935,21 @@ public class BotManager {
      * @param clazz event type
      * @return event class that registers listeners.
      */
-    private Class<? extends Event> getRegistrationClass(Class<? extends Event> clazz) {
-        try {
-            clazz.getDeclaredMethod("getHandlerList");
-            return clazz;
-        } catch (NoSuchMethodException arg1) {
-            if (clazz.getSuperclass() != null && !clazz.getSuperclass().equals(Event.class) && Event.class.isAssignableFrom(clazz.getSuperclass())) {
-                return this.getRegistrationClass(clazz.getSuperclass().asSubclass(Event.class));
-            } else {
-                throw new RuntimeException("Unable to find handler list for event " + clazz.getName() + ". Static getHandlerList method required!");
+    private static Class<? extends Event> getRegistrationClass(Class<? extends Event> clazz) {
+        for (Class<?> c = clazz; c != null && c != Event.class && Event.class.isAssignableFrom(c); c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.getName().equals("getHandlerList") && method.getParameterCount() == 0) {
+                    return c.asSubclass(Event.class);
+                }
             }
         }
+        throw new RuntimeException("Unable to find handler list for event " + clazz.getName() + ". Static getHandlerList method required!");
     }
 
-    static class BotManagerEventExecutor implements EventExecutor {
-
-        private final Class<?> clazz;
-        private final Method method;
-
-        public BotManagerEventExecutor(Class<?> clazz, Method method) {
-            this.clazz = clazz;
-            this.method = method;
-        }
+    private record HandlerMethod(Class<? extends Event> eventClass, HandlerList handlers, EventExecutor executor,
+                                 EventHandler annotation) {
+    }
 
-        @Override
-        public void execute(Listener listener, Event event) throws EventException {
-            if (clazz.isAssignableFrom(event.getClass())) {
-                try {
-                    method.invoke(listener, event);
-                } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-                    throw new EventException("Failed execute event ", e);
-                }
-            }
-        }
+    private record ListenerMetadata(List<HandlerMethod> handlers, List<Method> invalid) {
     }
 }
@@ -0,0 +1,30 @@
+package ru.blc.cutlet.api.bot;
+
+/**
+ * What to do with event when bot event queue is full
+ *
+ * @see BotManager#setEventQueue(Bot, int, OverflowPolicy)
+ */
+public enum OverflowPolicy {
+    /**
+     * Caller waits while queue has no free space.<br>
+     * Thread delivering events of queue can not wait (i.e. listener queues event to own bot, or bot executor runs tasks at caller thread),
+     * so event from such thread is dropped and warning is logged if queue is full.<br>
+     * If bot executor rejects delivery, waiting callers drop their events instead of waiting forever
+     */
+    BLOCK,
+    /**
+     * Oldest pending event is dropped
+     */
+    DROP_OLDEST,
+    /**
+     * New event is dropped
+     */
+    DROP_NEWEST,
+    /**
+     * {@link ru.blc.cutlet.api.event.CoalescingEvent} replaces pending event of same type with same key, even if queue is not full.
+     * Otherwise works as {@link #DROP_OLDEST}
+     */
+    COALESCE,
+    ;
+}
@@ -0,0 +1,25 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+
+/**
+ * Command executor working with {@link CommandArguments} view, without arguments array
+ */
+@FunctionalInterface
+public interface ArgumentsCommandExecutor extends CommandExecutor {
+
+    @Override
+    void onCommand(@NotNull Command command,
+                   @NotNull CommandSender sender,
+                   @NotNull String alias,
+                   @NotNull CommandArguments args);
+
+    @Override
+    default void onCommand(@NotNull Command command,
+                           @NotNull CommandSender sender,
+                           @NotNull String alias,
+                           @NotNull String @NotNull [] args) {
+        onCommand(command, sender, alias, CommandArguments.of(args));
+    }
+}
@@ -0,0 +1,45 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Command executor for long commands, i.e. calling external APIs or databases.<br>
+ * Executor is called at {@link CommandDispatcher} thread, not at thread that received command.
+ * Next command of same user is called only after returned stage completes,
+ * commands of different users run in parallel.<br>
+ * Exceptions and exceptionally completed stages are reported to sender as command error
+ */
+@FunctionalInterface
+public interface AsyncCommandExecutor extends CommandExecutor {
+
+    /**
+     * @param command dispatched command
+     * @param sender  command sender executed this command
+     * @param alias   used command alias. command name also can be here
+     * @param args    command args
+     * @return stage completed when command is done
+     */
+    @NotNull CompletionStage<Void> onCommandAsync(@NotNull Command command,
+                                                  @NotNull CommandSender sender,
+                                                  @NotNull String alias,
+                                                  @NotNull CommandArguments args);
+
+    @Override
+    default void onCommand(@NotNull Command command,
+                           @NotNull CommandSender sender,
+                           @NotNull String alias,
+                           @NotNull String @NotNull [] args) {
+        onCommandAsync(command, sender, alias, CommandArguments.of(args));
+    }
+
+    @Override
+    default void onCommand(@NotNull Command command,
+                           @NotNull CommandSender sender,
+                           @NotNull String alias,
+                           @NotNull CommandArguments args) {
+        onCommandAsync(command, sender, alias, args);
+    }
+}
@@ -3,14 +3,25 @@ package ru.blc.cutlet.api.command;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
+import org.slf4j.Logger;
 import ru.blc.cutlet.api.Cutlet;
 import ru.blc.cutlet.api.Plugin;
 import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.command.argument.ArgumentParser;
+import ru.blc.cutlet.api.command.argument.ArgumentSchema;
+import ru.blc.cutlet.api.command.argument.CommandContext;
+import ru.blc.cutlet.api.command.argument.TypedCommandExecutor;
 import ru.blc.cutlet.api.command.sender.CommandSender;
 import ru.blc.cutlet.api.command.sender.DialogType;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 public class Command {
 
@@ -32,9 +43,23 @@ public class Command {
     private final DialogType dialogType;
     private final String[] aliases;
     private final Plugin owner;
-    private Messenger[] allowedMessengers;
+    /**
+     * Copy of allowed messengers, replaced on change and never modified
+     */
+    private volatile Messenger[] allowedMessengers;
+    private final List<CommandGuard> guards = new CopyOnWriteArrayList<>();
+    /**
+     * Compiled checks. Reset and compiled under lock of command, so plan can not be compiled from outdated settings
+     */
+    private volatile GuardPlan guardPlan;
 
     private CommandExecutor executor;
+    private volatile boolean async;
+    private volatile TokenBuckets rateLimit;
+    private volatile Cooldown cooldown;
+    private volatile ArgumentSchema arguments;
+    private volatile ArgumentParser argumentParser;
+    private final CommandMetrics metrics = new CommandMetrics();
 
     /**
      * @param owner       owner of this command. Null for cutlet commands
@@ -72,8 +97,9 @@ public class Command {
      *
      * @param messengers allowed messengers
      */
-    public void setAllowedMessengers(Messenger... messengers) {
-        this.allowedMessengers = messengers;
+    public synchronized void setAllowedMessengers(Messenger... messengers) {
+        this.allowedMessengers = messengers == null ? null : messengers.clone();
+        this.guardPlan = null;
     }
 
     /**
@@ -84,14 +110,64 @@ public class Command {
      */
     public boolean isAllowed(@Nullable Messenger messenger) {
         if (messenger == null) return true;
+        Messenger[] allowedMessengers = this.allowedMessengers;
         if (allowedMessengers == null) return true;
-        if (allowedMessengers.length == 0) return true;
-        return Arrays.stream(allowedMessengers).anyMatch(m -> m == messenger);
+        for (Messenger allowed : allowedMessengers) {
+            if (allowed == messenger) return true;
+        }
+        return allowedMessengers.length == 0;
+    }
+
+    /**
+     * Check if command allowed in dialog type
+     *
+     * @param dialogType dialog type of sender
+     * @return true if command allowed in specified dialog type
+     * @see DialogType#allows(DialogType)
+     */
+    public boolean isAllowedIn(@Nullable DialogType dialogType) {
+        return getGuardPlan().allows(dialogType);
+    }
+
+    /**
+     * Adds custom check of dispatch. Guards run in order they were added
+     *
+     * @param guard guard
+     * @see CommandGuard
+     */
+    public synchronized void addGuard(@NotNull CommandGuard guard) {
+        guards.add(guard);
+        this.guardPlan = null;
+    }
+
+    /**
+     * Removes custom check of dispatch
+     *
+     * @param guard guard
+     */
+    public synchronized void removeGuard(@NotNull CommandGuard guard) {
+        if (guards.remove(guard)) this.guardPlan = null;
+    }
+
+    /**
+     * Compiles checks of this command. Called on command registration and after every change of checks
+     */
+    public synchronized void compileGuards() {
+        this.guardPlan = GuardPlan.compile(this, allowedMessengers, guards);
+    }
+
+    private GuardPlan getGuardPlan() {
+        GuardPlan plan = this.guardPlan;
+        if (plan != null) return plan;
+        synchronized (this) {
+            if (this.guardPlan == null) compileGuards();
+            return this.guardPlan;
+        }
     }
 
     /**
      * Dispatches current command<br>
-     * Contains permissions, messengers and console checks.
+     * Contains permissions, messengers, console and custom checks.
      *
      * @param sender command sender
      * @param alias  alias
@@ -99,26 +175,111 @@ public class Command {
      * @apiNote Do not Override this method for command logic. Use {@link CommandExecutor} instead
      */
     public void dispatch(@NotNull CommandSender sender, @NotNull String alias, @NotNull String @NotNull ... args) {
-        if (!sender.hasPermission(getPermission())) {
-            sender.sendMessage(Cutlet.instance().getTranslation("no_permission"));
+        dispatch(sender, alias, CommandArguments.of(args));
+    }
+
+    /**
+     * Dispatches current command<br>
+     * Contains permissions, messengers, console and custom checks.
+     *
+     * @param sender command sender
+     * @param alias  alias
+     * @param args   command arguments
+     * @apiNote Do not Override this method for command logic. Use {@link CommandExecutor} instead
+     */
+    public void dispatch(@NotNull CommandSender sender, @NotNull String alias, @NotNull CommandArguments args) {
+        CommandOutcome rejected = getGuardPlan().check(this, sender, args);
+        if (rejected != null) {
+            record(rejected);
             return;
         }
-        if (isOnlyConsole() && !sender.isConsole()) {
-            sender.sendMessage(Cutlet.instance().getTranslation("only_console"));
-            return;
+        CommandExecutor executor = getCommandExecutor();
+        // typed arguments are parsed before cooldown, so invalid input does not consume it
+        CommandContext context = null;
+        ArgumentParser parser = executor instanceof TypedCommandExecutor ? getArgumentParser() : null;
+        if (parser != null) {
+            context = parser.parse(this, sender, alias, args);
+            if (context == null) {
+                record(CommandOutcome.USAGE);
+                return;
+            }
         }
-        if (!isAllowed(sender.getMessenger())) {
-            sender.sendMessage(Cutlet.instance().getTranslation("unsupported_messenger"));
+        Cooldown cooldown = this.cooldown;
+        if (cooldown != null && sender.getUserSender() != null
+                && (cooldown.bypassPermission() == null || !sender.hasPermission(cooldown.bypassPermission()))) {
+            long remaining = cooldown.table(sender.getUserSender().messenger()).acquire(sender.getUserSender().userId(), cooldown.duration());
+            if (remaining > 0) {
+                sender.sendMessage(String.format(Cutlet.instance().getTranslation("command_cooldown"), (remaining + 999) / 1000));
+                record(CommandOutcome.COOLDOWN);
+                return;
+            }
+        }
+        CommandContext parsed = context;
+        if (executor instanceof AsyncCommandExecutor || isAsync()) {
+            Cutlet.instance().getCommandDispatcher()
+                    .dispatch(sender, () -> {
+                        // latency is measured from start of execution, without waiting for previous commands of user
+                        long start = System.nanoTime();
+                        CompletionStage<Void> stage = null;
+                        try {
+                            if (executor instanceof AsyncCommandExecutor asyncExecutor) {
+                                stage = asyncExecutor.onCommandAsync(this, sender, alias, args);
+                            } else {
+                                execute(executor, parsed, sender, alias, args);
+                            }
+                        } finally {
+                            if (stage == null) recordLatency(System.nanoTime() - start);
+                        }
+                        return stage == null ? null : stage.whenComplete((v, t) -> recordLatency(System.nanoTime() - start));
+                    })
+                    .whenComplete((v, t) -> {
+                        if (t != null) {
+                            onError(sender, t instanceof CompletionException ? t.getCause() : t);
+                        } else {
+                            record(CommandOutcome.SUCCESS);
+                        }
+                    });
             return;
         }
+        long start = System.nanoTime();
         try {
-            getCommandExecutor().onCommand(this, sender, alias, args);
+            execute(executor, parsed, sender, alias, args);
+            record(CommandOutcome.SUCCESS);
         } catch (Exception e) {
-            sender.sendMessage(Cutlet.instance().getTranslation("command_error"));
-            owner.getLogger().error("Error while dispatching command " + getName(), e);
+            onError(sender, e);
+        } finally {
+            recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param context parsed typed arguments, null if executor is not typed
+     */
+    private void execute(CommandExecutor executor, CommandContext context, CommandSender sender, String alias, CommandArguments args) {
+        if (context != null) {
+            ((TypedCommandExecutor) executor).onCommand(context);
+        } else {
+            executor.onCommand(this, sender, alias, args);
         }
     }
 
+    private void record(CommandOutcome outcome) {
+        metrics.record(outcome);
+        Cutlet.instance().getCommandMetrics().record(outcome);
+    }
+
+    private void recordLatency(long nanos) {
+        metrics.recordLatency(nanos);
+        Cutlet.instance().getCommandMetrics().recordLatency(nanos);
+    }
+
+    private void onError(CommandSender sender, Throwable error) {
+        record(CommandOutcome.ERROR);
+        sender.sendMessage(Cutlet.instance().getTranslation("command_error"));
+        Logger logger = owner == null ? Cutlet.instance().getLogger() : owner.getLogger();
+        logger.error("Error while dispatching command " + getName(), error);
+    }
+
     /**
      * @return Command name
      */
@@ -182,6 +343,90 @@ public class Command {
         return dialogType;
     }
 
+    /**
+     * @return dispatch metrics of this command
+     */
+    public @NotNull CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return true if command executor runs at {@link CommandDispatcher}
+     * @see #setAsync(boolean)
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Sets dispatch mode. Async commands run at {@link CommandDispatcher} thread,
+     * one by one for every user, so slow command does not block thread that received message.<br>
+     * {@link AsyncCommandExecutor} is always async
+     *
+     * @param async true for async dispatch
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    /**
+     * @return own rate limit of this command or null if command is limited only by global limit
+     * @see FloodControl
+     */
+    public @Nullable RateLimit getRateLimit() {
+        TokenBuckets rateLimit = this.rateLimit;
+        return rateLimit == null ? null : rateLimit.getLimit();
+    }
+
+    /**
+     * Sets own rate limit of this command, checked in addition to global limit. Resets current buckets
+     *
+     * @param limit limit or null for no own limit
+     * @see FloodControl
+     */
+    public void setRateLimit(@Nullable RateLimit limit) {
+        this.rateLimit = limit == null ? null : new TokenBuckets(limit, FloodControl.DEFAULT_MAX_USERS);
+    }
+
+    TokenBuckets getRateLimitBuckets() {
+        return rateLimit;
+    }
+
+    /**
+     * @param unit time unit
+     * @return cooldown of this command for every user, 0 if command has no cooldown
+     */
+    public long getCooldown(@NotNull TimeUnit unit) {
+        Cooldown cooldown = this.cooldown;
+        return cooldown == null ? 0 : unit.convert(cooldown.duration(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets cooldown of this command. After dispatch user can not use this command again until cooldown ends.<br>
+     * Cooldown is checked after permission and messenger checks. Senders without {@link CommandSender#getUserSender()} have no cooldown.
+     * Resets current cooldowns
+     *
+     * @param duration         cooldown duration. 0 removes cooldown
+     * @param unit             duration unit
+     * @param bypassPermission permission to ignore cooldown. null if nobody can ignore it
+     */
+    public void setCooldown(long duration, @NotNull TimeUnit unit, @Nullable String bypassPermission) {
+        long millis = unit.toMillis(duration);
+        this.cooldown = millis <= 0 ? null : new Cooldown(millis, bypassPermission, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Cooldown state. Users of every messenger are in separate table
+     */
+    private record Cooldown(long duration, String bypassPermission, Map<Object, CooldownTable> tables) {
+
+        private static final Object NULL_MESSENGER = new Object();
+
+        private CooldownTable table(Messenger messenger) {
+            return tables.computeIfAbsent(messenger == null ? NULL_MESSENGER : messenger, m -> new CooldownTable());
+        }
+    }
+
     /**
      * Command executor is simple interface that implements command logic
      *
@@ -200,4 +445,51 @@ public class Command {
         if (executor == null) executor = DEFAULT_EXECUTOR;
         this.executor = executor;
     }
+
+    /**
+     * Sets executor getting arguments parsed by {@link #setArguments(ArgumentSchema)}
+     *
+     * @param executor executor for this command. {@code null} for {@link #DEFAULT_EXECUTOR}
+     */
+    public void setCommandExecutor(@Nullable TypedCommandExecutor executor) {
+        setCommandExecutor((CommandExecutor) executor);
+    }
+
+    /**
+     * @return typed arguments of this command or null if command parses arguments itself
+     */
+    public @Nullable ArgumentSchema getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Sets typed arguments of this command, used by {@link TypedCommandExecutor}.<br>
+     * Schema is compiled when command registers, so it should not be changed after that
+     *
+     * @param arguments arguments schema
+     */
+    public void setArguments(@Nullable ArgumentSchema arguments) {
+        this.arguments = arguments;
+        this.argumentParser = null;
+    }
+
+    /**
+     * Compiles arguments schema. Called on command registration
+     */
+    public void compileArguments() {
+        ArgumentSchema arguments = this.arguments;
+        this.argumentParser = arguments == null ? null : arguments.compile();
+    }
+
+    /**
+     * @return compiled arguments schema or null if command has no schema
+     */
+    public @Nullable ArgumentParser getArgumentParser() {
+        ArgumentParser parser = this.argumentParser;
+        if (parser == null && this.arguments != null) {
+            compileArguments();
+            parser = this.argumentParser;
+        }
+        return parser;
+    }
 }
@@ -0,0 +1,138 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Command arguments.<br>
+ * Arguments parsed by {@link CommandTokenizer} are views into original text,
+ * argument strings are created only when requested
+ *
+ * @see ArgumentsCommandExecutor
+ */
+public interface CommandArguments {
+
+    /**
+     * @return number of arguments
+     */
+    int size();
+
+    /**
+     * @param index argument index
+     * @return argument without quotes and escapes
+     * @throws IndexOutOfBoundsException if there is no such argument
+     */
+    @NotNull String get(int index);
+
+    /**
+     * Text from start of specified argument to end of command, as it was typed
+     *
+     * @param index argument index
+     * @return raw text of arguments
+     * @throws IndexOutOfBoundsException if there is no such argument
+     */
+    @NotNull String getRaw(int index);
+
+    /**
+     * Arguments starting from specified argument. Does not copy arguments
+     *
+     * @param from first argument index
+     * @return arguments view
+     */
+    @NotNull CommandArguments from(int from);
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Case-insensitive check of argument. Does not create argument string if possible
+     *
+     * @param index argument index
+     * @param value expected value
+     * @return true if argument exists and equals ignoring case to value
+     */
+    default boolean is(int index, @NotNull String value) {
+        return index < size() && get(index).equalsIgnoreCase(value);
+    }
+
+    /**
+     * @return arguments array. Creates new array on every call
+     */
+    default @NotNull String @NotNull [] toArray() {
+        String[] result = new String[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Arguments as {@link CommandExecutor} got them before tokenizer: text split by single spaces,
+     * quotes and escapes are kept, other whitespaces do not separate arguments
+     *
+     * @return arguments array. Creates new array on every call
+     */
+    default @NotNull String @NotNull [] toLegacyArray() {
+        return toArray();
+    }
+
+    /**
+     * @param args arguments array
+     * @return arguments view over specified array
+     */
+    static @NotNull CommandArguments of(@NotNull String @NotNull ... args) {
+        return new ArrayArguments(args, 0);
+    }
+
+    /**
+     * Arguments over array, for compatibility with {@link CommandExecutor}
+     */
+    final class ArrayArguments implements CommandArguments {
+
+        private final String[] args;
+        private final int offset;
+
+        private ArrayArguments(String[] args, int offset) {
+            this.args = args;
+            this.offset = offset;
+        }
+
+        @Override
+        public int size() {
+            return args.length - offset;
+        }
+
+        @Override
+        public @NotNull String get(int index) {
+            return args[checkIndex(index)];
+        }
+
+        @Override
+        public @NotNull String getRaw(int index) {
+            return String.join(" ", Arrays.asList(args).subList(checkIndex(index), args.length));
+        }
+
+        @Override
+        public @NotNull CommandArguments from(int from) {
+            if (from == 0) return this;
+            return new ArrayArguments(args, offset + Math.min(from, size()));
+        }
+
+        @Override
+        public @NotNull String @NotNull [] toArray() {
+            return Arrays.copyOfRange(args, offset, args.length);
+        }
+
+        private int checkIndex(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Argument " + index + ", size " + size());
+            return offset + index;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+}
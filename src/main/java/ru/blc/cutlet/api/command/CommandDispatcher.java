@@ -0,0 +1,96 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.LoggerFactory;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous commands.<br>
+ * Commands of one user (or one sender if it has no user) run one by one in dispatch order,
+ * commands of different users run in parallel.<br>
+ * Uses virtual threads if they are available at runtime, otherwise cached thread pool
+ *
+ * @see AsyncCommandExecutor
+ * @see Command#setAsync(boolean)
+ */
+public class CommandDispatcher {
+
+    private final Executor executor;
+    /**
+     * Last command of every user. Removed when user has no pending commands
+     */
+    private final Map<Object, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+
+    public CommandDispatcher() {
+        this(createExecutor());
+    }
+
+    /**
+     * @param executor executor for commands
+     */
+    public CommandDispatcher(@NotNull Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs task after all previous tasks of sender's user
+     *
+     * @param sender command sender
+     * @param task   command. Returned stage should complete when command is done, null means command already done
+     * @return future completed when command is done
+     */
+    public @NotNull CompletableFuture<Void> dispatch(@NotNull CommandSender sender, @NotNull Supplier<CompletionStage<Void>> task) {
+        Object key = sender.getUserSender() != null ? sender.getUserSender() : sender;
+        // compute returns value set by this call even if lane is replaced right after
+        CompletableFuture<Void> future = lanes.compute(key, (k, tail) -> {
+            CompletableFuture<Void> previous = tail == null ? CompletableFuture.completedFuture(null) : tail.exceptionally(t -> null);
+            return previous.thenComposeAsync(v -> run(task), executor);
+        });
+        future.whenComplete((v, t) -> lanes.remove(key, future));
+        return future;
+    }
+
+    private static CompletableFuture<Void> run(Supplier<CompletionStage<Void>> task) {
+        try {
+            CompletionStage<Void> stage = task.get();
+            return stage == null ? CompletableFuture.completedFuture(null) : stage.toCompletableFuture();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    /**
+     * @return number of users with running or pending commands
+     */
+    public int getActiveLanes() {
+        return lanes.size();
+    }
+
+    /**
+     * Stops accepting new commands. Running commands are not interrupted
+     */
+    public void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    private static Executor createExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LoggerFactory.getLogger("Cutlet").debug("Virtual threads are not available, async commands use thread pool");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "Cutlet command thread #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -19,4 +19,20 @@ public interface CommandExecutor {
                    @NotNull CommandSender sender,
                    @NotNull String alias,
                    @NotNull String @NotNull[] args);
+
+    /**
+     * Same as {@link #onCommand(Command, CommandSender, String, String[])}, but with arguments view.<br>
+     * By default, converts arguments to array split by single spaces, as it was before quoted arguments support,
+     * see {@link CommandArguments#toLegacyArray()}. Use {@link ArgumentsCommandExecutor} to work with tokenized arguments
+     * @param command dispatched command
+     * @param sender command sender executed this command
+     * @param alias used command alias. command name also can be here
+     * @param args command args
+     */
+    default void onCommand(@NotNull Command command,
+                           @NotNull CommandSender sender,
+                           @NotNull String alias,
+                           @NotNull CommandArguments args) {
+        onCommand(command, sender, alias, args.toLegacyArray());
+    }
 }
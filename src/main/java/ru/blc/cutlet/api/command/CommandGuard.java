@@ -0,0 +1,23 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+
+/**
+ * Custom check of command dispatch, i.e. "bot is in maintenance" or "user is banned"<br>
+ * Guards run after permission, console and messenger checks, but before cooldown,
+ * so rejected dispatch does not start cooldown
+ *
+ * @see Command#addGuard(CommandGuard)
+ */
+@FunctionalInterface
+public interface CommandGuard {
+
+    /**
+     * @param command command
+     * @param sender  command sender
+     * @param args    command arguments
+     * @return true if command can be dispatched. Guard that rejects dispatch should notify sender itself
+     */
+    boolean test(@NotNull Command command, @NotNull CommandSender sender, @NotNull CommandArguments args);
+}
@@ -0,0 +1,85 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+import ru.blc.cutlet.api.timing.TimingHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatch counters by outcome and executor latency.<br>
+ * Every command has own metrics ({@link Command#getMetrics()}), also all dispatches are counted
+ * in {@link ru.blc.cutlet.api.Cutlet#getCommandMetrics()}
+ */
+public class CommandMetrics {
+
+    private static final CommandOutcome[] OUTCOMES = CommandOutcome.values();
+
+    private final LongAdder[] outcomes = new LongAdder[OUTCOMES.length];
+    private final TimingHistogram latency = new TimingHistogram();
+
+    public CommandMetrics() {
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param outcome dispatch outcome
+     */
+    public void record(@NotNull CommandOutcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+    }
+
+    /**
+     * @param nanos executor time, ns
+     */
+    public void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    /**
+     * @param outcome dispatch outcome
+     * @return number of dispatches with specified outcome
+     */
+    public long getCount(@NotNull CommandOutcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    /**
+     * @return number of dispatches by outcome
+     */
+    public @NotNull Map<CommandOutcome, Long> getCounts() {
+        Map<CommandOutcome, Long> counts = new EnumMap<>(CommandOutcome.class);
+        for (CommandOutcome outcome : OUTCOMES) {
+            counts.put(outcome, getCount(outcome));
+        }
+        return counts;
+    }
+
+    /**
+     * @return number of all dispatches
+     */
+    public long getTotal() {
+        long total = 0;
+        for (LongAdder outcome : outcomes) {
+            total += outcome.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return executor time of successful and failed dispatches
+     */
+    public @NotNull TimingHistogram getLatency() {
+        return latency;
+    }
+
+    public void reset() {
+        for (LongAdder outcome : outcomes) {
+            outcome.reset();
+        }
+        latency.reset();
+    }
+}
@@ -0,0 +1,47 @@
+package ru.blc.cutlet.api.command;
+
+/**
+ * Result of command dispatch
+ *
+ * @see CommandMetrics
+ */
+public enum CommandOutcome {
+    /**
+     * No command with such alias
+     */
+    UNKNOWN,
+    /**
+     * Command is not allowed in sender dialog type
+     */
+    DIALOG_REJECTED,
+    /**
+     * Sender exceeded rate limit
+     */
+    THROTTLED,
+    /**
+     * {@link ru.blc.cutlet.api.event.command.CommandPreprocessEvent} was cancelled
+     */
+    CANCELLED,
+    NO_PERMISSION,
+    ONLY_CONSOLE,
+    UNSUPPORTED_MESSENGER,
+    /**
+     * Dispatch rejected by {@link CommandGuard}
+     */
+    REJECTED,
+    /**
+     * Arguments do not match command {@link ru.blc.cutlet.api.command.argument.ArgumentSchema}, sender got usage error.
+     * Cooldown is not consumed
+     */
+    USAGE,
+    /**
+     * Sender is on command cooldown
+     */
+    COOLDOWN,
+    /**
+     * Command executor failed
+     */
+    ERROR,
+    SUCCESS,
+    ;
+}
@@ -0,0 +1,280 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import ru.blc.cutlet.api.Plugin;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Commands by owners.<br>
+ * Commands of every owner are stored in immutable snapshot, that is replaced atomically on every change.
+ * Lookups only read current snapshot, so they never lock and never allocate.<br>
+ * Also keeps global index of all owners aliases for lookup without owner.
+ * If alias is taken by several owners, cutlet command wins, otherwise earlier registered command wins<br>
+ * Aliases of every owner are also indexed in prefix tree for unique prefix lookup, completion and suggestions
+ */
+public class CommandRegistry {
+
+    /**
+     * Key for cutlet commands, because {@link ConcurrentHashMap} does not allow null keys
+     */
+    private static final Object NULL_OWNER = new Object();
+
+    private final Map<Object, OwnerCommands> commands = new ConcurrentHashMap<>();
+    /**
+     * Registrations of every alias, sorted by conflict resolution order
+     */
+    private final Map<String, Registration[]> aliases = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Registers command<br>
+     * If command name or at least one command alias is already taken by other command of same owner - command would not register
+     *
+     * @param owner   command owner. null for cutlet commands
+     * @param command command
+     * @return true, if command registered, otherwise false
+     */
+    public boolean register(@Nullable Plugin owner, @NotNull Command command) {
+        List<String> keys = keys(command);
+        boolean[] registered = new boolean[1];
+        commands.compute(key(owner), (k, current) -> {
+            if (current == null) current = OwnerCommands.EMPTY;
+            for (String s : keys) {
+                if (current.byAlias.containsKey(s)) return current.orNull();
+            }
+            registered[0] = true;
+            Registration registration = new Registration(owner, command, sequence.getAndIncrement());
+            for (String s : new LinkedHashSet<>(keys)) {
+                aliases.merge(s, new Registration[]{registration}, CommandRegistry::merge);
+            }
+            return current.with(keys, command);
+        });
+        return registered[0];
+    }
+
+    /**
+     * Unregisters command with all its aliases
+     *
+     * @param command command
+     */
+    public void unregister(@NotNull Command command) {
+        commands.computeIfPresent(key(command.getOwner()), (k, current) -> {
+            OwnerCommands next = current.without(command);
+            if (next != current) {
+                removeAliases(keys(command), r -> r.command() == command);
+            }
+            return next.orNull();
+        });
+    }
+
+    /**
+     * Unregisters all commands of owner
+     *
+     * @param owner command owner. null for cutlet commands
+     */
+    public void unregisterAll(@Nullable Plugin owner) {
+        commands.computeIfPresent(key(owner), (k, current) -> {
+            removeAliases(current.byAlias.keySet(), r -> r.owner() == owner);
+            return null;
+        });
+    }
+
+    /**
+     * @param alias command name or alias
+     * @param owner command owner. null for cutlet commands
+     * @return command or null if no matching command founded
+     */
+    public @Nullable Command get(@NotNull String alias, @Nullable Plugin owner) {
+        OwnerCommands current = commands.get(key(owner));
+        if (current == null) return null;
+        return current.byAlias.get(alias.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Lookup by unique prefix. Exact alias always wins, so "st" finds "st" even if there are "start" and "stop"
+     *
+     * @param prefix command name, alias or prefix of them
+     * @param owner  command owner. null for cutlet commands
+     * @return command or null if there is no command or several commands with such prefix
+     */
+    public @Nullable Command getByPrefix(@NotNull String prefix, @Nullable Plugin owner) {
+        OwnerCommands current = commands.get(key(owner));
+        if (current == null) return null;
+        return current.trie().getUnique(prefix.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param prefix prefix of command name or alias
+     * @param owner  command owner. null for cutlet commands
+     * @param limit  max number of results
+     * @return names and aliases starting with prefix, in alphabetical order
+     */
+    public @NotNull List<@NotNull String> complete(@NotNull String prefix, @Nullable Plugin owner, int limit) {
+        OwnerCommands current = commands.get(key(owner));
+        if (current == null || limit <= 0) return Collections.emptyList();
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        current.trie().complete(prefix.toLowerCase(Locale.ROOT), limit, result);
+        return result;
+    }
+
+    /**
+     * Searches commands similar to mistyped word. Swapped adjacent letters are counted as one edit
+     *
+     * @param word        mistyped command
+     * @param owner       command owner. null for cutlet commands
+     * @param maxDistance max number of edits
+     * @param limit       max number of results
+     * @return closest name or alias of every similar command, closer first
+     */
+    public @NotNull List<@NotNull String> suggest(@NotNull String word, @Nullable Plugin owner, int maxDistance, int limit) {
+        OwnerCommands current = commands.get(key(owner));
+        if (current == null || limit <= 0) return Collections.emptyList();
+        Map<Command, CommandTrie.Match> matches = new IdentityHashMap<>();
+        current.trie().suggest(word.toLowerCase(Locale.ROOT), maxDistance, matches);
+        return matches.values().stream()
+                .sorted(Comparator.comparingInt(CommandTrie.Match::distance).thenComparing(CommandTrie.Match::alias))
+                .limit(limit)
+                .map(CommandTrie.Match::alias)
+                .toList();
+    }
+
+    /**
+     * @param owner command owner. null for cutlet commands
+     * @return all commands owned by specified owner
+     */
+    public @Unmodifiable @NotNull Set<@NotNull Command> getCommands(@Nullable Plugin owner) {
+        OwnerCommands current = commands.get(key(owner));
+        if (current == null) return Collections.emptySet();
+        return current.commands;
+    }
+
+    /**
+     * @return commands of all owners
+     */
+    public @NotNull List<@NotNull Command> getAllCommands() {
+        List<Command> result = new ArrayList<>();
+        for (OwnerCommands value : commands.values()) {
+            result.addAll(value.commands);
+        }
+        return result;
+    }
+
+    /**
+     * Lookup of command without owner
+     *
+     * @param alias command name or alias
+     * @return command of any owner or null if no matching command founded. If several owners have such alias -
+     * cutlet command, otherwise earliest registered command
+     */
+    public @Nullable Command get(@NotNull String alias) {
+        Registration[] registrations = aliases.get(alias.toLowerCase(Locale.ROOT));
+        return registrations == null ? null : registrations[0].command();
+    }
+
+    /**
+     * @param alias command name or alias
+     * @return commands of all owners with specified alias, in conflict resolution order
+     */
+    public @Unmodifiable @NotNull List<@NotNull Registration> getRegistrations(@NotNull String alias) {
+        Registration[] registrations = aliases.get(alias.toLowerCase(Locale.ROOT));
+        return registrations == null ? Collections.emptyList() : List.of(registrations);
+    }
+
+    private void removeAliases(Collection<String> keys, Predicate<Registration> removed) {
+        for (String key : keys) {
+            aliases.computeIfPresent(key, (alias, registrations) -> {
+                Registration[] result = Arrays.stream(registrations).filter(removed.negate()).toArray(Registration[]::new);
+                return result.length == 0 ? null : result;
+            });
+        }
+    }
+
+    private static Registration[] merge(Registration[] current, Registration[] added) {
+        Registration[] result = Arrays.copyOf(current, current.length + added.length);
+        System.arraycopy(added, 0, result, current.length, added.length);
+        Arrays.sort(result, Registration.ORDER);
+        return result;
+    }
+
+    private static Object key(Plugin owner) {
+        return owner == null ? NULL_OWNER : owner;
+    }
+
+    private static List<String> keys(Command command) {
+        List<String> keys = new ArrayList<>(command.getAliases().size() + 1);
+        keys.add(command.getName().toLowerCase(Locale.ROOT));
+        for (String alias : command.getAliases()) {
+            keys.add(alias.toLowerCase(Locale.ROOT));
+        }
+        return keys;
+    }
+
+    /**
+     * Command registered by owner
+     *
+     * @param owner    command owner. null for cutlet commands
+     * @param command  command
+     * @param sequence registration order
+     */
+    public record Registration(@Nullable Plugin owner, @NotNull Command command, long sequence) {
+
+        private static final Comparator<Registration> ORDER = Comparator
+                .comparing((Registration r) -> r.owner() != null)
+                .thenComparingLong(Registration::sequence);
+    }
+
+    /**
+     * Immutable commands of one owner
+     */
+    private static final class OwnerCommands {
+
+        private static final OwnerCommands EMPTY = new OwnerCommands(Map.of());
+
+        private final Map<String, Command> byAlias;
+        private final Set<Command> commands;
+        /**
+         * Built on first prefix lookup, so bulk registration does not rebuild it on every command
+         */
+        private volatile CommandTrie trie;
+
+        private OwnerCommands(Map<String, Command> byAlias) {
+            this.byAlias = byAlias;
+            Set<Command> commands = Collections.newSetFromMap(new IdentityHashMap<>());
+            commands.addAll(byAlias.values());
+            this.commands = Collections.unmodifiableSet(commands);
+        }
+
+        private OwnerCommands with(List<String> keys, Command command) {
+            Map<String, Command> byAlias = new HashMap<>(this.byAlias);
+            for (String key : keys) {
+                byAlias.put(key, command);
+            }
+            return new OwnerCommands(Map.copyOf(byAlias));
+        }
+
+        private OwnerCommands without(Command command) {
+            Map<String, Command> byAlias = new HashMap<>(this.byAlias);
+            if (!byAlias.values().removeIf(c -> c == command)) return this;
+            return new OwnerCommands(Map.copyOf(byAlias));
+        }
+
+        private CommandTrie trie() {
+            CommandTrie trie = this.trie;
+            if (trie == null) {
+                // snapshot is immutable, so concurrent builds produce same trie
+                this.trie = trie = byAlias.isEmpty() ? CommandTrie.EMPTY : new CommandTrie(byAlias);
+            }
+            return trie;
+        }
+
+        private OwnerCommands orNull() {
+            return byAlias.isEmpty() ? null : this;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Splits command text to arguments.<br>
+ * Arguments are separated by any number of whitespaces. Argument starting with {@code "} or {@code '} is quoted
+ * up to same quote, so it can contain spaces. Quotes inside argument are usual characters, i.e. {@code don't}.
+ * {@code \} escapes only quotes and {@code \}, so paths like {@code C:\temp} are kept as is.
+ * Unterminated quote lasts to end of text.<br>
+ * Tokenizer does not copy text: every call allocates offsets array and result view, argument strings are created on first use.<br>
+ * Legacy {@link CommandExecutor}s get arguments split by single spaces, see {@link CommandArguments#toLegacyArray()}
+ */
+public final class CommandTokenizer {
+
+    private CommandTokenizer() {
+    }
+
+    /**
+     * @param text command text
+     * @return arguments of text, including command label
+     */
+    public static @NotNull CommandArguments tokenize(@NotNull String text) {
+        int[] bounds = new int[16];
+        int count = 0;
+        int length = text.length();
+        int i = 0;
+        while (true) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+            if (i == length) break;
+            int start = i;
+            boolean plain = true;
+            char quote = 0;
+            char first = text.charAt(i);
+            if (first == '"' || first == '\'') {
+                plain = false;
+                quote = first;
+                i++;
+            }
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (isEscape(text, i, length)) {
+                    plain = false;
+                    i++;
+                } else if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (Character.isWhitespace(c)) {
+                    break;
+                }
+            }
+            if (count * 2 + 2 > bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            // not plain arguments are marked by inverted start
+            bounds[count * 2] = plain ? start : ~start;
+            bounds[count * 2 + 1] = i;
+            count++;
+        }
+        return new TokenizedArguments(text, bounds, count, 0);
+    }
+
+    /**
+     * @return true if character at index is backslash before quote or backslash
+     */
+    private static boolean isEscape(String text, int index, int end) {
+        if (text.charAt(index) != '\\' || index + 1 >= end) return false;
+        char next = text.charAt(index + 1);
+        return next == '\\' || next == '"' || next == '\'';
+    }
+
+    /**
+     * Removes quotes and escapes from argument
+     */
+    private static String unquote(String text, int start, int end) {
+        StringBuilder result = new StringBuilder(end - start);
+        char quote = 0;
+        int i = start;
+        char first = text.charAt(i);
+        if (first == '"' || first == '\'') {
+            quote = first;
+            i++;
+        }
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (isEscape(text, i, end)) {
+                result.append(text.charAt(++i));
+            } else if (quote != 0 && c == quote) {
+                // closing quote, rest of argument is plain
+                quote = 0;
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static final class TokenizedArguments implements CommandArguments {
+
+        private final String text;
+        /**
+         * Start and end of every argument. Start is inverted if argument has quotes or escapes
+         */
+        private final int[] bounds;
+        private final int count;
+        private final int offset;
+        private String[] values;
+
+        private TokenizedArguments(String text, int[] bounds, int count, int offset) {
+            this.text = text;
+            this.bounds = bounds;
+            this.count = count;
+            this.offset = offset;
+        }
+
+        @Override
+        public int size() {
+            return count - offset;
+        }
+
+        @Override
+        public @NotNull String get(int index) {
+            int i = checkIndex(index);
+            if (values == null) values = new String[count];
+            String value = values[i];
+            if (value == null) {
+                int start = bounds[i * 2];
+                int end = bounds[i * 2 + 1];
+                value = start >= 0 ? text.substring(start, end) : unquote(text, ~start, end);
+                values[i] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public @NotNull String getRaw(int index) {
+            int start = bounds[checkIndex(index) * 2];
+            return text.substring(start >= 0 ? start : ~start, bounds[count * 2 - 1]);
+        }
+
+        @Override
+        public boolean is(int index, @NotNull String value) {
+            if (index < 0 || index >= size()) return false;
+            int i = offset + index;
+            int start = bounds[i * 2];
+            if (start < 0) return get(index).equalsIgnoreCase(value);
+            int end = bounds[i * 2 + 1];
+            return end - start == value.length() && text.regionMatches(true, start, value, 0, value.length());
+        }
+
+        @Override
+        public @NotNull CommandArguments from(int from) {
+            if (from == 0) return this;
+            return new TokenizedArguments(text, bounds, count, offset + Math.min(from, size()));
+        }
+
+        @Override
+        public @NotNull String @NotNull [] toLegacyArray() {
+            // text after single space that followed previous argument, same as String#split(" ") of whole text
+            int start = offset == 0 ? 0 : bounds[offset * 2 - 1] + 1;
+            if (start >= text.length()) return new String[0];
+            return text.substring(start).split(" ");
+        }
+
+        private int checkIndex(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Argument " + index + ", size " + size());
+            return offset + index;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+}
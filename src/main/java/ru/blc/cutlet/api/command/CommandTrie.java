@@ -0,0 +1,179 @@
+package ru.blc.cutlet.api.command;
+
+import java.util.*;
+
+/**
+ * Immutable prefix tree of command names and aliases of one owner.<br>
+ * Every node knows command with exactly its key and the only command of its subtree (if there is only one),
+ * so unique prefix lookup is just a walk by prefix. Suggestions are searched by edit distance (with transpositions)
+ * with pruning of branches that are already too far from word, so only few nodes near the word are visited
+ */
+final class CommandTrie {
+
+    static final CommandTrie EMPTY = new CommandTrie(Map.of());
+
+    private final Node root;
+
+    /**
+     * @param byAlias commands by lower case alias
+     */
+    CommandTrie(Map<String, Command> byAlias) {
+        String[] keys = byAlias.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        Command[] values = new Command[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = byAlias.get(keys[i]);
+        }
+        this.root = keys.length == 0 ? new Node() : build(keys, values, 0, keys.length, 0);
+    }
+
+    /**
+     * @param prefix lower case prefix
+     * @return command with such alias, otherwise the only command with alias starting with prefix, otherwise null
+     */
+    Command getUnique(String prefix) {
+        if (prefix.isEmpty()) return null;
+        Node node = find(prefix);
+        if (node == null) return null;
+        return node.command != null ? node.command : node.unique;
+    }
+
+    /**
+     * Adds aliases starting with prefix in alphabetical order
+     *
+     * @param prefix lower case prefix
+     * @param limit  max number of aliases in result
+     * @param result result list
+     */
+    void complete(String prefix, int limit, List<String> result) {
+        Node node = find(prefix);
+        if (node == null) return;
+        complete(node, new StringBuilder(prefix), limit, result);
+    }
+
+    /**
+     * Adds aliases close to word, one best alias for every command
+     *
+     * @param word        lower case word
+     * @param maxDistance max edit distance
+     * @param result      best distance of every close command alias
+     */
+    void suggest(String word, int maxDistance, Map<Command, Match> result) {
+        int[] row = new int[word.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < root.labels.length; i++) {
+            suggest(root.children[i], root.labels[i], (char) 0, word, maxDistance, null, row, key, result);
+        }
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static void complete(Node node, StringBuilder key, int limit, List<String> result) {
+        if (result.size() >= limit) return;
+        if (node.command != null) result.add(key.toString());
+        for (int i = 0; i < node.labels.length && result.size() < limit; i++) {
+            key.append(node.labels[i]);
+            complete(node.children[i], key, limit, result);
+            key.setLength(key.length() - 1);
+        }
+    }
+
+    private static void suggest(Node node, char c, char previous, String word, int maxDistance,
+                                int[] prePrevious, int[] previousRow, StringBuilder key, Map<Command, Match> result) {
+        int length = word.length();
+        int[] row = new int[length + 1];
+        row[0] = previousRow[0] + 1;
+        int min = row[0];
+        for (int j = 1; j <= length; j++) {
+            char w = word.charAt(j - 1);
+            int distance = Math.min(Math.min(row[j - 1], previousRow[j]) + 1, previousRow[j - 1] + (w == c ? 0 : 1));
+            if (prePrevious != null && j > 1 && w == previous && word.charAt(j - 2) == c) {
+                distance = Math.min(distance, prePrevious[j - 2] + 1);
+            }
+            row[j] = distance;
+            min = Math.min(min, distance);
+        }
+        if (min > maxDistance) return;
+        key.append(c);
+        if (node.command != null && row[length] <= maxDistance) {
+            Match current = result.get(node.command);
+            if (current == null || current.distance > row[length]) {
+                result.put(node.command, new Match(key.toString(), row[length]));
+            }
+        }
+        for (int i = 0; i < node.labels.length; i++) {
+            suggest(node.children[i], node.labels[i], c, word, maxDistance, previousRow, row, key, result);
+        }
+        key.setLength(key.length() - 1);
+    }
+
+    /**
+     * @param keys   sorted keys
+     * @param values commands of keys
+     * @param depth  length of common prefix of keys in [from, to)
+     */
+    private static Node build(String[] keys, Command[] values, int from, int to, int depth) {
+        Node node = new Node();
+        node.unique = values[from];
+        for (int i = from + 1; i < to && node.unique != null; i++) {
+            if (values[i] != node.unique) node.unique = null;
+        }
+        int i = from;
+        if (keys[i].length() == depth) {
+            node.command = values[i];
+            i++;
+        }
+        int groups = 0;
+        for (int j = i; j < to; j++) {
+            if (j == i || keys[j].charAt(depth) != keys[j - 1].charAt(depth)) groups++;
+        }
+        node.labels = new char[groups];
+        node.children = new Node[groups];
+        int group = 0;
+        while (i < to) {
+            char c = keys[i].charAt(depth);
+            int end = i + 1;
+            while (end < to && keys[end].charAt(depth) == c) end++;
+            node.labels[group] = c;
+            node.children[group] = build(keys, values, i, end, depth + 1);
+            group++;
+            i = end;
+        }
+        return node;
+    }
+
+    /**
+     * @param alias    closest alias of command
+     * @param distance edit distance to word
+     */
+    record Match(String alias, int distance) {
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        /**
+         * Sorted labels of children
+         */
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private Command command;
+        private Command unique;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package ru.blc.cutlet.api.command;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Expiring set of primitive long keys, i.e. user ids on cooldown.<br>
+ * Expired entries are free slots, so table cleans itself without any timers.
+ * All operations are O(1) and lock-free: key is looked up in small probe window of open addressing table.
+ * Acquire claims slot with CAS and then checks key again,
+ * so from racing acquires of one key only one keeps its entry, others roll back and retry.<br>
+ * When window is full, table grows: new generation is created and old ones are only read until all their entries expire.
+ * At max capacity entry with earliest expiry in window is replaced, so under extreme load some cooldowns can end earlier
+ *
+ * @see Command#setCooldown(long, java.util.concurrent.TimeUnit, String)
+ */
+public class CooldownTable {
+
+    private static final int PROBES = 16;
+    private static final int INITIAL_CAPACITY = 256;
+    /**
+     * Expiry of slot that is being written
+     */
+    private static final long CLAIMED = -1;
+    private static final long BASE = System.nanoTime();
+
+    private final int maxCapacity;
+    /**
+     * Tables from newest to oldest. Only newest table is written
+     */
+    private final AtomicReference<Table[]> generations;
+
+    public CooldownTable() {
+        this(1 << 22);
+    }
+
+    /**
+     * @param maxCapacity max number of entries
+     */
+    public CooldownTable(int maxCapacity) {
+        this.maxCapacity = Math.max(Integer.highestOneBit(Math.max(maxCapacity, PROBES) - 1) << 1, PROBES);
+        this.generations = new AtomicReference<>(new Table[]{new Table(Math.min(INITIAL_CAPACITY, this.maxCapacity))});
+    }
+
+    /**
+     * @return current time used by tables, ms
+     */
+    public static long now() {
+        return (System.nanoTime() - BASE) / 1_000_000 + 1;
+    }
+
+    /**
+     * Puts key for specified duration if it is not present yet
+     *
+     * @param key      key
+     * @param duration duration, ms. Too long durations are limited by {@link Long#MAX_VALUE} expiry
+     * @return 0 if key was put, otherwise remaining time of present key, ms
+     */
+    public long acquire(long key, long duration) {
+        long now = now();
+        long expiry = duration >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + duration;
+        while (true) {
+            Table[] generations = current(now);
+            for (Table table : generations) {
+                long remaining = table.remaining(key, now);
+                if (remaining > 0) return remaining;
+            }
+            Table table = generations[0];
+            int slot = table.claim(key, now, expiry, false);
+            if (slot < 0) {
+                if (table.capacity() < maxCapacity) {
+                    Table[] next = new Table[generations.length + 1];
+                    next[0] = new Table(table.capacity() * 2);
+                    System.arraycopy(generations, 0, next, 1, generations.length);
+                    this.generations.compareAndSet(generations, next);
+                    continue;
+                }
+                slot = table.claim(key, now, expiry, true);
+                if (slot < 0) continue;
+            }
+            if (!isRacing(key, now, table, slot)) return 0;
+            // racing acquire of same key, both may roll back, then check is repeated
+            table.release(slot, expiry);
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Entry that is being written is not visible yet, but its writer checks after write and sees claimed entry
+     *
+     * @return true if key has other entry than claimed slot
+     */
+    private boolean isRacing(long key, long now, Table claimed, int slot) {
+        for (Table table : current(now)) {
+            if (table.contains(key, now, table == claimed ? slot : -1)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param key key
+     * @return remaining time of key, ms. 0 if key is not present
+     */
+    public long getRemaining(long key) {
+        long now = now();
+        for (Table table : current(now)) {
+            long remaining = table.remaining(key, now);
+            if (remaining > 0) return remaining;
+        }
+        return 0;
+    }
+
+    /**
+     * Removes key
+     *
+     * @param key key
+     */
+    public void remove(long key) {
+        for (Table table : this.generations.get()) {
+            table.remove(key);
+        }
+    }
+
+    /**
+     * @return tables, without old tables with only expired entries
+     */
+    private Table[] current(long now) {
+        Table[] generations = this.generations.get();
+        int live = generations.length;
+        while (live > 1 && generations[live - 1].maxExpiry.get() <= now) live--;
+        if (live == generations.length) return generations;
+        Table[] next = Arrays.copyOf(generations, live);
+        this.generations.compareAndSet(generations, next);
+        return next;
+    }
+
+    private static final class Table {
+
+        private final AtomicLongArray keys;
+        private final AtomicLongArray expiries;
+        private final int mask;
+        private final AtomicLong maxExpiry = new AtomicLong();
+
+        private Table(int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.expiries = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return mask + 1;
+        }
+
+        private int index(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private long remaining(long key, long now) {
+            int start = index(key);
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (start + i) & mask;
+                long expiry = expiries.get(slot);
+                if (expiry > now && keys.get(slot) == key) return expiry - now;
+            }
+            return 0;
+        }
+
+        /**
+         * @param except slot that is skipped, -1 for none
+         * @return true if key is present in other slot
+         */
+        private boolean contains(long key, long now, int except) {
+            int start = index(key);
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (start + i) & mask;
+                if (slot != except && expiries.get(slot) > now && keys.get(slot) == key) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @param force replace entry with earliest expiry if there is no free slot
+         * @return slot of written key, -1 if key was not written
+         */
+        private int claim(long key, long now, long expiry, boolean force) {
+            int start = index(key);
+            int earliest = -1;
+            long earliestExpiry = Long.MAX_VALUE;
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (start + i) & mask;
+                long current = expiries.get(slot);
+                if (current != CLAIMED && current <= now) {
+                    if (write(slot, current, key, expiry)) return slot;
+                } else if (current != CLAIMED && current < earliestExpiry) {
+                    earliest = slot;
+                    earliestExpiry = current;
+                }
+            }
+            return force && earliest >= 0 && write(earliest, earliestExpiry, key, expiry) ? earliest : -1;
+        }
+
+        /**
+         * Frees slot if it was not overwritten
+         */
+        private void release(int slot, long expiry) {
+            expiries.compareAndSet(slot, expiry, 0);
+        }
+
+        private boolean write(int slot, long current, long key, long expiry) {
+            if (!expiries.compareAndSet(slot, current, CLAIMED)) return false;
+            keys.set(slot, key);
+            expiries.set(slot, expiry);
+            long max;
+            while ((max = maxExpiry.get()) < expiry && !maxExpiry.compareAndSet(max, expiry)) ;
+            return true;
+        }
+
+        private void remove(long key) {
+            int start = index(key);
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (start + i) & mask;
+                long expiry = expiries.get(slot);
+                if (expiry > 0 && keys.get(slot) == key) {
+                    expiries.compareAndSet(slot, expiry, 0);
+                }
+            }
+        }
+    }
+}
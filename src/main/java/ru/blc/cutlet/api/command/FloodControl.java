@@ -0,0 +1,90 @@
+package ru.blc.cutlet.api.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.blc.cutlet.api.bean.ChatUser;
+
+/**
+ * Limits how often users can dispatch commands.<br>
+ * Every user has token bucket for global limit and for every command with own limit ({@link Command#setRateLimit(RateLimit)}).
+ * Command is dispatched only if both buckets have token. First rejected command of user gets reply,
+ * next ones are ignored silently until user gets token again.<br>
+ * Disabled by default
+ */
+public class FloodControl {
+
+    /**
+     * Default max number of tracked users of every limit and messenger
+     */
+    public static final int DEFAULT_MAX_USERS = 1 << 20;
+
+    public enum Result {
+        /**
+         * Command can be dispatched
+         */
+        ALLOWED,
+        /**
+         * Command is rejected, user should be notified
+         */
+        THROTTLED,
+        /**
+         * Command is rejected, user was already notified
+         */
+        THROTTLED_SILENT
+    }
+
+    private static final Result[] RESULTS = Result.values();
+
+    private final long base = System.nanoTime();
+    private final int maxUsers;
+    private volatile TokenBuckets global;
+
+    public FloodControl() {
+        this(DEFAULT_MAX_USERS);
+    }
+
+    /**
+     * @param maxUsers max number of tracked users of every limit and messenger. Memory used by flood control is bounded by this value
+     */
+    public FloodControl(int maxUsers) {
+        if (maxUsers < 1) throw new IllegalArgumentException("maxUsers should be positive");
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * @return limit for all commands of user or null if there is no global limit
+     */
+    public @Nullable RateLimit getGlobalLimit() {
+        TokenBuckets global = this.global;
+        return global == null ? null : global.getLimit();
+    }
+
+    /**
+     * Sets limit for all commands of user. Resets current buckets
+     *
+     * @param limit limit or null for no global limit
+     */
+    public void setGlobalLimit(@Nullable RateLimit limit) {
+        this.global = limit == null ? null : new TokenBuckets(limit, maxUsers);
+    }
+
+    /**
+     * Takes token of user for command
+     *
+     * @param user    user that dispatches command. null users (i.e. console) are not limited
+     * @param command command
+     * @return check result
+     */
+    public @NotNull Result acquire(@Nullable ChatUser user, @NotNull Command command) {
+        if (user == null) return Result.ALLOWED;
+        TokenBuckets global = this.global;
+        TokenBuckets local = command.getRateLimitBuckets();
+        if (global == null && local == null) return Result.ALLOWED;
+        long now = (System.nanoTime() - base) / 1_000_000;
+        int result = global == null ? TokenBuckets.ALLOWED : global.acquire(user, now);
+        if (result == TokenBuckets.ALLOWED && local != null) {
+            result = local.acquire(user, now);
+        }
+        return RESULTS[result];
+    }
+}
@@ -0,0 +1,92 @@
+package ru.blc.cutlet.api.command;
+
+import ru.blc.cutlet.api.Cutlet;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+import ru.blc.cutlet.api.command.sender.DialogType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable checks of command, compiled from its settings.<br>
+ * Only needed checks are included, i.e. command without permission has no permission check,
+ * so dispatch is just a loop over few guards
+ */
+final class GuardPlan {
+
+    private final int dialogs;
+    private final CommandGuard[] guards;
+    private final CommandOutcome[] outcomes;
+    /**
+     * Translation key of rejection message, null if guard notifies sender itself
+     */
+    private final String[] messages;
+
+    private GuardPlan(int dialogs, List<CommandGuard> guards, List<CommandOutcome> outcomes, List<String> messages) {
+        this.dialogs = dialogs;
+        this.guards = guards.toArray(new CommandGuard[0]);
+        this.outcomes = outcomes.toArray(new CommandOutcome[0]);
+        this.messages = messages.toArray(new String[0]);
+    }
+
+    static GuardPlan compile(Command command, Messenger[] allowedMessengers, List<CommandGuard> custom) {
+        int dialogs = command.getDialogType() == DialogType.ALL ? -1 : bit(command.getDialogType()) | bit(DialogType.ALL);
+        List<CommandGuard> guards = new ArrayList<>();
+        List<CommandOutcome> outcomes = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        String permission = command.getPermission();
+        if (!permission.isEmpty()) {
+            guards.add((c, sender, args) -> sender.hasPermission(permission));
+            outcomes.add(CommandOutcome.NO_PERMISSION);
+            messages.add("no_permission");
+        }
+        if (command.isOnlyConsole()) {
+            guards.add((c, sender, args) -> sender.isConsole());
+            outcomes.add(CommandOutcome.ONLY_CONSOLE);
+            messages.add("only_console");
+        }
+        if (allowedMessengers != null && allowedMessengers.length > 0) {
+            Set<Messenger> allowed = Collections.newSetFromMap(new IdentityHashMap<>());
+            Collections.addAll(allowed, allowedMessengers);
+            guards.add((c, sender, args) -> sender.getMessenger() == null || allowed.contains(sender.getMessenger()));
+            outcomes.add(CommandOutcome.UNSUPPORTED_MESSENGER);
+            messages.add("unsupported_messenger");
+        }
+        for (CommandGuard guard : custom) {
+            guards.add(guard);
+            outcomes.add(CommandOutcome.REJECTED);
+            messages.add(null);
+        }
+        return new GuardPlan(dialogs, guards, outcomes, messages);
+    }
+
+    /**
+     * @return true if command allows dialog type of sender
+     */
+    boolean allows(DialogType dialogType) {
+        if (dialogType == null) return dialogs == -1;
+        return (dialogs & bit(dialogType)) != 0;
+    }
+
+    /**
+     * Runs all guards, notifies sender if some guard rejects dispatch
+     *
+     * @return null if dispatch is allowed, otherwise reason of rejection
+     */
+    CommandOutcome check(Command command, CommandSender sender, CommandArguments args) {
+        for (int i = 0; i < guards.length; i++) {
+            if (!guards[i].test(command, sender, args)) {
+                if (messages[i] != null) sender.sendMessage(Cutlet.instance().getTranslation(messages[i]));
+                return outcomes[i];
+            }
+        }
+        return null;
+    }
+
+    private static int bit(DialogType dialogType) {
+        return 1 << dialogType.ordinal();
+    }
+}
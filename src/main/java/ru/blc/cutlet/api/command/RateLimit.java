@@ -0,0 +1,19 @@
+package ru.blc.cutlet.api.command;
+
+/**
+ * Token bucket limit. User can dispatch {@code burst} commands at once,
+ * then {@code perSecond} commands every second
+ *
+ * @param burst     bucket capacity, 1..{@value #MAX_BURST}
+ * @param perSecond bucket refill speed, commands per second
+ * @see FloodControl
+ */
+public record RateLimit(int burst, double perSecond) {
+
+    public static final int MAX_BURST = 4000;
+
+    public RateLimit {
+        if (burst < 1 || burst > MAX_BURST) throw new IllegalArgumentException("burst should be in 1.." + MAX_BURST);
+        if (!(perSecond > 0) || perSecond > 1_000_000) throw new IllegalArgumentException("perSecond should be positive");
+    }
+}
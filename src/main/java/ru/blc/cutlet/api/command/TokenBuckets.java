@@ -0,0 +1,123 @@
+package ru.blc.cutlet.api.command;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import ru.blc.cutlet.api.bean.ChatUser;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets of one limit for every user.<br>
+ * Bucket is packed to one long: refill time (ms), "user was notified" flag and tokens (1/1000 of token).
+ * Buckets are kept in primitive maps, striped by user id. Full buckets are same as absent, so they are evicted
+ * when stripe grows. If stripe is still too large, it is cleared, users just get full buckets again
+ */
+final class TokenBuckets {
+
+    static final int ALLOWED = 0;
+    static final int THROTTLED = 1;
+    static final int THROTTLED_SILENT = 2;
+
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long NOTIFIED = 1L << TOKEN_BITS;
+    private static final int TIME_SHIFT = TOKEN_BITS + 1;
+    private static final long ABSENT = -1;
+
+    /**
+     * Key for users without messenger
+     */
+    private static final Object NULL_MESSENGER = new Object();
+
+    private final RateLimit limit;
+    private final long capacity;
+    private final int maxPerStripe;
+    private final Map<Object, Stripe[]> byMessenger = new ConcurrentHashMap<>();
+
+    TokenBuckets(RateLimit limit, int maxUsers) {
+        this.limit = limit;
+        this.capacity = limit.burst() * 1000L;
+        this.maxPerStripe = Math.max(maxUsers / STRIPES, 16);
+    }
+
+    RateLimit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Takes one token of user
+     *
+     * @param user user
+     * @param now  current time, ms
+     * @return {@link #ALLOWED}, {@link #THROTTLED} for first rejection or {@link #THROTTLED_SILENT}
+     */
+    int acquire(ChatUser user, long now) {
+        Stripe[] stripes = byMessenger.computeIfAbsent(user.messenger() == null ? NULL_MESSENGER : user.messenger(), m -> newStripes());
+        long id = user.userId();
+        Stripe stripe = stripes[(int) ((id * 0x9E3779B97F4A7C15L) >>> (64 - STRIPE_BITS))];
+        synchronized (stripe) {
+            long state = stripe.buckets.get(id);
+            long tokens;
+            long time;
+            long notified;
+            if (state == ABSENT) {
+                if (stripe.buckets.size() >= maxPerStripe) evict(stripe, now);
+                tokens = capacity;
+                time = now;
+                notified = 0;
+            } else {
+                tokens = state & TOKEN_MASK;
+                time = state >>> TIME_SHIFT;
+                notified = state & NOTIFIED;
+                long gained = (long) ((now - time) * limit.perSecond());
+                if (gained > 0) {
+                    tokens = Math.min(capacity, tokens + gained);
+                    time = now;
+                }
+            }
+            if (tokens >= 1000) {
+                stripe.buckets.put(id, pack(tokens - 1000, time, 0));
+                return ALLOWED;
+            }
+            stripe.buckets.put(id, pack(tokens, time, NOTIFIED));
+            return notified == 0 ? THROTTLED : THROTTLED_SILENT;
+        }
+    }
+
+    private void evict(Stripe stripe, long now) {
+        ObjectIterator<Long2LongMap.Entry> iterator = stripe.buckets.long2LongEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            long state = iterator.next().getLongValue();
+            long tokens = (state & TOKEN_MASK) + (long) ((now - (state >>> TIME_SHIFT)) * limit.perSecond());
+            if (tokens >= capacity) iterator.remove();
+        }
+        if (stripe.buckets.size() >= maxPerStripe * 3 / 4) {
+            stripe.buckets.clear();
+            stripe.buckets.trim();
+        }
+    }
+
+    private static long pack(long tokens, long time, long notified) {
+        return time << TIME_SHIFT | notified | tokens;
+    }
+
+    private static Stripe[] newStripes() {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+
+    private static final class Stripe {
+        private final Long2LongOpenHashMap buckets = new Long2LongOpenHashMap();
+
+        private Stripe() {
+            buckets.defaultReturnValue(ABSENT);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.blc.cutlet.api.command.argument;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Argument of {@link ArgumentSchema}. Used as key to get parsed value from {@link CommandContext}
+ *
+ * @param <T> value type
+ */
+public final class Argument<T> {
+
+    private final String name;
+    private final ArgumentType<T> type;
+    private final boolean optional;
+    private final boolean rest;
+    private final T defaultValue;
+    final int index;
+
+    Argument(String name, ArgumentType<T> type, boolean optional, boolean rest, T defaultValue, int index) {
+        this.name = name;
+        this.type = type;
+        this.optional = optional;
+        this.rest = rest;
+        this.defaultValue = defaultValue;
+        this.index = index;
+    }
+
+    public @NotNull String getName() {
+        return name;
+    }
+
+    public @NotNull ArgumentType<T> getType() {
+        return type;
+    }
+
+    public boolean isOptional() {
+        return optional;
+    }
+
+    /**
+     * @return true if argument takes all remaining text
+     */
+    public boolean isRest() {
+        return rest;
+    }
+
+    /**
+     * @return value of optional argument if it is not specified
+     */
+    public @Nullable T getDefaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        String text = rest ? name + "..." : name + ":" + type.getName();
+        return optional ? "[" + text + "]" : "<" + text + ">";
+    }
+}
@@ -0,0 +1,122 @@
+package ru.blc.cutlet.api.command.argument;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.blc.cutlet.api.Cutlet;
+import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandArguments;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+import ru.blc.cutlet.api.command.sender.TargetSearchResult;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiled {@link ArgumentSchema}. Parses arguments to {@link CommandContext}
+ */
+public final class ArgumentParser {
+
+    private final Argument<?>[] arguments;
+    private final boolean[] users;
+    private final boolean hasUsers;
+    private final String usage;
+
+    ArgumentParser(Argument<?>[] arguments) {
+        this.arguments = arguments;
+        this.users = new boolean[arguments.length];
+        boolean hasUsers = false;
+        for (int i = 0; i < arguments.length; i++) {
+            users[i] = arguments[i].getType() == ArgumentType.USER;
+            hasUsers |= users[i];
+        }
+        this.hasUsers = hasUsers;
+        this.usage = Stream.of(arguments).map(Argument::toString).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * @return usage generated from schema, without command alias
+     */
+    public @NotNull String getUsage() {
+        return usage;
+    }
+
+    /**
+     * Parses arguments. If arguments are invalid, sender gets usage error
+     *
+     * @param command command
+     * @param sender  command sender
+     * @param alias   used command alias
+     * @param args    arguments
+     * @return parsed arguments or null if arguments are invalid
+     */
+    public @Nullable CommandContext parse(@NotNull Command command, @NotNull CommandSender sender,
+                                          @NotNull String alias, @NotNull CommandArguments args) {
+        Object[] values = new Object[arguments.length];
+        List<TargetSearchResult> targets = hasUsers ? sender.extractTargets() : null;
+        int target = 0;
+        int token = 0;
+        for (int i = 0; i < arguments.length; i++) {
+            Argument<?> argument = arguments[i];
+            if (users[i]) {
+                if (targets == null || target >= targets.size()) {
+                    if (!argument.isOptional()) return usageError(sender, alias);
+                    values[i] = argument.getDefaultValue();
+                    continue;
+                }
+                TargetSearchResult result = targets.get(target++);
+                values[i] = result.target();
+                token += mentionTokens(result, args, token);
+            } else if (token >= args.size()) {
+                if (!argument.isOptional()) return usageError(sender, alias);
+                values[i] = argument.getDefaultValue();
+            } else if (argument.isRest()) {
+                values[i] = args.getRaw(token);
+                token = args.size();
+            } else {
+                Object value = argument.getType().parse(args.get(token));
+                if (value == null) {
+                    sender.sendMessage(String.format(Cutlet.instance().getTranslation("command_invalid_argument"),
+                            args.get(token), argument.getName(), alias + " " + usage));
+                    return null;
+                }
+                values[i] = value;
+                token++;
+            }
+        }
+        if (token < args.size()) return usageError(sender, alias);
+        return new CommandContext(this, command, sender, alias, args, values);
+    }
+
+    /**
+     * @return index of argument value
+     * @throws IllegalArgumentException if argument is not from compiled schema
+     */
+    int indexOf(Argument<?> argument) {
+        int index = argument.index;
+        if (index >= arguments.length || arguments[index] != argument) {
+            throw new IllegalArgumentException("Argument " + argument.getName() + " is not from this schema");
+        }
+        return index;
+    }
+
+    /**
+     * @return number of arguments that are mention text of target
+     */
+    private static int mentionTokens(TargetSearchResult target, CommandArguments args, int token) {
+        String text = target.targetText();
+        if (target.findCase() != TargetSearchResult.FindCase.MENTION || text == null || text.isBlank()) return 0;
+        if (token >= args.size() || !args.getRaw(token).startsWith(text.strip())) return 0;
+        int count = 1;
+        String stripped = text.strip();
+        for (int i = 1; i < stripped.length(); i++) {
+            if (Character.isWhitespace(stripped.charAt(i)) && !Character.isWhitespace(stripped.charAt(i - 1))) count++;
+        }
+        return Math.min(count, args.size() - token);
+    }
+
+    private CommandContext usageError(CommandSender sender, String alias) {
+        sender.sendMessage(String.format(Cutlet.instance().getTranslation("command_usage"), alias + " " + usage));
+        return null;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.blc.cutlet.api.command.argument;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.blc.cutlet.api.bean.ChatUser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Typed arguments of command.<br>
+ * Required arguments go first, then optional ones, rest text argument can be only last.
+ * Schema is compiled to {@link ArgumentParser} once, when command is registered
+ *
+ * <pre>{@code
+ * ArgumentSchema schema = new ArgumentSchema();
+ * Argument<ChatUser> target = schema.user("target");
+ * Argument<Integer> amount = schema.optional("amount", ArgumentType.INTEGER, 1);
+ * command.setArguments(schema);
+ * command.setCommandExecutor(context -> give(context.get(target), context.get(amount)));
+ * }</pre>
+ */
+public class ArgumentSchema {
+
+    private final List<Argument<?>> arguments = new ArrayList<>();
+    private boolean hasOptional;
+    private boolean hasRest;
+
+    /**
+     * Adds required argument
+     *
+     * @param name argument name
+     * @param type argument type
+     * @param <T>  value type
+     * @return argument key
+     */
+    public <T> @NotNull Argument<T> required(@NotNull String name, @NotNull ArgumentType<T> type) {
+        if (hasOptional) throw new IllegalStateException("Required argument " + name + " can not follow optional arguments");
+        return add(new Argument<>(name, type, false, false, null, arguments.size()));
+    }
+
+    /**
+     * Adds optional argument without default value
+     *
+     * @param name argument name
+     * @param type argument type
+     * @param <T>  value type
+     * @return argument key
+     */
+    public <T> @NotNull Argument<T> optional(@NotNull String name, @NotNull ArgumentType<T> type) {
+        return optional(name, type, null);
+    }
+
+    /**
+     * Adds optional argument
+     *
+     * @param name         argument name
+     * @param type         argument type
+     * @param defaultValue value if argument is not specified
+     * @param <T>          value type
+     * @return argument key
+     */
+    public <T> @NotNull Argument<T> optional(@NotNull String name, @NotNull ArgumentType<T> type, @Nullable T defaultValue) {
+        hasOptional = true;
+        return add(new Argument<>(name, type, true, false, defaultValue, arguments.size()));
+    }
+
+    /**
+     * Adds required user target
+     *
+     * @param name argument name
+     * @return argument key
+     * @see ArgumentType#USER
+     */
+    public @NotNull Argument<ChatUser> user(@NotNull String name) {
+        return required(name, ArgumentType.USER);
+    }
+
+    /**
+     * Adds argument with all remaining text, as it was typed
+     *
+     * @param name     argument name
+     * @param optional true if text can be empty
+     * @return argument key
+     */
+    public @NotNull Argument<String> rest(@NotNull String name, boolean optional) {
+        if (!optional && hasOptional) throw new IllegalStateException("Required argument " + name + " can not follow optional arguments");
+        hasOptional |= optional;
+        Argument<String> argument = add(new Argument<>(name, ArgumentType.WORD, optional, true, optional ? "" : null, arguments.size()));
+        hasRest = true;
+        return argument;
+    }
+
+    private <T> Argument<T> add(Argument<T> argument) {
+        if (hasRest) throw new IllegalStateException("Argument " + argument.getName() + " can not follow rest argument");
+        for (Argument<?> a : arguments) {
+            if (a.getName().equalsIgnoreCase(argument.getName())) {
+                throw new IllegalArgumentException("Duplicate argument " + argument.getName());
+            }
+        }
+        arguments.add(argument);
+        return argument;
+    }
+
+    public @NotNull List<@NotNull Argument<?>> getArguments() {
+        return Collections.unmodifiableList(arguments);
+    }
+
+    /**
+     * @return parser of current arguments
+     */
+    public @NotNull ArgumentParser compile() {
+        return new ArgumentParser(arguments.toArray(new Argument<?>[0]));
+    }
+}
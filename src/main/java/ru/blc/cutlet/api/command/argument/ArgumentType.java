@@ -0,0 +1,106 @@
+package ru.blc.cutlet.api.command.argument;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.blc.cutlet.api.bean.ChatUser;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Parser of one argument
+ *
+ * @param <T> argument value type
+ */
+public interface ArgumentType<T> {
+
+    ArgumentType<Integer> INTEGER = of("integer", text -> {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    });
+
+    ArgumentType<Long> LONG = of("number", text -> {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    });
+
+    ArgumentType<Double> DOUBLE = of("decimal", text -> {
+        try {
+            double value = Double.parseDouble(text);
+            return Double.isFinite(value) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    });
+
+    ArgumentType<Boolean> BOOLEAN = of("true|false", text -> {
+        if (text.equalsIgnoreCase("true") || text.equalsIgnoreCase("yes") || text.equals("1")) return true;
+        if (text.equalsIgnoreCase("false") || text.equalsIgnoreCase("no") || text.equals("0")) return false;
+        return null;
+    });
+
+    ArgumentType<String> WORD = of("text", text -> text);
+
+    /**
+     * User target. Resolved by {@link ru.blc.cutlet.api.command.sender.CommandSender#extractTargets(ru.blc.cutlet.api.command.sender.TargetSearchResult.FindCase...)},
+     * mention text in arguments is skipped
+     */
+    ArgumentType<ChatUser> USER = of("user", text -> null);
+
+    /**
+     * @return name of type, shown in usage
+     */
+    @NotNull String getName();
+
+    /**
+     * @param text argument text
+     * @return parsed value or null if text is invalid
+     */
+    @Nullable T parse(@NotNull String text);
+
+    /**
+     * @param name   type name, shown in usage
+     * @param parser parser, returns null for invalid text
+     * @param <T>    value type
+     * @return argument type
+     */
+    static <T> @NotNull ArgumentType<T> of(@NotNull String name, @NotNull Function<String, T> parser) {
+        return new ArgumentType<>() {
+            @Override
+            public @NotNull String getName() {
+                return name;
+            }
+
+            @Override
+            public @Nullable T parse(@NotNull String text) {
+                return parser.apply(text);
+            }
+        };
+    }
+
+    /**
+     * Case-insensitive enum constant names
+     *
+     * @param type enum class
+     * @param <E>  enum type
+     * @return argument type
+     */
+    static <E extends Enum<E>> @NotNull ArgumentType<E> enumeration(@NotNull Class<E> type) {
+        Map<String, E> constants = new HashMap<>();
+        for (E constant : type.getEnumConstants()) {
+            constants.put(constant.name().toLowerCase(Locale.ROOT), constant);
+        }
+        String name = Stream.of(type.getEnumConstants()).map(e -> e.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining("|"));
+        return of(name, text -> constants.get(text.toLowerCase(Locale.ROOT)));
+    }
+}
@@ -0,0 +1,73 @@
+package ru.blc.cutlet.api.command.argument;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandArguments;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+
+/**
+ * Parsed arguments of dispatched command
+ *
+ * @see TypedCommandExecutor
+ */
+public final class CommandContext {
+
+    private final ArgumentParser parser;
+    private final Command command;
+    private final CommandSender sender;
+    private final String alias;
+    private final CommandArguments arguments;
+    private final Object[] values;
+
+    CommandContext(ArgumentParser parser, Command command, CommandSender sender, String alias, CommandArguments arguments, Object[] values) {
+        this.parser = parser;
+        this.command = command;
+        this.sender = sender;
+        this.alias = alias;
+        this.arguments = arguments;
+        this.values = values;
+    }
+
+    /**
+     * @param argument argument of command schema
+     * @param <T>      value type
+     * @return parsed value, default value for not specified optional argument
+     * @throws IllegalArgumentException if argument is not from schema of command
+     */
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(@NotNull Argument<T> argument) {
+        return (T) values[parser.indexOf(argument)];
+    }
+
+    /**
+     * @param argument argument of command schema
+     * @return true if argument has value
+     * @throws IllegalArgumentException if argument is not from schema of command
+     */
+    public boolean has(@NotNull Argument<?> argument) {
+        return values[parser.indexOf(argument)] != null;
+    }
+
+    public @NotNull Command getCommand() {
+        return command;
+    }
+
+    public @NotNull CommandSender getSender() {
+        return sender;
+    }
+
+    /**
+     * @return used command alias. command name also can be here
+     */
+    public @NotNull String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return raw arguments
+     */
+    public @NotNull CommandArguments getArguments() {
+        return arguments;
+    }
+}
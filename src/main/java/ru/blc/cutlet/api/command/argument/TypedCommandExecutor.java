@@ -0,0 +1,38 @@
+package ru.blc.cutlet.api.command.argument;
+
+import org.jetbrains.annotations.NotNull;
+import ru.blc.cutlet.api.command.ArgumentsCommandExecutor;
+import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandArguments;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+
+/**
+ * Command executor that gets arguments parsed by command {@link ArgumentSchema}.<br>
+ * Arguments are parsed by {@link Command#dispatch(CommandSender, String, CommandArguments)} before cooldown check.
+ * If arguments are invalid, executor is not called, sender gets usage error and command cooldown is not consumed
+ *
+ * @see Command#setArguments(ArgumentSchema)
+ */
+@FunctionalInterface
+public interface TypedCommandExecutor extends ArgumentsCommandExecutor {
+
+    /**
+     * Calls after all checks and successful arguments parsing
+     *
+     * @param context parsed arguments
+     */
+    void onCommand(@NotNull CommandContext context);
+
+    @Override
+    default void onCommand(@NotNull Command command,
+                           @NotNull CommandSender sender,
+                           @NotNull String alias,
+                           @NotNull CommandArguments args) {
+        ArgumentParser parser = command.getArgumentParser();
+        if (parser == null) throw new IllegalStateException("Command " + command.getName() + " has no arguments schema");
+        CommandContext context = parser.parse(command, sender, alias, args);
+        if (context != null) {
+            onCommand(context);
+        }
+    }
+}
@@ -28,6 +28,7 @@ public interface CommandSender {
      * @param permission permission to check
      * @return {@code true} if sender has this permission, otherwise {@code false}
      * @see ru.blc.cutlet.api.permission.PermissionCalculator#isPermissionAllows(String, String)
+     * @see ru.blc.cutlet.api.permission.PermissionSet
      */
     boolean hasPermission(String permission);
 
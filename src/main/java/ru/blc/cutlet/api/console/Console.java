@@ -6,11 +6,16 @@ import ru.blc.cutlet.api.bean.ChatUser;
 import ru.blc.cutlet.api.bot.Bot;
 import ru.blc.cutlet.api.bot.BotManager;
 import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandArguments;
+import ru.blc.cutlet.api.command.CommandOutcome;
+import ru.blc.cutlet.api.command.CommandTokenizer;
 import ru.blc.cutlet.api.command.sender.CommandSender;
 import ru.blc.cutlet.api.command.sender.ConsoleCommandSender;
+import ru.blc.cutlet.api.console.command.CommandsCommand;
+import ru.blc.cutlet.api.console.command.CompleteCommand;
 import ru.blc.cutlet.api.console.command.StopCommand;
+import ru.blc.cutlet.api.console.command.TimingsCommand;
 
-import java.util.Arrays;
 import java.util.Scanner;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -35,11 +40,10 @@ public class Console implements ConsoleCommandSender {
         Cutlet c = Cutlet.instance();
         scanner = new Scanner(System.in);
         Thread listener = new Thread(() -> {
-            while (!stopped) {
-                if (scanner.hasNextLine()) {
-                    String line = scanner.nextLine();
-                    input(line);
-                }
+            // no more lines at end of input, i.e. if cutlet started without console
+            while (!stopped && scanner.hasNextLine()) {
+                String line = scanner.nextLine();
+                input(line);
             }
             LOG.info("Console stopped. Cutlet not controlled by console now :c");
         });
@@ -48,6 +52,9 @@ public class Console implements ConsoleCommandSender {
         listener.setName("Console");
         listener.start();
         c.getBotManager().registerCommand(null, new StopCommand());
+        c.getBotManager().registerCommand(null, new TimingsCommand());
+        c.getBotManager().registerCommand(null, new CommandsCommand());
+        c.getBotManager().registerCommand(null, new CompleteCommand());
         LOG.info("Console enabled. Wanna cutlet, bro?");
     }
 
@@ -57,23 +64,29 @@ public class Console implements ConsoleCommandSender {
     }
 
     protected void input(String input) {
-        String[] in = input.split(" ");
-        String[] cmd = in[0].split(":");
+        CommandArguments in = CommandTokenizer.tokenize(input);
+        String label = in.isEmpty() ? "" : in.get(0);
         Bot owner = null;
-        String commandName = cmd[0];
-        if (cmd.length == 2) {
-            commandName = cmd[1];
-            owner = botManager.getBot(cmd[0]);
+        String commandName = label;
+        int separator = label.indexOf(':');
+        if (separator >= 0) {
+            if (label.indexOf(':', separator + 1) < 0 && separator + 1 < label.length()) {
+                commandName = label.substring(separator + 1);
+                owner = botManager.getBot(label.substring(0, separator));
+            } else {
+                commandName = label.substring(0, separator);
+            }
         }
-        Command command = botManager.getCommand(commandName, owner);
+        Command command = botManager.findCommand(commandName, owner);
         if (command != null) {
             try {
-                command.dispatch(this, commandName, Arrays.copyOfRange(in, 1, in.length));
+                command.dispatch(this, commandName, in.from(1));
             } catch (Exception e) {
                 LOG.error("Error while dispatching command", e);
             }
         } else {
-            sendMessage(String.format(botManager.getCutlet().getTranslation("unknown_command"), in[0]));
+            botManager.getCutlet().getCommandMetrics().record(CommandOutcome.UNKNOWN);
+            sendMessage(botManager.getCutlet().unknownCommand(commandName, owner));
         }
     }
 
@@ -0,0 +1,69 @@
+package ru.blc.cutlet.api.console.command;
+
+import ru.blc.cutlet.api.Cutlet;
+import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandMetrics;
+import ru.blc.cutlet.api.command.CommandOutcome;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+import ru.blc.cutlet.api.command.sender.DialogType;
+import ru.blc.cutlet.api.timing.TimingHistogram;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows commands dispatch metrics
+ */
+public class CommandsCommand extends ConsoleCommand {
+
+    private static final int DEFAULT_TOP = 10;
+
+    public CommandsCommand() {
+        super(DialogType.ALL, "commands", "command.commands", "shows commands dispatch metrics",
+                "commands [reset|<top count>]");
+        setCommandExecutor((command, sender, alias, args) -> execute(sender, args));
+    }
+
+    private void execute(CommandSender sender, String[] args) {
+        Cutlet cutlet = Cutlet.instance();
+        if (args.length > 0 && args[0].equalsIgnoreCase("reset")) {
+            cutlet.getCommandMetrics().reset();
+            for (Command command : cutlet.getBotManager().getCommandRegistry().getAllCommands()) {
+                command.getMetrics().reset();
+            }
+            sender.sendMessage("Command metrics reset");
+            return;
+        }
+        int top = args.length > 0 ? parsePositive(args[0]) : DEFAULT_TOP;
+        if (top < 1) {
+            sendUsage(sender);
+            return;
+        }
+        StringBuilder message = new StringBuilder("All commands:");
+        append(message, "total", cutlet.getCommandMetrics());
+        message.append("\nTop ").append(top).append(" by dispatches:");
+        cutlet.getBotManager().getCommandRegistry().getAllCommands().stream()
+                .filter(c -> c.getMetrics().getTotal() != 0)
+                .sorted(Comparator.comparingLong((Command c) -> c.getMetrics().getTotal()).reversed())
+                .limit(top)
+                .forEach(c -> append(message, (c.getOwner() == null ? "cutlet" : c.getOwner().getName()) + ":" + c.getName(), c.getMetrics()));
+        sender.sendMessage(message.toString());
+    }
+
+    private void append(StringBuilder message, String name, CommandMetrics metrics) {
+        message.append("\n  ").append(name).append(':');
+        for (Map.Entry<CommandOutcome, Long> entry : metrics.getCounts().entrySet()) {
+            if (entry.getValue() != 0) {
+                message.append(' ').append(entry.getKey().name().toLowerCase(Locale.ROOT)).append('=').append(entry.getValue());
+            }
+        }
+        TimingHistogram latency = metrics.getLatency();
+        if (latency.getCount() != 0) {
+            message.append(String.format(", avg %.1f ms, p99 %d ms, max %d ms",
+                    latency.getAverage(TimeUnit.MICROSECONDS) / 1000, latency.getPercentile(99, TimeUnit.MILLISECONDS),
+                    latency.getMax(TimeUnit.MILLISECONDS)));
+        }
+    }
+}
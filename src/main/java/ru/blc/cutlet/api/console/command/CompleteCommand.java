@@ -0,0 +1,54 @@
+package ru.blc.cutlet.api.console.command;
+
+import ru.blc.cutlet.api.Cutlet;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+import ru.blc.cutlet.api.command.sender.DialogType;
+
+import java.util.List;
+
+/**
+ * Shows commands starting with prefix<br>
+ * Console has no line editor, so completion is requested by command. Prefix <b>bot:</b> completes commands of bot
+ */
+public class CompleteCommand extends ConsoleCommand {
+
+    private static final int LIMIT = 20;
+
+    public CompleteCommand() {
+        super(DialogType.ALL, "complete", "command.complete", "shows commands starting with prefix",
+                "complete [bot:]<prefix>");
+        setCommandExecutor((command, sender, alias, args) -> execute(sender, args));
+    }
+
+    private void execute(CommandSender sender, String[] args) {
+        if (args.length != 1) {
+            sendUsage(sender);
+            return;
+        }
+        String prefix = args[0];
+        Bot owner = null;
+        String label = "";
+        int separator = prefix.indexOf(':');
+        if (separator >= 0) {
+            owner = Cutlet.instance().getBotManager().getBot(prefix.substring(0, separator));
+            if (owner == null) {
+                sender.sendMessage("Unknown bot " + prefix.substring(0, separator));
+                return;
+            }
+            label = owner.getName() + ":";
+            prefix = prefix.substring(separator + 1);
+        }
+        List<String> completions = Cutlet.instance().getBotManager().completeCommand(prefix, owner, LIMIT);
+        if (completions.isEmpty()) {
+            sender.sendMessage("No commands start with " + args[0]);
+            return;
+        }
+        StringBuilder message = new StringBuilder();
+        for (String completion : completions) {
+            if (message.length() > 0) message.append(' ');
+            message.append(label).append(completion);
+        }
+        sender.sendMessage(message.toString());
+    }
+}
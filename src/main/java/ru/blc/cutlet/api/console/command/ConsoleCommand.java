@@ -2,7 +2,9 @@ package ru.blc.cutlet.api.console.command;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import ru.blc.cutlet.api.Cutlet;
 import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.sender.CommandSender;
 import ru.blc.cutlet.api.command.sender.DialogType;
 
 public abstract class ConsoleCommand extends Command {
@@ -19,4 +21,21 @@ public abstract class ConsoleCommand extends Command {
     public boolean isOnlyConsole() {
         return true;
     }
+
+    /**
+     * @param arg argument
+     * @return parsed number or -1 if argument is not a positive number
+     */
+    protected static int parsePositive(String arg) {
+        try {
+            int value = Integer.parseInt(arg);
+            return value > 0 ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    protected void sendUsage(CommandSender sender) {
+        sender.sendMessage(String.format(Cutlet.instance().getTranslation("command_usage"), getUsage()));
+    }
 }
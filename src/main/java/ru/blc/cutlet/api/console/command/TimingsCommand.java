@@ -0,0 +1,122 @@
+package ru.blc.cutlet.api.console.command;
+
+import ru.blc.cutlet.api.Cutlet;
+import ru.blc.cutlet.api.bot.BotEventQueue;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+import ru.blc.cutlet.api.command.sender.DialogType;
+import ru.blc.cutlet.api.event.HandlerList;
+import ru.blc.cutlet.api.event.RegisteredListener;
+import ru.blc.cutlet.api.timing.TimingHistogram;
+import ru.blc.cutlet.api.timing.Timings;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Shows listeners timings, grouped by bot and event type
+ */
+public class TimingsCommand extends ConsoleCommand {
+
+    private static final int DEFAULT_TOP = 10;
+
+    public TimingsCommand() {
+        super(DialogType.ALL, "timings", "command.timings", "shows event listeners timings",
+                "timings [on [sample interval]|off|reset|events|queues|<top count>]");
+        setCommandExecutor((command, sender, alias, args) -> execute(sender, args));
+    }
+
+    private void execute(CommandSender sender, String[] args) {
+        if (args.length == 0) {
+            report(sender, DEFAULT_TOP);
+            return;
+        }
+        switch (args[0].toLowerCase(Locale.ROOT)) {
+            case "on":
+                int interval = args.length > 1 ? parsePositive(args[1]) : 1;
+                if (interval < 1) {
+                    sendUsage(sender);
+                    return;
+                }
+                Timings.setSampleInterval(interval);
+                sender.sendMessage("Timings enabled, sample interval " + Timings.getSampleInterval());
+                break;
+            case "off":
+                Timings.setSampleInterval(0);
+                sender.sendMessage("Timings disabled");
+                break;
+            case "reset":
+                for (HandlerList handlers : HandlerList.getHandlerLists()) {
+                    for (RegisteredListener listener : handlers.getRegisteredListeners()) {
+                        TimingHistogram timing = listener.getTiming();
+                        if (timing != null) timing.reset();
+                    }
+                }
+                Timings.resetEvents();
+                sender.sendMessage("Timings reset");
+                break;
+            case "events":
+                StringBuilder message = new StringBuilder("Event dispatch timings:");
+                Timings.getEventTimings().entrySet().stream()
+                        .sorted(Comparator.comparingLong((Map.Entry<?, TimingHistogram> e) -> e.getValue().getEstimatedTotal(TimeUnit.NANOSECONDS)).reversed())
+                        .forEach(e -> append(message, e.getKey().getSimpleName(), e.getValue()));
+                sender.sendMessage(message.toString());
+                break;
+            case "queues":
+                StringBuilder queues = new StringBuilder("Bot event queues:");
+                for (BotEventQueue queue : Cutlet.instance().getBotManager().getEventQueues()) {
+                    queues.append(String.format("%n  %s (%s): depth %d/%d, max %d, delivered %d, dropped %d, coalesced %d",
+                            queue.getBot().getName(), queue.getPolicy(), queue.getDepth(), queue.getCapacity(),
+                            queue.getMaxDepth(), queue.getDelivered(), queue.getDropped(), queue.getCoalesced()));
+                }
+                sender.sendMessage(queues.toString());
+                break;
+            default:
+                int top = parsePositive(args[0]);
+                if (top < 1) {
+                    sendUsage(sender);
+                    return;
+                }
+                report(sender, top);
+        }
+    }
+
+    private void report(CommandSender sender, int top) {
+        if (!Timings.isEnabled()) {
+            sender.sendMessage("Timings are disabled. Use \"timings on\" to enable");
+        }
+        Map<String, TimingHistogram> groups = new HashMap<>();
+        for (HandlerList handlers : HandlerList.getHandlerLists()) {
+            for (RegisteredListener listener : handlers.getRegisteredListeners()) {
+                TimingHistogram timing = listener.getTiming();
+                if (timing == null || timing.getCount() == 0) continue;
+                String group = (listener.getBot() == null ? "cutlet" : listener.getBot().getName())
+                        + " / " + listener.getEventType().getSimpleName();
+                groups.computeIfAbsent(group, g -> new TimingHistogram()).merge(timing);
+            }
+        }
+        StringBuilder message = new StringBuilder();
+        message.append("Top ").append(top).append(" by total time:");
+        appendTop(message, groups, top, h -> h.getEstimatedTotal(TimeUnit.NANOSECONDS));
+        message.append("\nTop ").append(top).append(" by p99:");
+        appendTop(message, groups, top, h -> h.getPercentile(99, TimeUnit.NANOSECONDS));
+        sender.sendMessage(message.toString());
+    }
+
+    private void appendTop(StringBuilder message, Map<String, TimingHistogram> groups, int top, ToLongFunction<TimingHistogram> order) {
+        groups.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, TimingHistogram> e) -> order.applyAsLong(e.getValue())).reversed())
+                .limit(top)
+                .forEach(e -> append(message, e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Count and total are estimated from samples, so with sample interval above 1 they are approximate
+     */
+    private void append(StringBuilder message, String name, TimingHistogram timing) {
+        message.append(String.format("%n  %s: %d samples of %d calls, total %d ms, avg %.1f us, p99 %d us, max %d us",
+                name, timing.getCount(), timing.getEstimatedCount(), timing.getEstimatedTotal(TimeUnit.MILLISECONDS),
+                timing.getAverage(TimeUnit.MICROSECONDS),
+                timing.getPercentile(99, TimeUnit.MICROSECONDS), timing.getMax(TimeUnit.MICROSECONDS)));
+    }
+}
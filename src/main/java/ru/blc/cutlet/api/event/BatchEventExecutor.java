@@ -0,0 +1,13 @@
+package ru.blc.cutlet.api.event;
+
+import java.util.List;
+
+/**
+ * Executor for handlers that accepts list of events
+ *
+ * @see ru.blc.cutlet.api.bot.BotManager#callEvents(java.util.Collection)
+ */
+public interface BatchEventExecutor {
+
+    void executeBatch(Listener listener, List<? extends Event> events) throws EventException;
+}
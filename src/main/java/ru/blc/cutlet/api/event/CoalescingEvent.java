@@ -0,0 +1,16 @@
+package ru.blc.cutlet.api.event;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Event that can replace pending event of same type with same key in bot event queue
+ *
+ * @see ru.blc.cutlet.api.bot.OverflowPolicy#COALESCE
+ */
+public interface CoalescingEvent {
+
+    /**
+     * @return key of this event. Pending event of same type with equal key would be replaced by this event
+     */
+    @NotNull Object getCoalescingKey();
+}
@@ -0,0 +1,297 @@
+package ru.blc.cutlet.api.event;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.blc.cutlet.api.bot.BotClassLoader;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates executors for {@link EventHandler} methods.<br>
+ * By default executor is generated with {@link LambdaMetafactory}, so handler is called directly without reflection.
+ * Generated class is defined at the listener's class loader (lookup for bot classes is taken from {@link BotClassLoader#getLookup()}),
+ * so it sees same classes as listener.<br>
+ * If there is no full access to listener class (it is loaded by other class loader), handler is called by {@link MethodHandle#invokeExact}.
+ * If executor can not be generated at all {@link ReflectiveEventExecutor} is used
+ */
+public final class EventExecutorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger("Cutlet");
+
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(EventExecutor.class);
+    private static final MethodType EXECUTE_TYPE = MethodType.methodType(void.class, Listener.class, Event.class);
+    private static final MethodType BATCH_FACTORY_TYPE = MethodType.methodType(BatchEventExecutor.class);
+    private static final MethodType EXECUTE_BATCH_TYPE = MethodType.methodType(void.class, Listener.class, List.class);
+
+    private EventExecutorFactory() {
+    }
+
+    /**
+     * Creates executor for handler method. Generated executor is preferred, reflective is fallback
+     *
+     * @param eventClass event type handled by method
+     * @param method     handler method
+     * @return executor for method
+     */
+    public static @NotNull EventExecutor create(@NotNull Class<? extends Event> eventClass, @NotNull Method method) {
+        try {
+            return generated(eventClass, method);
+        } catch (Throwable t) {
+            logger.warn("Could not generate event executor for {}. Reflective executor would be used", method.toGenericString(), t);
+            return reflective(eventClass, method);
+        }
+    }
+
+    /**
+     * @param eventClass event type handled by method
+     * @param method     handler method
+     * @return reflective executor for method
+     */
+    public static @NotNull EventExecutor reflective(@NotNull Class<? extends Event> eventClass, @NotNull Method method) {
+        return new ReflectiveEventExecutor(eventClass, method);
+    }
+
+    /**
+     * Generates executor that calls handler method directly
+     *
+     * @param eventClass event type handled by method
+     * @param method     handler method
+     * @return generated executor for method
+     * @throws Throwable if executor can not be generated for this method
+     */
+    public static @NotNull EventExecutor generated(@NotNull Class<? extends Event> eventClass, @NotNull Method method) throws Throwable {
+        if (Modifier.isStatic(method.getModifiers())) {
+            throw new IllegalArgumentException("Static handler methods are not supported " + method.toGenericString());
+        }
+        MethodHandles.Lookup lookup = lookup(method.getDeclaringClass());
+        MethodHandle handle = lookup.unreflect(method);
+        if (!lookup.hasFullPrivilegeAccess()) {
+            return new HandleEventExecutor(eventClass, handle.asType(EXECUTE_TYPE));
+        }
+        CallSite site = LambdaMetafactory.metafactory(lookup, "execute", FACTORY_TYPE, EXECUTE_TYPE, handle, handle.type());
+        EventExecutor invoker = (EventExecutor) site.getTarget().invokeExact();
+        return new GeneratedEventExecutor(eventClass, invoker);
+    }
+
+    /**
+     * Creates executor for handler method that accepts {@link List} of events.
+     * Generated executor is preferred, reflective is fallback<br>
+     * Returned executor also implements {@link BatchEventExecutor}. Single events are passed as list with one element
+     *
+     * @param eventClass type of list elements
+     * @param method     handler method
+     * @return executor for method
+     */
+    public static @NotNull EventExecutor createBatch(@NotNull Class<? extends Event> eventClass, @NotNull Method method) {
+        try {
+            return generatedBatch(eventClass, method);
+        } catch (Throwable t) {
+            logger.warn("Could not generate event executor for {}. Reflective executor would be used", method.toGenericString(), t);
+            return new ReflectiveBatchEventExecutor(eventClass, method);
+        }
+    }
+
+    /**
+     * Generates executor that calls batch handler method directly
+     *
+     * @param eventClass type of list elements
+     * @param method     handler method
+     * @return generated executor for method
+     * @throws Throwable if executor can not be generated for this method
+     * @see #createBatch(Class, Method)
+     */
+    public static @NotNull EventExecutor generatedBatch(@NotNull Class<? extends Event> eventClass, @NotNull Method method) throws Throwable {
+        if (Modifier.isStatic(method.getModifiers())) {
+            throw new IllegalArgumentException("Static handler methods are not supported " + method.toGenericString());
+        }
+        MethodHandles.Lookup lookup = lookup(method.getDeclaringClass());
+        MethodHandle handle = lookup.unreflect(method);
+        if (!lookup.hasFullPrivilegeAccess()) {
+            return new HandleBatchEventExecutor(eventClass, handle.asType(EXECUTE_BATCH_TYPE));
+        }
+        CallSite site = LambdaMetafactory.metafactory(lookup, "executeBatch", BATCH_FACTORY_TYPE, EXECUTE_BATCH_TYPE, handle, handle.type());
+        BatchEventExecutor invoker = (BatchEventExecutor) site.getTarget().invokeExact();
+        return new GeneratedBatchEventExecutor(eventClass, invoker);
+    }
+
+    /**
+     * Lambda can be defined only by lookup with full access to listener class, i.e. lookup of same module.
+     * Classes of other loaders are in other unnamed modules, so for bots lookup is taken from their loader
+     *
+     * @param clazz listener class
+     * @return private lookup in listener class
+     */
+    private static MethodHandles.Lookup lookup(Class<?> clazz) throws IllegalAccessException {
+        MethodHandles.Lookup caller = clazz.getClassLoader() instanceof BotClassLoader loader ? loader.getLookup() : MethodHandles.lookup();
+        return MethodHandles.privateLookupIn(clazz, caller);
+    }
+
+    /**
+     * @param clazz  handled event type
+     * @param events events
+     * @return events of handled type. Same list if all events are matching
+     */
+    private static List<? extends Event> accepted(Class<?> clazz, List<? extends Event> events) {
+        int size = events.size();
+        for (int i = 0; i < size; i++) {
+            if (!clazz.isInstance(events.get(i))) {
+                List<Event> result = new ArrayList<>(size - 1);
+                for (Event event : events) {
+                    if (clazz.isInstance(event)) {
+                        result.add(event);
+                    }
+                }
+                return result;
+            }
+        }
+        return events;
+    }
+
+    private static final class GeneratedEventExecutor implements EventExecutor {
+
+        private final Class<?> clazz;
+        private final EventExecutor invoker;
+
+        private GeneratedEventExecutor(Class<?> clazz, EventExecutor invoker) {
+            this.clazz = clazz;
+            this.invoker = invoker;
+        }
+
+        @Override
+        public void execute(Listener listener, Event event) throws EventException {
+            if (clazz.isInstance(event)) {
+                try {
+                    invoker.execute(listener, event);
+                } catch (Throwable t) {
+                    throw new EventException("Failed execute event ", t);
+                }
+            }
+        }
+    }
+
+    private static final class GeneratedBatchEventExecutor implements EventExecutor, BatchEventExecutor {
+
+        private final Class<?> clazz;
+        private final BatchEventExecutor invoker;
+
+        private GeneratedBatchEventExecutor(Class<?> clazz, BatchEventExecutor invoker) {
+            this.clazz = clazz;
+            this.invoker = invoker;
+        }
+
+        @Override
+        public void execute(Listener listener, Event event) throws EventException {
+            if (clazz.isInstance(event)) {
+                executeBatch(listener, Collections.singletonList(event));
+            }
+        }
+
+        @Override
+        public void executeBatch(Listener listener, List<? extends Event> events) throws EventException {
+            events = accepted(clazz, events);
+            if (events.isEmpty()) return;
+            try {
+                invoker.executeBatch(listener, events);
+            } catch (Throwable t) {
+                throw new EventException("Failed execute event ", t);
+            }
+        }
+    }
+
+    private static final class HandleEventExecutor implements EventExecutor {
+
+        private final Class<?> clazz;
+        /**
+         * Handle of (Listener, Event)void type
+         */
+        private final MethodHandle handle;
+
+        private HandleEventExecutor(Class<?> clazz, MethodHandle handle) {
+            this.clazz = clazz;
+            this.handle = handle;
+        }
+
+        @Override
+        public void execute(Listener listener, Event event) throws EventException {
+            if (clazz.isInstance(event)) {
+                try {
+                    handle.invokeExact(listener, event);
+                } catch (Throwable t) {
+                    throw new EventException("Failed execute event ", t);
+                }
+            }
+        }
+    }
+
+    private static final class HandleBatchEventExecutor implements EventExecutor, BatchEventExecutor {
+
+        private final Class<?> clazz;
+        /**
+         * Handle of (Listener, List)void type
+         */
+        private final MethodHandle handle;
+
+        private HandleBatchEventExecutor(Class<?> clazz, MethodHandle handle) {
+            this.clazz = clazz;
+            this.handle = handle;
+        }
+
+        @Override
+        public void execute(Listener listener, Event event) throws EventException {
+            if (clazz.isInstance(event)) {
+                executeBatch(listener, Collections.singletonList(event));
+            }
+        }
+
+        @Override
+        public void executeBatch(Listener listener, List<? extends Event> events) throws EventException {
+            List<?> accepted = accepted(clazz, events);
+            if (accepted.isEmpty()) return;
+            try {
+                handle.invokeExact(listener, accepted);
+            } catch (Throwable t) {
+                throw new EventException("Failed execute event ", t);
+            }
+        }
+    }
+
+    private static final class ReflectiveBatchEventExecutor implements EventExecutor, BatchEventExecutor {
+
+        private final Class<?> clazz;
+        private final Method method;
+
+        private ReflectiveBatchEventExecutor(Class<?> clazz, Method method) {
+            this.clazz = clazz;
+            this.method = method;
+        }
+
+        @Override
+        public void execute(Listener listener, Event event) throws EventException {
+            if (clazz.isInstance(event)) {
+                executeBatch(listener, Collections.singletonList(event));
+            }
+        }
+
+        @Override
+        public void executeBatch(Listener listener, List<? extends Event> events) throws EventException {
+            events = accepted(clazz, events);
+            if (events.isEmpty()) return;
+            try {
+                method.invoke(listener, events);
+            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+                throw new EventException("Failed execute event ", e);
+            }
+        }
+    }
+}
@@ -5,6 +5,12 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Marks event handler method at {@link Listener}.<br>
+ * Method should have one parameter - event, or {@link java.util.List} of events.
+ * Second variant gets all events of batch at once (see {@link ru.blc.cutlet.api.bot.BotManager#callEvents(java.util.Collection)}),
+ * single events are passed as list with one element
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface EventHandler {
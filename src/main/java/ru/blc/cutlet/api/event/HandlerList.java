@@ -1,150 +1,464 @@
 package ru.blc.cutlet.api.event;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import ru.blc.cutlet.api.bot.Bot;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.EnumMap;
-import java.util.Map.Entry;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
+/**
+ * Listeners of one event type.<br>
+ * Listeners are stored in immutable baked snapshot, that is replaced on every change.
+ * Event dispatch only reads current snapshot and never takes locks.<br>
+ * Register listeners of one bot with {@link #registerAll(Collection)}, every change copies listener arrays
+ */
 public class HandlerList {
-    private static final ArrayList<HandlerList> allLists = new ArrayList<>();
+    private static final List<HandlerList> allLists = new CopyOnWriteArrayList<>();
 
     public static void bakeAll() {
-        synchronized (allLists) {
-            for (HandlerList h : allLists) {
-                h.bake();
-            }
+        for (HandlerList h : allLists) {
+            h.bake();
         }
     }
 
     public static void unregisterAll() {
-        synchronized (allLists) {
-            for (HandlerList h : allLists) {
-                h.bake();
-                synchronized (h) {
-                    for (ArrayList<RegisteredListener> l : h.handlerslots.values()) {
-                        l.clear();
-                    }
-                    h.handlers = null;
-                }
-            }
+        for (HandlerList h : allLists) {
+            h.unregister(registeredListener -> true);
         }
     }
 
     public static void unregisterAll(Bot bot) {
-        synchronized (allLists) {
-            for (HandlerList h : allLists) {
-                h.unregister(bot);
-            }
+        for (HandlerList h : allLists) {
+            h.unregister(bot);
         }
     }
 
     public static void unregisterAll(Listener listener) {
-        synchronized (allLists) {
-            for (HandlerList h : allLists) {
-                h.unregister(listener);
-            }
+        for (HandlerList h : allLists) {
+            h.unregister(listener);
         }
     }
 
-    private volatile RegisteredListener[] handlers = null;
-    private final EnumMap<EventPriority, ArrayList<RegisteredListener>> handlerslots = new EnumMap<>(EventPriority.class);
-
+    private volatile Snapshot snapshot = new Snapshot(Snapshot.NO_LISTENERS, Snapshot.NO_KEYS, 0);
+    /**
+     * Changes are made under this lock, dispatch does not use it
+     */
+    private final Object lock = new Object();
+    /**
+     * Identity set of registered listeners, for duplicate check. Guarded by lock
+     */
+    private final Set<RegisteredListener> registered = Collections.newSetFromMap(new IdentityHashMap<>());
 
     public HandlerList() {
-        EventPriority[] arg0;
-        int arg1 = (arg0 = EventPriority.values()).length;
-
-        for (int arg2 = 0; arg2 < arg1; ++arg2) {
-            EventPriority o = arg0[arg2];
-            this.handlerslots.put(o, new ArrayList<>());
-        }
-
-        synchronized (allLists) {
-            allLists.add(this);
-        }
+        allLists.add(this);
     }
 
-    public synchronized void register(RegisteredListener listener) {
-        if (this.handlerslots.get(listener.getPriority()).contains(listener)) {
-            throw new IllegalStateException(
-                    "This listener is already registered to priority " + listener.getPriority().toString());
-        } else {
-            this.handlers = null;
-            this.handlerslots.get(listener.getPriority()).add(listener);
-        }
+    public void register(RegisteredListener listener) {
+        this.registerAll(Collections.singletonList(listener));
     }
 
+    /**
+     * Registers all listeners with one rebake.<br>
+     * If at least one listener is already registered nothing would be registered
+     *
+     * @param listeners listeners to register
+     * @throws IllegalStateException if some listener is already registered
+     */
     public void registerAll(Collection<RegisteredListener> listeners) {
+        if (listeners.isEmpty()) return;
+        Set<RegisteredListener> added = Collections.newSetFromMap(new IdentityHashMap<>(listeners.size()));
         for (RegisteredListener listener : listeners) {
-            this.register(listener);
+            if (!added.add(listener)) {
+                throw new IllegalStateException(
+                        "This listener is already registered to priority " + listener.getPriority().toString());
+            }
         }
-    }
-
-    public synchronized void unregister(RegisteredListener listener) {
-        if (this.handlerslots.get(listener.getPriority()).remove(listener)) {
-            this.handlers = null;
+        synchronized (lock) {
+            for (RegisteredListener listener : listeners) {
+                if (registered.contains(listener)) {
+                    throw new IllegalStateException(
+                            "This listener is already registered to priority " + listener.getPriority().toString());
+                }
+            }
+            this.snapshot = this.snapshot.with(listeners);
+            registered.addAll(added);
         }
+    }
 
+    public void unregister(RegisteredListener listener) {
+        this.unregister(registeredListener -> registeredListener == listener);
     }
 
-    public synchronized void unregister(Bot bot) {
-        for (ArrayList<RegisteredListener> list : this.handlerslots.values()) {
-            list.removeIf(registeredListener -> registeredListener.getBot() == bot);
-        }
+    public void unregister(Bot bot) {
+        this.unregister(registeredListener -> registeredListener.getBot() == bot);
     }
 
-    public synchronized void unregister(Listener listener) {
-        for (ArrayList<RegisteredListener> list : this.handlerslots.values()) {
-            list.removeIf(registeredListener -> registeredListener.getListener() == listener);
-        }
+    public void unregister(Listener listener) {
+        this.unregister(registeredListener -> registeredListener.getListener() == listener);
     }
 
-    public synchronized void bake() {
-        if (this.handlers == null) {
-            ArrayList<RegisteredListener> entries = new ArrayList<>();
-            for (Entry<EventPriority, ArrayList<RegisteredListener>> entry : this.handlerslots.entrySet()) {
-                entries.addAll(entry.getValue());
+    private void unregister(Predicate<RegisteredListener> removed) {
+        synchronized (lock) {
+            Snapshot current = this.snapshot;
+            Snapshot next = current.without(removed);
+            if (next != current) {
+                this.snapshot = next;
+                registered.removeIf(removed);
             }
-            this.handlers = entries.toArray(new RegisteredListener[0]);
         }
     }
 
+    /**
+     * Listeners are baked on every change, so this method does nothing
+     */
+    public void bake() {
+    }
+
+    /**
+     * @return all listeners in priority order. On same priority unkeyed listeners are first
+     */
     public RegisteredListener[] getRegisteredListeners() {
-        while (true) {
-            RegisteredListener[] handlers = this.handlers;
-            if (this.handlers != null) {
-                return handlers;
-            }
+        return this.snapshot.indexes().handlers;
+    }
+
+    /**
+     * Listeners that should get event delivered only to specified bot.<br>
+     * Contains listeners of this bot and listeners ignoring filter, in priority order
+     *
+     * @param target bot that gets event. null for only listeners ignoring filter
+     * @return listeners for targeted event
+     */
+    public RegisteredListener[] getTargetedListeners(Bot target) {
+        return this.snapshot.indexes().targeted(target);
+    }
+
+    /**
+     * @return listeners that are not keyed, in priority order
+     * @see RegisteredListener#isKeyed()
+     */
+    public RegisteredListener[] getUnkeyedListeners() {
+        return this.snapshot.unkeyed;
+    }
+
+    /**
+     * Keyed listeners index lookup. Does not contain unkeyed listeners, they should be called too
+     *
+     * @param key event key
+     * @return listeners registered with specified key, in priority order
+     * @see KeyedEvent
+     */
+    public RegisteredListener[] getKeyedListeners(long key) {
+        return this.snapshot.byKey.get(key);
+    }
+
+    /**
+     * Listeners that get keyed event. Both arrays are taken from one snapshot,
+     * so dispatch does not mix listeners of different registration states
+     *
+     * @param key event key
+     * @return unkeyed listeners and listeners registered with specified key
+     * @see KeyedEvent
+     */
+    public KeyedListeners getListeners(long key) {
+        Snapshot snapshot = this.snapshot;
+        return new KeyedListeners(snapshot.unkeyed, snapshot.byKey.get(key));
+    }
+
+    /**
+     * @param bot bot
+     * @return all listeners registered by specified bot, in priority order
+     */
+    public RegisteredListener[] getBotListeners(Bot bot) {
+        return this.snapshot.indexes().own.getOrDefault(bot, Snapshot.NO_LISTENERS);
+    }
 
-            this.bake();
+    /**
+     * @return bots that have at least one listener
+     */
+    public Set<Bot> getListeningBots() {
+        return Collections.unmodifiableSet(this.snapshot.indexes().own.keySet());
+    }
+
+    /**
+     * Fast check, used to skip building events nobody listens
+     *
+     * @return true if there is at least one registered listener
+     */
+    public boolean hasListeners() {
+        return this.snapshot.size != 0;
+    }
+
+    /**
+     * Fast check, used to skip building events nobody listens
+     *
+     * @param filter bot filter, same as passed to {@link ru.blc.cutlet.api.bot.BotManager#callEvent(Event, Predicate)}
+     * @return true if at least one listener would get event with specified filter
+     */
+    public boolean hasListeners(Predicate<Bot> filter) {
+        Snapshot snapshot = this.snapshot;
+        if (filter == null || snapshot.size == 0) return snapshot.size != 0;
+        Indexes indexes = snapshot.indexes();
+        if (indexes.unfiltered.length != 0) return true;
+        for (Bot bot : indexes.bots) {
+            try {
+                if (filter.test(bot)) return true;
+            } catch (Exception e) {
+                // filter errors are reported at dispatch
+                return true;
+            }
         }
+        return false;
     }
 
     public static ArrayList<RegisteredListener> getRegisteredListeners(Bot bot) {
         ArrayList<RegisteredListener> listeners = new ArrayList<>();
+        for (HandlerList h : allLists) {
+            for (RegisteredListener listener : h.getRegisteredListeners()) {
+                if (listener.getBot().equals(bot)) {
+                    listeners.add(listener);
+                }
+            }
+        }
+        return listeners;
+    }
+
+    public static ArrayList<HandlerList> getHandlerLists() {
+        return new ArrayList<>(allLists);
+    }
+
+    /**
+     * Listeners of keyed event dispatch
+     *
+     * @param unkeyed not keyed listeners in priority order
+     * @param keyed   listeners of event key in priority order
+     */
+    public record KeyedListeners(RegisteredListener[] unkeyed, RegisteredListener[] keyed) {
+    }
+
+    /**
+     * Baked listeners.<br>
+     * Change copies only arrays of changed listener group (unkeyed or one key),
+     * keyed map is copied shallow, so arrays of other keys are shared with previous snapshot.
+     * Other indexes are built on first use of snapshot, so many registrations in a row do not rebuild them
+     */
+    private static final class Snapshot {
+
+        private static final RegisteredListener[] NO_LISTENERS = new RegisteredListener[0];
+        private static final Long2ObjectOpenHashMap<RegisteredListener[]> NO_KEYS = keyMap(0);
+
+        /**
+         * Not keyed listeners in priority order. Listeners with same priority are in registration order
+         */
+        private final RegisteredListener[] unkeyed;
+        /**
+         * Keyed listeners by key, in priority order. Returns empty array for unknown keys. Never changed after publish
+         */
+        private final Long2ObjectOpenHashMap<RegisteredListener[]> byKey;
+        private final int size;
+        private volatile Indexes indexes;
 
-        synchronized (allLists) {
-            for (HandlerList h : allLists) {
-                synchronized (h) {
-                    for (ArrayList<RegisteredListener> list : h.handlerslots.values()) {
-                        for (RegisteredListener listener : list) {
-                            if (listener.getBot().equals(bot)) {
-                                listeners.add(listener);
-                            }
-                        }
+        private Snapshot(RegisteredListener[] unkeyed, Long2ObjectOpenHashMap<RegisteredListener[]> byKey, int size) {
+            this.unkeyed = unkeyed;
+            this.byKey = byKey;
+            this.size = size;
+        }
+
+        private static Long2ObjectOpenHashMap<RegisteredListener[]> keyMap(int size) {
+            Long2ObjectOpenHashMap<RegisteredListener[]> map = new Long2ObjectOpenHashMap<>(size);
+            map.defaultReturnValue(NO_LISTENERS);
+            return map;
+        }
+
+        private Indexes indexes() {
+            Indexes indexes = this.indexes;
+            if (indexes == null) {
+                // concurrent builds are equal, any of them can be kept
+                this.indexes = indexes = new Indexes(this);
+            }
+            return indexes;
+        }
+
+        private Snapshot with(Collection<RegisteredListener> added) {
+            List<RegisteredListener> addedUnkeyed = new ArrayList<>(added.size());
+            Long2ObjectOpenHashMap<List<RegisteredListener>> addedKeyed = new Long2ObjectOpenHashMap<>();
+            for (RegisteredListener listener : added) {
+                if (listener.isKeyed()) {
+                    addedKeyed.computeIfAbsent(listener.getKey(), k -> new ArrayList<>()).add(listener);
+                } else {
+                    addedUnkeyed.add(listener);
+                }
+            }
+            RegisteredListener[] unkeyed = addedUnkeyed.isEmpty() ? this.unkeyed : merge(this.unkeyed, addedUnkeyed);
+            Long2ObjectOpenHashMap<RegisteredListener[]> byKey = this.byKey;
+            if (!addedKeyed.isEmpty()) {
+                byKey = keyMap(this.byKey.size() + addedKeyed.size());
+                byKey.putAll(this.byKey);
+                for (Long2ObjectMap.Entry<List<RegisteredListener>> entry : addedKeyed.long2ObjectEntrySet()) {
+                    byKey.put(entry.getLongKey(), merge(byKey.get(entry.getLongKey()), entry.getValue()));
+                }
+            }
+            return new Snapshot(unkeyed, byKey, size + added.size());
+        }
+
+        private Snapshot without(Predicate<RegisteredListener> removed) {
+            int size = this.size;
+            RegisteredListener[] unkeyed = filter(this.unkeyed, removed);
+            size -= this.unkeyed.length - unkeyed.length;
+            Long2ObjectOpenHashMap<RegisteredListener[]> byKey = this.byKey;
+            for (Long2ObjectMap.Entry<RegisteredListener[]> entry : this.byKey.long2ObjectEntrySet()) {
+                RegisteredListener[] keyed = entry.getValue();
+                RegisteredListener[] left = filter(keyed, removed);
+                if (left == keyed) continue;
+                size -= keyed.length - left.length;
+                if (byKey == this.byKey) {
+                    byKey = keyMap(this.byKey.size());
+                    byKey.putAll(this.byKey);
+                }
+                if (left.length == 0) {
+                    byKey.remove(entry.getLongKey());
+                } else {
+                    byKey.put(entry.getLongKey(), left);
+                }
+            }
+            if (size == this.size) return this;
+            return new Snapshot(unkeyed, byKey, size);
+        }
+
+        /**
+         * @return listeners not matching predicate. Same array if nothing is removed
+         */
+        private static RegisteredListener[] filter(RegisteredListener[] listeners, Predicate<RegisteredListener> removed) {
+            ArrayList<RegisteredListener> result = null;
+            for (int i = 0; i < listeners.length; i++) {
+                if (removed.test(listeners[i])) {
+                    if (result == null) {
+                        result = new ArrayList<>(listeners.length - 1);
+                        result.addAll(Arrays.asList(listeners).subList(0, i));
                     }
+                } else if (result != null) {
+                    result.add(listeners[i]);
+                }
+            }
+            return result == null ? listeners : result.toArray(NO_LISTENERS);
+        }
+
+        /**
+         * @param sorted listeners in priority order
+         * @param added  new listeners
+         * @return listeners in priority order, added listeners are last at their priority
+         */
+        private static RegisteredListener[] merge(RegisteredListener[] sorted, Collection<RegisteredListener> added) {
+            EventPriority[] priorities = EventPriority.values();
+            int[] counts = new int[priorities.length];
+            for (RegisteredListener listener : added) {
+                counts[listener.getPriority().ordinal()]++;
+            }
+            RegisteredListener[] result = new RegisteredListener[sorted.length + added.size()];
+            int from = 0;
+            int to = 0;
+            for (EventPriority priority : priorities) {
+                int end = upperBound(sorted, from, priority.ordinal());
+                System.arraycopy(sorted, from, result, to, end - from);
+                to += end - from;
+                from = end;
+                if (counts[priority.ordinal()] == 0) continue;
+                for (RegisteredListener listener : added) {
+                    if (listener.getPriority() == priority) result[to++] = listener;
                 }
             }
-            return listeners;
+            return result;
+        }
+
+        /**
+         * @return index of first listener after from with priority greater than specified
+         */
+        private static int upperBound(RegisteredListener[] sorted, int from, int priority) {
+            int low = from;
+            int high = sorted.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sorted[middle].getPriority().ordinal() <= priority) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public static ArrayList<HandlerList> getHandlerLists() {
-        synchronized (allLists) {
-            return (ArrayList<HandlerList>) allLists.clone();
+    /**
+     * Indexes of snapshot, built on first use
+     */
+    private static final class Indexes {
+
+        /**
+         * All listeners in priority order. On same priority unkeyed listeners are first
+         */
+        private final RegisteredListener[] handlers;
+        /**
+         * Listeners of every bot, including ignoring filter
+         */
+        private final Map<Bot, RegisteredListener[]> own;
+        /**
+         * Bots that have listeners not ignoring filter
+         */
+        private final Set<Bot> filtered;
+        private final Bot[] bots;
+        private final RegisteredListener[] unfiltered;
+        /**
+         * Targeted listeners of bots that were targeted at least once
+         */
+        private final Map<Bot, RegisteredListener[]> targeted = new ConcurrentHashMap<>();
+
+        private Indexes(Snapshot snapshot) {
+            if (snapshot.byKey.isEmpty()) {
+                this.handlers = snapshot.unkeyed;
+            } else {
+                List<RegisteredListener> keyed = new ArrayList<>(snapshot.size - snapshot.unkeyed.length);
+                for (RegisteredListener[] listeners : snapshot.byKey.values()) {
+                    Collections.addAll(keyed, listeners);
+                }
+                this.handlers = Snapshot.merge(snapshot.unkeyed, keyed);
+            }
+            Map<Bot, ArrayList<RegisteredListener>> ownByBot = new IdentityHashMap<>();
+            Set<Bot> filtered = Collections.newSetFromMap(new IdentityHashMap<>());
+            ArrayList<RegisteredListener> unfiltered = new ArrayList<>();
+            for (RegisteredListener listener : handlers) {
+                ownByBot.computeIfAbsent(listener.getBot(), b -> new ArrayList<>()).add(listener);
+                if (listener.isIgnoringFilter()) {
+                    unfiltered.add(listener);
+                } else {
+                    filtered.add(listener.getBot());
+                }
+            }
+            Map<Bot, RegisteredListener[]> own = new IdentityHashMap<>(ownByBot.size());
+            for (Map.Entry<Bot, ArrayList<RegisteredListener>> entry : ownByBot.entrySet()) {
+                own.put(entry.getKey(), entry.getValue().toArray(Snapshot.NO_LISTENERS));
+            }
+            this.own = own;
+            this.filtered = filtered;
+            this.bots = filtered.toArray(new Bot[0]);
+            this.unfiltered = unfiltered.toArray(Snapshot.NO_LISTENERS);
+        }
+
+        /**
+         * @return listeners of target not ignoring filter and all listeners ignoring filter, in priority order
+         */
+        private RegisteredListener[] targeted(Bot target) {
+            if (target == null || !filtered.contains(target)) return unfiltered;
+            return targeted.computeIfAbsent(target, bot -> {
+                ArrayList<RegisteredListener> result = new ArrayList<>();
+                for (RegisteredListener listener : handlers) {
+                    if (listener.isIgnoringFilter() || listener.getBot() == bot) {
+                        result.add(listener);
+                    }
+                }
+                return result.toArray(Snapshot.NO_LISTENERS);
+            });
         }
     }
 }
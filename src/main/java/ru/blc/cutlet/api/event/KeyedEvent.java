@@ -0,0 +1,14 @@
+package ru.blc.cutlet.api.event;
+
+/**
+ * Event that belongs to some conversation, i.e. chat or user.<br>
+ * Keyed listeners ({@link ru.blc.cutlet.api.bot.BotManager#registerEvents(ru.blc.cutlet.api.bot.Bot, Listener, long)})
+ * get only events with their key
+ */
+public interface KeyedEvent {
+
+    /**
+     * @return conversation key, i.e. chat id or {@link ru.blc.cutlet.api.bean.ChatUser#userId()}
+     */
+    long getEventKey();
+}
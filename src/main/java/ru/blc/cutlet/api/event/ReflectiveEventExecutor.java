@@ -0,0 +1,34 @@
+package ru.blc.cutlet.api.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Event executor that calls handler method through reflection.<br>
+ * Used as fallback when direct executor can not be generated
+ *
+ * @see EventExecutorFactory
+ */
+public class ReflectiveEventExecutor implements EventExecutor {
+
+    private final Class<?> clazz;
+    private final Method method;
+
+    public ReflectiveEventExecutor(@NotNull Class<?> clazz, @NotNull Method method) {
+        this.clazz = clazz;
+        this.method = method;
+    }
+
+    @Override
+    public void execute(Listener listener, Event event) throws EventException {
+        if (clazz.isAssignableFrom(event.getClass())) {
+            try {
+                method.invoke(listener, event);
+            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+                throw new EventException("Failed execute event ", e);
+            }
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package ru.blc.cutlet.api.event;
 
+import org.jetbrains.annotations.Nullable;
 import ru.blc.cutlet.api.Cutlet;
 import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.timing.TimingHistogram;
+import ru.blc.cutlet.api.timing.Timings;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Predicate;
 
 public class RegisteredListener {
@@ -13,9 +18,35 @@ public class RegisteredListener {
     private final boolean ignoringFilter;
     private final Bot bot;
     private final EventExecutor executor;
+    private final Class<? extends Event> eventType;
+    private final boolean keyed;
+    private final long key;
+    private volatile TimingHistogram timing;
 
     public RegisteredListener(Listener listener, EventExecutor executor, EventPriority priority, Bot bot,
                               boolean ignoreCancelled, boolean ignoringFilter) {
+        this(listener, executor, priority, bot, ignoreCancelled, ignoringFilter, Event.class);
+    }
+
+    /**
+     * @param eventType event type declared by handler. Used for timings
+     */
+    public RegisteredListener(Listener listener, EventExecutor executor, EventPriority priority, Bot bot,
+                              boolean ignoreCancelled, boolean ignoringFilter, Class<? extends Event> eventType) {
+        this(listener, executor, priority, bot, ignoreCancelled, ignoringFilter, eventType, false, 0);
+    }
+
+    /**
+     * @param eventType event type declared by handler. Used for timings
+     * @param keyed     true if listener gets only {@link KeyedEvent} with specified key
+     * @param key       event key. Ignored if listener is not keyed
+     */
+    public RegisteredListener(Listener listener, EventExecutor executor, EventPriority priority, Bot bot,
+                              boolean ignoreCancelled, boolean ignoringFilter, Class<? extends Event> eventType,
+                              boolean keyed, long key) {
+        this.eventType = eventType;
+        this.keyed = keyed;
+        this.key = keyed ? key : 0;
         this.listener = listener;
         this.priority = priority;
         this.bot = bot;
@@ -40,21 +71,152 @@ public class RegisteredListener {
         return priority;
     }
 
+    /**
+     * @return event type declared by handler
+     */
+    public Class<? extends Event> getEventType() {
+        return eventType;
+    }
+
+    /**
+     * @return execution time of this listener or null if nothing was recorded yet. Recorded only when {@link Timings} are enabled
+     */
+    public @Nullable TimingHistogram getTiming() {
+        return this.timing;
+    }
+
+    private TimingHistogram timing() {
+        TimingHistogram timing = this.timing;
+        if (timing == null) {
+            synchronized (this) {
+                timing = this.timing;
+                if (timing == null) {
+                    this.timing = timing = new TimingHistogram();
+                }
+            }
+        }
+        return timing;
+    }
+
     public void callEvent(Event event, Predicate<Bot> filter) throws EventException {
+        if (this.keyed && !matchesKey(event)) {
+            return;
+        }
         if (!(event instanceof Cancellable) || !((Cancellable) event).isCancelled() || !this.isIgnoringCancelled()) {
-            if (filter != null && !isIgnoringFilter()) {
+            if (!testFilter(event, filter)) {
+                return;
+            }
+            if (Timings.shouldSample()) {
+                long start = System.nanoTime();
                 try {
-                    if (!filter.test(getBot())) {
-                        return;
+                    this.executor.execute(this.listener, event);
+                } finally {
+                    timing().record(System.nanoTime() - start, Timings.getSampleInterval());
+                }
+            } else {
+                this.executor.execute(this.listener, event);
+            }
+        }
+    }
+
+    /**
+     * Calls listener for batch of events.<br>
+     * Batch listeners gets all not ignored events at once, other listeners gets events one by one
+     *
+     * @param events events. Should not be empty
+     * @param filter bot filter
+     * @throws EventException if listener failed. For not batch listener remaining events would not be passed
+     * @see #isBatch()
+     */
+    public void callEvents(List<? extends Event> events, Predicate<Bot> filter) throws EventException {
+        if (!testFilter(events.get(0), filter)) {
+            return;
+        }
+        if (this.keyed) {
+            events = matchingKey(events);
+            if (events.isEmpty()) return;
+        }
+        if (isIgnoringCancelled()) {
+            events = notCancelled(events);
+            if (events.isEmpty()) return;
+        }
+        long start = Timings.shouldSample() ? System.nanoTime() : 0;
+        try {
+            if (this.executor instanceof BatchEventExecutor batchExecutor) {
+                batchExecutor.executeBatch(this.listener, events);
+            } else {
+                for (Event event : events) {
+                    this.executor.execute(this.listener, event);
+                }
+            }
+        } finally {
+            if (start != 0) timing().record(System.nanoTime() - start, Timings.getSampleInterval());
+        }
+    }
+
+    private boolean testFilter(Event event, Predicate<Bot> filter) {
+        if (filter != null && !isIgnoringFilter()) {
+            try {
+                return filter.test(getBot());
+            } catch (Exception e) {
+                Cutlet.instance().getLogger().error("Error while trying filter event " + event.getEventName() + "." +
+                        " Event would not be fired for this consumer (Listener " + getListener() + " at bot " + getBot().getName() + ")", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesKey(Event event) {
+        return event instanceof KeyedEvent keyedEvent && keyedEvent.getEventKey() == this.key;
+    }
+
+    private List<? extends Event> matchingKey(List<? extends Event> events) {
+        List<Event> result = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (matchesKey(event)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static List<? extends Event> notCancelled(List<? extends Event> events) {
+        int size = events.size();
+        for (int i = 0; i < size; i++) {
+            if (events.get(i) instanceof Cancellable cancellable && cancellable.isCancelled()) {
+                List<Event> result = new ArrayList<>(size - 1);
+                for (Event event : events) {
+                    if (!(event instanceof Cancellable) || !((Cancellable) event).isCancelled()) {
+                        result.add(event);
                     }
-                } catch (Exception e) {
-                    Cutlet.instance().getLogger().error("Error while trying filter event " + event.getEventName() + "." +
-                            " Event would not be fired for this consumer (Listener " + getListener() + " at bot " + getBot().getName() + ")", e);
-                    return;
                 }
+                return result;
             }
-            this.executor.execute(this.listener, event);
         }
+        return events;
+    }
+
+    /**
+     * @return true if listener accepts list of events
+     * @see BatchEventExecutor
+     */
+    public boolean isBatch() {
+        return this.executor instanceof BatchEventExecutor;
+    }
+
+    /**
+     * @return true if listener gets only {@link KeyedEvent} with {@link #getKey()}
+     */
+    public boolean isKeyed() {
+        return keyed;
+    }
+
+    /**
+     * @return event key of keyed listener, 0 for not keyed
+     */
+    public long getKey() {
+        return key;
     }
 
     public boolean isIgnoringCancelled() {
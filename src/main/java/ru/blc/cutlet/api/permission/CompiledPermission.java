@@ -0,0 +1,193 @@
+package ru.blc.cutlet.api.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Permission parsed once for default permission calculator.<br>
+ * Leading "-" are removed, text is case-folded and split to segments by ".", same as {@link String#split(String)} does
+ * (trailing empty segments are dropped). Matching of compiled permissions does not allocate anything
+ *
+ * @see PermissionCalculator#isPermissionAllows(String, String)
+ */
+public final class CompiledPermission {
+
+    private static final int CACHE_SIZE = 4096;
+    /**
+     * Direct-mapped cache: permission can be only in slot of its hash, new permission replaces old one in slot.
+     * So cache is bounded without any cleaning. Compiled permission is immutable, so racy slot reads are safe
+     */
+    private static final CompiledPermission[] CACHE = new CompiledPermission[CACHE_SIZE];
+
+    private final String permission;
+    private final boolean empty;
+    private final boolean negated;
+    /**
+     * Folded permission without leading "-"
+     */
+    private final String folded;
+    /**
+     * Start and end of every segment in folded permission
+     */
+    private final int[] bounds;
+    private final boolean[] wildcards;
+
+    private CompiledPermission(String permission) {
+        this.permission = permission;
+        this.empty = permission.isEmpty();
+        int start = 0;
+        while (start < permission.length() && permission.charAt(start) == '-') start++;
+        this.negated = start > 0;
+        StringBuilder folded = new StringBuilder(permission.length() - start);
+        int segments = 1;
+        for (int i = start; i < permission.length(); i++) {
+            char c = permission.charAt(i);
+            if (c == '.') segments++;
+            folded.append(Character.toLowerCase(Character.toUpperCase(c)));
+        }
+        this.folded = folded.toString();
+        int[] bounds = new int[segments * 2];
+        int segment = 0;
+        int segmentStart = 0;
+        for (int i = 0; i <= this.folded.length(); i++) {
+            if (i == this.folded.length() || this.folded.charAt(i) == '.') {
+                bounds[segment * 2] = segmentStart;
+                bounds[segment * 2 + 1] = i;
+                segment++;
+                segmentStart = i + 1;
+            }
+        }
+        // as split, drop trailing empty segments, but keep the only segment of empty text
+        if (!this.folded.isEmpty()) {
+            while (segments > 0 && bounds[segments * 2 - 1] == bounds[segments * 2 - 2]) segments--;
+        }
+        this.bounds = segments * 2 == bounds.length ? bounds : Arrays.copyOf(bounds, segments * 2);
+        this.wildcards = new boolean[segments];
+        for (int i = 0; i < segments; i++) {
+            wildcards[i] = bounds[i * 2 + 1] - bounds[i * 2] == 1 && this.folded.charAt(bounds[i * 2]) == '*';
+        }
+    }
+
+    /**
+     * @param permission permission
+     * @return compiled permission. Frequently used permissions are cached
+     */
+    public static @NotNull CompiledPermission of(@NotNull String permission) {
+        int hash = permission.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        CompiledPermission compiled = CACHE[slot];
+        if (compiled == null || !compiled.permission.equals(permission)) {
+            compiled = new CompiledPermission(permission);
+            CACHE[slot] = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * @return source permission
+     */
+    public @NotNull String getPermission() {
+        return permission;
+    }
+
+    /**
+     * @return true if permission starts with "-"
+     */
+    public boolean isNegated() {
+        return negated;
+    }
+
+    /**
+     * @return true if source permission is empty
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return number of segments
+     */
+    public int size() {
+        return wildcards.length;
+    }
+
+    /**
+     * @param index segment index
+     * @return true if segment is super-permission (*)
+     */
+    public boolean isWildcard(int index) {
+        return wildcards[index];
+    }
+
+    /**
+     * Check if this base permission allows specified permission. Same as default calculator
+     *
+     * @param toCheck permission to check
+     * @return true if this permission allows checked permission
+     * @see PermissionCalculator#isPermissionAllows(String, String)
+     */
+    public boolean allows(@NotNull CompiledPermission toCheck) {
+        if (toCheck.empty) return true;
+        if (folded.equals(toCheck.folded)) return true;
+        int size = size();
+        int checkSize = toCheck.size();
+        for (int i = 0, common = Math.min(size, checkSize); i < common; i++) {
+            if (!wildcards[i] && !toCheck.wildcards[i] && !segmentEquals(i, toCheck)) return false;
+        }
+        if (size != checkSize) {
+            return size < checkSize && size > 0 && wildcards[size - 1];
+        }
+        return true;
+    }
+
+    /**
+     * @param index segment index
+     * @return folded segment
+     */
+    public @NotNull String getSegment(int index) {
+        return folded.substring(bounds[index * 2], bounds[index * 2 + 1]);
+    }
+
+    /**
+     * @return hash of segment, same as {@link String#hashCode()} of {@link #getSegment(int)}
+     */
+    int segmentHash(int index) {
+        int hash = 0;
+        for (int i = bounds[index * 2], end = bounds[index * 2 + 1]; i < end; i++) {
+            hash = 31 * hash + folded.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * @return true if segment is equal to folded text
+     */
+    boolean segmentEquals(int index, String segment) {
+        int start = bounds[index * 2];
+        return bounds[index * 2 + 1] - start == segment.length() && folded.regionMatches(start, segment, 0, segment.length());
+    }
+
+    private boolean segmentEquals(int index, CompiledPermission other) {
+        int start = bounds[index * 2];
+        int length = bounds[index * 2 + 1] - start;
+        int otherStart = other.bounds[index * 2];
+        return other.bounds[index * 2 + 1] - otherStart == length
+                && folded.regionMatches(start, other.folded, otherStart, length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompiledPermission other && permission.equals(other.permission);
+    }
+
+    @Override
+    public int hashCode() {
+        return permission.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return permission;
+    }
+}
@@ -1,9 +1,9 @@
 package ru.blc.cutlet.api.permission;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.blc.cutlet.api.Cutlet;
 
 import java.util.function.BiFunction;
 
@@ -14,7 +14,8 @@ public class PermissionCalculator {
     /**
      * Custom permissions calculator.
      */
-    private static BiFunction<String, String, Boolean> calculator = null;
+    private static volatile BiFunction<String, String, Boolean> calculator = null;
+    private static volatile PermissionDecisionCache decisionCache = null;
 
     /**
      * Check if base permission allows specified permission <br>
@@ -94,9 +95,19 @@ public class PermissionCalculator {
      * @return true if base permissions allows checked permission, otherwise false
      */
     public static boolean isPermissionAllows(String base, String toCheck) {
-        if (getCalculator() != null) {
+        PermissionDecisionCache cache = base == null || toCheck == null ? null : decisionCache;
+        // epoch is read before calculator, so decision of replaced calculator would not be cached
+        long epoch = cache == null ? 0 : cache.epoch();
+        BiFunction<String, String, Boolean> calculator = getCalculator();
+        if (calculator != null) {
+            if (cache != null) {
+                Boolean cached = cache.get(base, toCheck);
+                if (cached != null) return cached;
+            }
             try {
-                return getCalculator().apply(base, toCheck);
+                boolean result = calculator.apply(base, toCheck);
+                if (cache != null) cache.put(base, toCheck, result, epoch);
+                return result;
             } catch (Exception ex) {
                 logger.error("Failed permission calculating by custom calculator. Calculating by default calculator. Exception was:", ex);
             }
@@ -113,27 +124,23 @@ public class PermissionCalculator {
      * @see PermissionCalculator#isPermissionAllows(String, String)
      */
     public static boolean basePermissionsCheck(String base, String toCheck) {
-        if (Cutlet.instance() != null)
-            Cutlet.instance().getLogger().debug("Calculating permission {} from base {}", toCheck, base);
+        if (logger.isDebugEnabled()) logger.debug("Calculating permission {} from base {}", toCheck, base);
         if (base == null) return false;
         if (toCheck == null) return false;
         if (toCheck.isEmpty()) return true;
-        if (toCheck.equalsIgnoreCase(base)) return true;
-        base = base.replaceAll("^-+", "");
-        toCheck = toCheck.replaceAll("^-+", "");
-        String[] baseS = base.split("\\."), toCheckS = toCheck.split("\\.");
-        boolean sectionCompleted = true;
-        for (int i = 0; sectionCompleted && i < Math.min(baseS.length, toCheckS.length); i++) {
-            String baseSection = baseS[i];
-            String checkSection = toCheckS[i];
-            sectionCompleted = baseSection.equalsIgnoreCase("*")
-                    || checkSection.equalsIgnoreCase("*")
-                    || baseSection.equalsIgnoreCase(checkSection);
-        }
-        if (sectionCompleted && baseS.length != toCheckS.length) {
-            return baseS.length < toCheckS.length && baseS[baseS.length - 1].equalsIgnoreCase("*");
-        }
-        return sectionCompleted;
+        return CompiledPermission.of(base).allows(CompiledPermission.of(toCheck));
+    }
+
+    /**
+     * Default permission calculator for compiled permissions
+     *
+     * @param base    base permission
+     * @param toCheck permission to check.
+     * @return true if base permissions allows checked permission, otherwise false
+     * @see PermissionCalculator#isPermissionAllows(String, String)
+     */
+    public static boolean basePermissionsCheck(@NotNull CompiledPermission base, @NotNull CompiledPermission toCheck) {
+        return base.allows(toCheck);
     }
 
     /**
@@ -145,6 +152,26 @@ public class PermissionCalculator {
         if (calculator != null)
             logger.warn("Permissions calculator changed. Permission system can be unstable or works wrong!");
         PermissionCalculator.calculator = calculator;
+        PermissionDecisionCache cache = decisionCache;
+        if (cache != null) cache.invalidateAll();
+    }
+
+    /**
+     * Setups cache of custom calculator decisions. Default calculator is not cached.<br>
+     * Cache is cleared when calculator changes
+     *
+     * @param cache decisions cache. null for no cache
+     */
+    public static void setDecisionCache(@Nullable PermissionDecisionCache cache) {
+        PermissionCalculator.decisionCache = cache;
+    }
+
+    /**
+     * @return cache of custom calculator decisions. Null if decisions are not cached
+     */
+    @Nullable
+    public static PermissionDecisionCache getDecisionCache() {
+        return decisionCache;
     }
 
     /**
@@ -0,0 +1,22 @@
+package ru.blc.cutlet.api.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Groups and users loaded from one state of storage
+ *
+ * @param groups all groups
+ * @param users  permissions of all users that have any
+ * @see PermissionDataSource#load()
+ */
+public record PermissionData(@NotNull Collection<@NotNull PermissionGroup> groups,
+                             @NotNull Collection<@NotNull UserPermissions> users) {
+
+    public PermissionData {
+        groups = List.copyOf(groups);
+        users = List.copyOf(users);
+    }
+}
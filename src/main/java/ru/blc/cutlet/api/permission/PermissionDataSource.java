@@ -0,0 +1,46 @@
+package ru.blc.cutlet.api.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Storage of groups and users permissions, i.e. file or database
+ *
+ * @see PropertiesPermissionDataSource
+ */
+public interface PermissionDataSource {
+
+    /**
+     * @return all groups
+     * @throws IOException if groups can not be loaded
+     */
+    @NotNull Collection<@NotNull PermissionGroup> loadGroups() throws IOException;
+
+    /**
+     * @return permissions of all users that have any
+     * @throws IOException if users can not be loaded
+     */
+    @NotNull Collection<@NotNull UserPermissions> loadUsers() throws IOException;
+
+    /**
+     * Loads groups and users at once, so they are not mixed from different saves.<br>
+     * By default, calls {@link #loadGroups()} and {@link #loadUsers()}
+     *
+     * @return all groups and users
+     * @throws IOException if data can not be loaded
+     */
+    default @NotNull PermissionData load() throws IOException {
+        return new PermissionData(loadGroups(), loadUsers());
+    }
+
+    /**
+     * Replaces stored data
+     *
+     * @param groups all groups
+     * @param users  permissions of all users
+     * @throws IOException if data can not be saved
+     */
+    void save(@NotNull Collection<@NotNull PermissionGroup> groups, @NotNull Collection<@NotNull UserPermissions> users) throws IOException;
+}
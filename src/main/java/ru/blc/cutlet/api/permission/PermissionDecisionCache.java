@@ -0,0 +1,275 @@
+package ru.blc.cutlet.api.permission;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * Bounded cache of custom permission calculator decisions, keyed by base and checked permission.<br>
+ * Cache is segmented LRU: new decisions get to probation segment, decisions used again are moved to protected segment.
+ * So one-time checks (i.e. scan over all permissions) can not push out decisions that are used all the time.
+ * Decisions expire after ttl, so changes in permission backend are visible after ttl even without invalidation.<br>
+ * Cache is split to stripes with own lock
+ *
+ * @see PermissionCalculator#setDecisionCache(PermissionDecisionCache)
+ */
+public class PermissionDecisionCache {
+
+    private static final int STRIPES = 16;
+    /**
+     * Part of stripe capacity for protected segment, percents
+     */
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long ttl;
+    /**
+     * Incremented on every invalidation, so decisions calculated before invalidation are not cached
+     */
+    private final AtomicLong epoch = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxSize max number of decisions
+     * @param ttl     time to live of decision
+     * @param unit    ttl unit
+     */
+    public PermissionDecisionCache(int maxSize, long ttl, @NotNull TimeUnit unit) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize should be positive");
+        if (ttl <= 0) throw new IllegalArgumentException("ttl should be positive");
+        this.ttl = unit.toNanos(ttl);
+        int stripeSize = Math.max((maxSize + STRIPES - 1) / STRIPES, 2);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    /**
+     * @param base    base permission
+     * @param toCheck checked permission
+     * @return cached decision or null if there is no actual decision
+     */
+    public @Nullable Boolean get(@NotNull String base, @NotNull String toCheck) {
+        Key key = new Key(base, toCheck);
+        Stripe stripe = stripe(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Entry entry = stripe.probation.remove(key);
+            if (entry != null) {
+                if (!expired(entry, now)) {
+                    stripe.promote(key, entry);
+                    hits.increment();
+                    return entry.allowed;
+                }
+            } else {
+                entry = stripe.protectedSegment.get(key);
+                if (entry != null) {
+                    if (!expired(entry, now)) {
+                        hits.increment();
+                        return entry.allowed;
+                    }
+                    stripe.protectedSegment.remove(key);
+                }
+            }
+            if (entry != null) expirations.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches decision
+     *
+     * @param base    base permission
+     * @param toCheck checked permission
+     * @param allowed decision
+     */
+    public void put(@NotNull String base, @NotNull String toCheck, boolean allowed) {
+        put(base, toCheck, allowed, epoch.get());
+    }
+
+    /**
+     * Caches decision if there were no invalidation since epoch
+     */
+    void put(String base, String toCheck, boolean allowed, long epoch) {
+        Key key = new Key(base, toCheck);
+        Entry entry = new Entry(allowed, System.nanoTime() + ttl);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            if (this.epoch.get() != epoch) return;
+            if (stripe.protectedSegment.containsKey(key)) {
+                stripe.protectedSegment.put(key, entry);
+                return;
+            }
+            stripe.probation.put(key, entry);
+            if (stripe.probation.size() > stripe.probationCapacity()) {
+                Iterator<Key> eldest = stripe.probation.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Removes all decisions
+     */
+    public void invalidateAll() {
+        invalidate((base, toCheck) -> true);
+    }
+
+    /**
+     * Removes all decisions of base permission (ignoring case, same as permission checks), i.e. after user lost or got this permission
+     *
+     * @param base base permission
+     */
+    public void invalidateBase(@NotNull String base) {
+        invalidate((b, toCheck) -> b.equalsIgnoreCase(base));
+    }
+
+    /**
+     * Removes all decisions where base or checked permission starts with prefix (ignoring case),
+     * i.e. {@code admin.} after admin permissions changed
+     *
+     * @param prefix permission prefix
+     */
+    public void invalidatePrefix(@NotNull String prefix) {
+        invalidate((base, toCheck) -> base.regionMatches(true, 0, prefix, 0, prefix.length())
+                || toCheck.regionMatches(true, 0, prefix, 0, prefix.length()));
+    }
+
+    private void invalidate(BiPredicate<String, String> filter) {
+        epoch.incrementAndGet();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.probation.keySet().removeIf(k -> filter.test(k.base(), k.toCheck()));
+                stripe.protectedSegment.keySet().removeIf(k -> filter.test(k.base(), k.toCheck()));
+            }
+        }
+    }
+
+    /**
+     * @return number of cached decisions, including expired ones that are not removed yet
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.probation.size() + stripe.protectedSegment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return number of checks answered from cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of checks that were not in cache or were expired
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of decisions removed because cache was full
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of decisions removed because of ttl
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * @return part of checks answered from cache, 0..1
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Resets hit and miss counters
+     */
+    public void resetMetrics() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        expirations.reset();
+    }
+
+    private Stripe stripe(Key key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static boolean expired(Entry entry, long now) {
+        return now - entry.expiry > 0;
+    }
+
+    private record Key(String base, String toCheck) {
+    }
+
+    private record Entry(boolean allowed, long expiry) {
+    }
+
+    private static final class Stripe {
+
+        private final int capacity;
+        private final int protectedCapacity;
+        /**
+         * Decisions used once, in insertion order
+         */
+        private final LinkedHashMap<Key, Entry> probation = new LinkedHashMap<>();
+        /**
+         * Decisions used several times, in access order
+         */
+        private final LinkedHashMap<Key, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = Math.max(capacity * PROTECTED_PERCENT / 100, 1);
+        }
+
+        private int probationCapacity() {
+            return capacity - protectedSegment.size();
+        }
+
+        /**
+         * Moves decision to protected segment. Least recently used protected decision gets back to probation
+         */
+        private void promote(Key key, Entry entry) {
+            protectedSegment.put(key, entry);
+            if (protectedSegment.size() > protectedCapacity) {
+                Iterator<Map.Entry<Key, Entry>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<Key, Entry> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.blc.cutlet.api.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Named set of permissions. Group also has all permissions of its parents
+ *
+ * @param name        group name, without "." and ","
+ * @param parents     names of inherited groups
+ * @param permissions own permissions of group
+ * @see PermissionResolver
+ */
+public record PermissionGroup(@NotNull String name, @NotNull List<@NotNull String> parents,
+                              @NotNull List<@NotNull String> permissions) {
+
+    /**
+     * Group that every user has
+     */
+    public static final String DEFAULT = "default";
+
+    public PermissionGroup {
+        if (name.isEmpty() || name.indexOf('.') >= 0 || name.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("Invalid group name " + name);
+        }
+        parents = List.copyOf(parents);
+        permissions = List.copyOf(permissions);
+    }
+}
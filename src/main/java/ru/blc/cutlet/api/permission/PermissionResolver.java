@@ -0,0 +1,249 @@
+package ru.blc.cutlet.api.permission;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.blc.cutlet.api.bean.ChatUser;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Permissions of users with groups and inheritance.<br>
+ * Every user has {@link PermissionGroup#DEFAULT} group, own groups with all their parents and own permissions.
+ * All of them are flattened to one {@link PermissionSet} when user or group changes, so permission check
+ * is lookup of user set by id and one tree walk. Conflicting grants are resolved by {@link PermissionSet} rules.<br>
+ * Sets are stored in primitive maps, striped by user id. Stripe is replaced on change, so checks never lock.
+ * Users with same grants share same set
+ */
+public class PermissionResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger("Cutlet");
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    /**
+     * Key for users without messenger
+     */
+    private static final Object NULL_MESSENGER = new Object();
+
+    private final PermissionDataSource source;
+
+    /**
+     * Groups by lower case names, changed only under lock of resolver
+     */
+    private final Map<String, PermissionGroup> groups = new LinkedHashMap<>();
+    private final Map<ChatUser, UserPermissions> users = new LinkedHashMap<>();
+    /**
+     * Permissions of every group with permissions of parents
+     */
+    private Map<String, List<String>> flattened = Map.of();
+    private volatile PermissionSet defaultPermissions = PermissionSet.EMPTY;
+    private volatile Map<Object, AtomicReferenceArray<Long2ObjectOpenHashMap<PermissionSet>>> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * @param source permissions storage. Data is not loaded until {@link #reload()}
+     */
+    public PermissionResolver(@NotNull PermissionDataSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Loads all groups and users from source
+     *
+     * @throws IOException if source failed
+     */
+    public synchronized void reload() throws IOException {
+        PermissionData data = source.load();
+        this.groups.clear();
+        for (PermissionGroup group : data.groups()) {
+            this.groups.put(group.name().toLowerCase(Locale.ROOT), group);
+        }
+        this.users.clear();
+        for (UserPermissions user : data.users()) {
+            this.users.put(user.user(), user);
+        }
+        rebuild();
+    }
+
+    /**
+     * Saves all groups and users to source
+     *
+     * @throws IOException if source failed
+     */
+    public synchronized void save() throws IOException {
+        source.save(List.copyOf(groups.values()), List.copyOf(users.values()));
+    }
+
+    /**
+     * @param user user
+     * @return all permissions of user
+     */
+    public @NotNull PermissionSet getPermissions(@NotNull ChatUser user) {
+        AtomicReferenceArray<Long2ObjectOpenHashMap<PermissionSet>> stripes = snapshots.get(key(user));
+        if (stripes == null) return defaultPermissions;
+        PermissionSet permissions = stripes.get(stripe(user.userId())).get(user.userId());
+        return permissions == null ? defaultPermissions : permissions;
+    }
+
+    /**
+     * @param user       user
+     * @param permission permission to check
+     * @return true if user has permission
+     * @see PermissionSet#allows(String)
+     */
+    public boolean hasPermission(@NotNull ChatUser user, @Nullable String permission) {
+        return getPermissions(user).allows(permission);
+    }
+
+    /**
+     * @param name group name
+     * @return group or null if there is no such group
+     */
+    public synchronized @Nullable PermissionGroup getGroup(@NotNull String name) {
+        return groups.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return all groups
+     */
+    public synchronized @Unmodifiable @NotNull List<@NotNull PermissionGroup> getGroups() {
+        return List.copyOf(groups.values());
+    }
+
+    /**
+     * Adds or replaces group. Permissions of all users are recalculated
+     *
+     * @param group group
+     */
+    public synchronized void setGroup(@NotNull PermissionGroup group) {
+        groups.put(group.name().toLowerCase(Locale.ROOT), group);
+        rebuild();
+    }
+
+    /**
+     * Removes group. Users and groups still can refer it, but it gives nothing
+     *
+     * @param name group name
+     */
+    public synchronized void removeGroup(@NotNull String name) {
+        if (groups.remove(name.toLowerCase(Locale.ROOT)) != null) rebuild();
+    }
+
+    /**
+     * @param user user
+     * @return own groups and permissions of user or null if user has nothing except default group
+     */
+    public synchronized @Nullable UserPermissions getUser(@NotNull ChatUser user) {
+        return users.get(user);
+    }
+
+    /**
+     * Sets groups and own permissions of user. Only permissions of this user are recalculated
+     *
+     * @param user user permissions
+     */
+    public synchronized void setUser(@NotNull UserPermissions user) {
+        users.put(user.user(), user);
+        update(user.user(), PermissionSet.of(flatten(user)));
+    }
+
+    /**
+     * Removes groups and own permissions of user, so user has only default group
+     *
+     * @param user user
+     */
+    public synchronized void removeUser(@NotNull ChatUser user) {
+        if (users.remove(user) != null) update(user, null);
+    }
+
+    /**
+     * Replaces set of one user by copy of its stripe
+     */
+    private void update(ChatUser user, PermissionSet permissions) {
+        AtomicReferenceArray<Long2ObjectOpenHashMap<PermissionSet>> stripes =
+                snapshots.computeIfAbsent(key(user), k -> newStripes());
+        int stripe = stripe(user.userId());
+        Long2ObjectOpenHashMap<PermissionSet> copy = new Long2ObjectOpenHashMap<>(stripes.get(stripe));
+        if (permissions == null) {
+            copy.remove(user.userId());
+        } else {
+            copy.put(user.userId(), permissions);
+        }
+        stripes.set(stripe, copy);
+    }
+
+    /**
+     * Recalculates all groups and users
+     */
+    private void rebuild() {
+        Map<String, List<String>> flattened = new HashMap<>();
+        for (String group : groups.keySet()) {
+            flatten(group, flattened, new HashSet<>());
+        }
+        this.flattened = flattened;
+        this.defaultPermissions = PermissionSet.of(flattened.getOrDefault(PermissionGroup.DEFAULT, List.of()));
+        Map<List<String>, PermissionSet> shared = new HashMap<>();
+        Map<Object, AtomicReferenceArray<Long2ObjectOpenHashMap<PermissionSet>>> snapshots = new ConcurrentHashMap<>();
+        for (UserPermissions user : users.values()) {
+            PermissionSet permissions = shared.computeIfAbsent(flatten(user), PermissionSet::of);
+            AtomicReferenceArray<Long2ObjectOpenHashMap<PermissionSet>> stripes =
+                    snapshots.computeIfAbsent(key(user.user()), k -> newStripes());
+            // maps are not published yet, so they are filled in place
+            stripes.get(stripe(user.user().userId())).put(user.user().userId(), permissions);
+        }
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * @return permissions of default group, user groups and user in order of inheritance
+     */
+    private List<String> flatten(UserPermissions user) {
+        Set<String> result = new LinkedHashSet<>(flattened.getOrDefault(PermissionGroup.DEFAULT, List.of()));
+        for (String group : user.groups()) {
+            result.addAll(flattened.getOrDefault(group.toLowerCase(Locale.ROOT), List.of()));
+        }
+        result.addAll(user.permissions());
+        return List.copyOf(result);
+    }
+
+    private List<String> flatten(String name, Map<String, List<String>> flattened, Set<String> path) {
+        List<String> result = flattened.get(name);
+        if (result != null) return result;
+        PermissionGroup group = groups.get(name);
+        if (group == null) return List.of();
+        if (!path.add(name)) {
+            logger.warn("Permission group {} inherits itself", group.name());
+            return List.of();
+        }
+        Set<String> permissions = new LinkedHashSet<>();
+        for (String parent : group.parents()) {
+            permissions.addAll(flatten(parent.toLowerCase(Locale.ROOT), flattened, path));
+        }
+        permissions.addAll(group.permissions());
+        path.remove(name);
+        result = List.copyOf(permissions);
+        flattened.put(name, result);
+        return result;
+    }
+
+    private static AtomicReferenceArray<Long2ObjectOpenHashMap<PermissionSet>> newStripes() {
+        AtomicReferenceArray<Long2ObjectOpenHashMap<PermissionSet>> stripes = new AtomicReferenceArray<>(STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.set(i, new Long2ObjectOpenHashMap<>());
+        }
+        return stripes;
+    }
+
+    private static Object key(ChatUser user) {
+        return user.messenger() == null ? NULL_MESSENGER : user.messenger();
+    }
+
+    private static int stripe(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> (64 - STRIPE_BITS));
+    }
+}
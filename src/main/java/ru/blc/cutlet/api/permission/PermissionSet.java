@@ -0,0 +1,204 @@
+package ru.blc.cutlet.api.permission;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Immutable set of granted permissions, i.e. all permissions of one user.<br>
+ * Permissions are stored in tree of segments, so check costs O(segments of checked permission)
+ * instead of checking every granted permission. Checked permission with super-permission segment
+ * (<code>example.*.test</code>) walks all branches at that segment.<br>
+ * Grants are matched same as {@link PermissionCalculator#isPermissionAllows(String, String)},
+ * except permissions with "-" at start deny matched permissions. If several grants match:
+ * <ul>
+ *     <li>grant with more not super-permission segments wins, i.e. <code>-example.test</code> overrides <code>example.*</code></li>
+ *     <li>then longer grant wins, i.e. <code>-example.*.*</code> overrides <code>example.*</code></li>
+ *     <li>if grants are still equal, denying one wins</li>
+ * </ul>
+ * If custom calculator is set ({@link PermissionCalculator#setCalculator(BiFunction)}), set just checks every grant by it.<br>
+ * Set can be shared between threads, so implementations of {@link ru.blc.cutlet.api.command.sender.CommandSender#hasPermission(String)}
+ * can keep one set per user
+ */
+public final class PermissionSet {
+
+    public static final PermissionSet EMPTY = new PermissionSet(Collections.emptySet());
+
+    private static final byte NONE = 0;
+    private static final byte ALLOW = 1;
+    private static final byte DENY = 2;
+    private static final long DENY_SCORE = 1;
+
+    private final Set<String> permissions;
+    private final Node root;
+
+    private PermissionSet(Set<String> permissions) {
+        this.permissions = permissions;
+        Builder root = new Builder();
+        for (String permission : permissions) {
+            CompiledPermission compiled = CompiledPermission.of(permission);
+            Builder node = root;
+            for (int i = 0; i < compiled.size(); i++) {
+                node = compiled.isWildcard(i)
+                        ? node.wildcard == null ? node.wildcard = new Builder() : node.wildcard
+                        : node.children.computeIfAbsent(compiled.getSegment(i), s -> new Builder());
+            }
+            node.state |= compiled.isNegated() ? DENY : ALLOW;
+        }
+        this.root = root.build(0, 0, false);
+    }
+
+    /**
+     * @param permissions granted permissions
+     * @return set of permissions
+     */
+    public static @NotNull PermissionSet of(@NotNull Collection<@NotNull String> permissions) {
+        if (permissions.isEmpty()) return EMPTY;
+        return new PermissionSet(Collections.unmodifiableSet(new LinkedHashSet<>(permissions)));
+    }
+
+    /**
+     * @param permissions granted permissions
+     * @return set of permissions
+     */
+    public static @NotNull PermissionSet of(@NotNull String @NotNull ... permissions) {
+        return of(Arrays.asList(permissions));
+    }
+
+    /**
+     * @return granted permissions
+     */
+    public @Unmodifiable @NotNull Set<@NotNull String> getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * @param permission permission to check. If null returns false, if empty returns true
+     * @return true if set allows permission
+     */
+    public boolean allows(@Nullable String permission) {
+        if (permission == null) return false;
+        if (permission.isEmpty()) return true;
+        BiFunction<String, String, Boolean> calculator = PermissionCalculator.getCalculator();
+        if (calculator != null) {
+            for (String granted : permissions) {
+                if (PermissionCalculator.isPermissionAllows(granted, permission)) return true;
+            }
+            return false;
+        }
+        return allows(CompiledPermission.of(permission));
+    }
+
+    /**
+     * Checks permission by default calculator rules
+     *
+     * @param permission permission to check. If empty returns true
+     * @return true if set allows permission
+     */
+    public boolean allows(@NotNull CompiledPermission permission) {
+        if (permission.isEmpty()) return true;
+        long best = match(root, permission, 0, -1);
+        return best >= 0 && (best & DENY_SCORE) == 0;
+    }
+
+    /**
+     * @return best score of grants matching permission in subtree of node, -1 if there is no such grants
+     */
+    private static long match(Node node, CompiledPermission permission, int index, long best) {
+        int size = permission.size();
+        // grant ending with * also allows longer permissions
+        if (node.state != NONE && (index == size || node.wildcardEnd)) {
+            best = Math.max(best, node.score);
+        }
+        if (index == size) return best;
+        if (permission.isWildcard(index)) {
+            if (node.keys != null) {
+                for (Node child : node.children) {
+                    if (child != null) best = match(child, permission, index + 1, best);
+                }
+            }
+        } else {
+            Node child = node.child(permission, index);
+            if (child != null) best = match(child, permission, index + 1, best);
+        }
+        if (node.wildcard != null) best = match(node.wildcard, permission, index + 1, best);
+        return best;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PermissionSet other && permissions.equals(other.permissions);
+    }
+
+    @Override
+    public int hashCode() {
+        return permissions.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return permissions.toString();
+    }
+
+    private static final class Node {
+
+        /**
+         * Open addressing table of literal segments, null if there are no literal children
+         */
+        private String[] keys;
+        private Node[] children;
+        private Node wildcard;
+        private byte state;
+        /**
+         * Node is reached by * segment
+         */
+        private boolean wildcardEnd;
+        /**
+         * Priority of grant ending at this node: literal segments, then length, then deny flag
+         */
+        private long score;
+
+        private Node child(CompiledPermission permission, int index) {
+            if (keys == null) return null;
+            int mask = keys.length - 1;
+            for (int i = mix(permission.segmentHash(index)) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (permission.segmentEquals(index, keys[i])) return children[i];
+            }
+            return null;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Builder {
+
+        private final Map<String, Builder> children = new HashMap<>();
+        private Builder wildcard;
+        private byte state;
+
+        private Node build(int depth, int literals, boolean wildcardEnd) {
+            Node node = new Node();
+            node.state = state;
+            node.wildcardEnd = wildcardEnd && depth > 0;
+            node.score = ((long) literals << 32) | ((long) depth << 1) | ((state & DENY) != 0 ? DENY_SCORE : 0);
+            if (!children.isEmpty()) {
+                int capacity = Integer.highestOneBit(children.size() * 2 - 1) << 1;
+                node.keys = new String[capacity];
+                node.children = new Node[capacity];
+                for (Map.Entry<String, Builder> entry : children.entrySet()) {
+                    int i = mix(entry.getKey().hashCode()) & (capacity - 1);
+                    while (node.keys[i] != null) i = (i + 1) & (capacity - 1);
+                    node.keys[i] = entry.getKey();
+                    node.children[i] = entry.getValue().build(depth + 1, literals + 1, false);
+                }
+            }
+            if (wildcard != null) node.wildcard = wildcard.build(depth + 1, literals, true);
+            return node;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.blc.cutlet.api.permission;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.blc.cutlet.api.bean.ChatUser;
+import ru.blc.cutlet.api.command.Messenger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Stores permissions in properties file:
+ * <pre>
+ *     group.default.permissions=help,info.*
+ *     group.admin.parents=default
+ *     group.admin.permissions=admin.*,-admin.shutdown
+ *     user.telegram.123456.groups=admin
+ *     user.telegram.123456.permissions=bot.debug
+ * </pre>
+ * Messengers are stored by names passed to constructor. Users of unknown messengers (i.e. of bot that is not loaded now)
+ * are skipped on load and kept in file as is on save.
+ * Users without messenger are stored with messenger name {@value #NO_MESSENGER}.<br>
+ * File is replaced atomically, so readers never see partly written file
+ */
+public class PropertiesPermissionDataSource implements PermissionDataSource {
+
+    public static final String NO_MESSENGER = "none";
+
+    private static final String GROUP = "group.";
+    private static final String USER = "user.";
+    private static final String PARENTS = "parents";
+    private static final String GROUPS = "groups";
+    private static final String PERMISSIONS = "permissions";
+
+    private final File file;
+    private final Map<String, Messenger> messengers;
+    private final Map<Messenger, String> names = new IdentityHashMap<>();
+
+    /**
+     * @param file       properties file. Created on first save
+     * @param messengers messengers by names used in file. Names should not contain "."
+     */
+    public PropertiesPermissionDataSource(@NotNull File file, @NotNull Map<String, Messenger> messengers) {
+        this.file = file;
+        this.messengers = Map.copyOf(messengers);
+        messengers.forEach((name, messenger) -> {
+            if (name.indexOf('.') >= 0 || name.equals(NO_MESSENGER)) {
+                throw new IllegalArgumentException("Invalid messenger name " + name);
+            }
+            names.put(messenger, name);
+        });
+    }
+
+    @Override
+    public @NotNull Collection<@NotNull PermissionGroup> loadGroups() throws IOException {
+        return groups(read());
+    }
+
+    @Override
+    public @NotNull Collection<@NotNull UserPermissions> loadUsers() throws IOException {
+        return users(read());
+    }
+
+    /**
+     * Reads file once for groups and users
+     */
+    @Override
+    public @NotNull PermissionData load() throws IOException {
+        Properties properties = read();
+        return new PermissionData(groups(properties), users(properties));
+    }
+
+    private static List<PermissionGroup> groups(Properties properties) {
+        Set<String> groups = new LinkedHashSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(GROUP)) continue;
+            int separator = key.lastIndexOf('.');
+            if (separator > GROUP.length()) groups.add(key.substring(GROUP.length(), separator));
+        }
+        List<PermissionGroup> result = new ArrayList<>(groups.size());
+        for (String group : groups) {
+            result.add(new PermissionGroup(group,
+                    list(properties.getProperty(GROUP + group + "." + PARENTS)),
+                    list(properties.getProperty(GROUP + group + "." + PERMISSIONS))));
+        }
+        return result;
+    }
+
+    private List<UserPermissions> users(Properties properties) {
+        Map<ChatUser, String> users = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            String messengerName = messengerName(key);
+            if (messengerName == null) continue;
+            int end = key.lastIndexOf('.');
+            int idStart = key.lastIndexOf('.', end - 1);
+            Messenger messenger = messengers.get(messengerName);
+            if (messenger == null && !messengerName.equals(NO_MESSENGER)) continue;
+            try {
+                long id = Long.parseLong(key.substring(idStart + 1, end));
+                users.put(new ChatUser(messenger, id), key.substring(0, end + 1));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        List<UserPermissions> result = new ArrayList<>(users.size());
+        users.forEach((user, prefix) -> result.add(new UserPermissions(user,
+                list(properties.getProperty(prefix + GROUPS)),
+                list(properties.getProperty(prefix + PERMISSIONS)))));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if messenger of some user was not passed to constructor
+     */
+    @Override
+    public void save(@NotNull Collection<@NotNull PermissionGroup> groups, @NotNull Collection<@NotNull UserPermissions> users) throws IOException {
+        Properties properties = new Properties();
+        for (PermissionGroup group : groups) {
+            put(properties, GROUP + group.name() + "." + PARENTS, group.parents());
+            // empty groups are kept too
+            properties.setProperty(GROUP + group.name() + "." + PERMISSIONS, String.join(",", group.permissions()));
+        }
+        for (UserPermissions user : users) {
+            String messenger = user.user().messenger() == null ? NO_MESSENGER : names.get(user.user().messenger());
+            if (messenger == null) {
+                throw new IllegalArgumentException("No name for messenger of user " + user.user() + ", its permissions can not be saved");
+            }
+            String prefix = USER + messenger + "." + user.user().userId() + ".";
+            put(properties, prefix + GROUPS, user.groups());
+            put(properties, prefix + PERMISSIONS, user.permissions());
+        }
+        Properties current = read();
+        for (String key : current.stringPropertyNames()) {
+            String messenger = messengerName(key);
+            if (messenger != null && !messenger.equals(NO_MESSENGER) && !messengers.containsKey(messenger)) {
+                properties.setProperty(key, current.getProperty(key));
+            }
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            properties.store(writer, "Cutlet permissions");
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return messenger name of user property key, null if key is not user property
+     */
+    private static @Nullable String messengerName(String key) {
+        if (!key.startsWith(USER)) return null;
+        int end = key.lastIndexOf('.');
+        int idStart = key.lastIndexOf('.', end - 1);
+        if (idStart <= USER.length()) return null;
+        return key.substring(USER.length(), idStart);
+    }
+
+    private Properties read() throws IOException {
+        Properties properties = new Properties();
+        if (!file.exists()) return properties;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private static void put(Properties properties, String key, List<String> values) {
+        if (!values.isEmpty()) properties.setProperty(key, String.join(",", values));
+    }
+
+    private static List<String> list(@Nullable String value) {
+        if (value == null) return List.of();
+        List<String> result = new ArrayList<>();
+        for (String s : value.split(",")) {
+            s = s.trim();
+            if (!s.isEmpty()) result.add(s);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.blc.cutlet.api.permission;
+
+import org.jetbrains.annotations.NotNull;
+import ru.blc.cutlet.api.bean.ChatUser;
+
+import java.util.List;
+
+/**
+ * Permissions granted to user
+ *
+ * @param user        user
+ * @param groups      names of user groups. {@link PermissionGroup#DEFAULT} group is not required here, every user has it
+ * @param permissions own permissions of user
+ * @see PermissionResolver
+ */
+public record UserPermissions(@NotNull ChatUser user, @NotNull List<@NotNull String> groups,
+                              @NotNull List<@NotNull String> permissions) {
+
+    public UserPermissions {
+        groups = List.copyOf(groups);
+        permissions = List.copyOf(permissions);
+    }
+}
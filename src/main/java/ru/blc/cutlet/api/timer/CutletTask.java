@@ -4,13 +4,13 @@ import com.google.common.base.Preconditions;
 import org.jetbrains.annotations.NotNull;
 import ru.blc.cutlet.api.Plugin;
 
-import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents running task
  */
-public class CutletTask implements Delayed {
+public class CutletTask {
 
     private final Timer timer;
     private final Runnable runnable;
@@ -21,8 +21,12 @@ public class CutletTask implements Delayed {
      */
     private long end;
     private final TimeUnit timeUnit;
-    private TaskState state = TaskState.WAITING;
+    private final AtomicReference<TaskState> state = new AtomicReference<>(TaskState.WAITING);
     private final boolean rounded;
+    /**
+     * Place of task in timer wheel, null if task is not waiting
+     */
+    TimingWheel.Timeout<CutletTask> timeout;
 
     public CutletTask(@NotNull Timer timer, @NotNull Plugin plugin, @NotNull Runnable runnable, long delay, @NotNull TimeUnit timeUnit, boolean rounded) {
         Preconditions.checkArgument(delay > 0, "delay should be more than zero!");
@@ -53,17 +57,26 @@ public class CutletTask implements Delayed {
     }
 
     public TaskState getState() {
-        return this.state;
+        return this.state.get();
     }
 
-    void setState(TaskState state) {
-        this.state = state;
+    /**
+     * Changes state only if it is expected one, so cancel can not be overwritten by timer
+     *
+     * @return true if state is changed
+     */
+    boolean changeState(TaskState expected, TaskState state) {
+        return this.state.compareAndSet(expected, state);
     }
 
     void resetStart() {
         end = now() + TimeUnit.MILLISECONDS.convert(delay, timeUnit);
     }
 
+    long getEnd() {
+        return end;
+    }
+
     boolean isRounded() {
         return rounded;
     }
@@ -75,14 +88,4 @@ public class CutletTask implements Delayed {
     Plugin getPlugin() {
         return plugin;
     }
-
-    @Override
-    public long getDelay(@NotNull TimeUnit unit) {
-        return unit.convert(end - now(), TimeUnit.MILLISECONDS);
-    }
-
-    @Override
-    public int compareTo(@NotNull Delayed o) {
-        return Long.compare(getDelay(timeUnit), o.getDelay(timeUnit));
-    }
 }
@@ -5,27 +5,52 @@ import org.jetbrains.annotations.NotNull;
 import ru.blc.cutlet.api.Cutlet;
 import ru.blc.cutlet.api.Plugin;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Used for scheduling some tasks
+ * Used for scheduling some tasks<br>
+ * Tasks are kept in {@link TimingWheel}, so scheduling and cancelling of task costs O(1) regardless of tasks count.
+ * Tasks start with tick precision, never earlier than their delay. Timer thread sleeps until next deadline,
+ * not every tick
  */
 public class Timer {
 
+    /**
+     * Default tick duration, ms
+     */
+    public static final long DEFAULT_TICK = 10;
+    /**
+     * Max sleep of timer thread, ms
+     */
+    private static final long IDLE_PARK = 1000;
+
     private static final AtomicBoolean started = new AtomicBoolean(false);
-    private final DelayQueue<CutletTask> tasksQueue = new DelayQueue<>();
-    private final Map<Plugin, Set<CutletTask>> tasksByPlugin = new WeakHashMap<>();
+    private final TimingWheel<CutletTask> wheel;
+    private final Map<Plugin, Set<CutletTask>> tasksByPlugin = Collections.synchronizedMap(new WeakHashMap<>());
     private final Cutlet cutlet;
+    private Thread thread;
+    /**
+     * Time when timer thread wakes up, ms. Guarded by wheel
+     */
+    private long wakeUp = Long.MAX_VALUE;
 
     public Timer(Cutlet cutlet) {
+        this(cutlet, DEFAULT_TICK, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param cutlet cutlet
+     * @param tick   timer resolution, at least 1 ms
+     * @param unit   resolution unit
+     */
+    public Timer(Cutlet cutlet, long tick, @NotNull TimeUnit unit) {
         this.cutlet = cutlet;
+        this.wheel = new TimingWheel<>(tick, unit, CutletTask.now());
         if (!started.compareAndSet(false, true)) {
             cutlet.getLogger().error("Duplicate timer start!");
             return;
@@ -33,21 +58,42 @@ public class Timer {
         Thread t = new TimerThread();
         t.setName("Timer");
         t.setDaemon(true);
+        this.thread = t;
         t.start();
     }
 
     /**
-     * Cancels task. If task is running or finished this method does nothing
+     * @return timer resolution, ms
+     */
+    public long getTick() {
+        return wheel.getTick();
+    }
+
+    /**
+     * @return number of waiting tasks
+     */
+    public int getWaitingTasks() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Cancels task. If task is finished this method does nothing, running repeating task is not scheduled again
      *
      * @param task task gor cancel
      */
     public void cancelTack(CutletTask task) {
-        if (task.getState() == TaskState.FINISHED) {
-            return;
+        TaskState state;
+        do {
+            state = task.getState();
+            if (state == TaskState.FINISHED || state == TaskState.CANCELLED) return;
+        } while (!task.changeState(state, TaskState.CANCELLED));
+        forget(task);
+        synchronized (wheel) {
+            if (task.timeout != null) wheel.cancel(task.timeout);
+            task.timeout = null;
         }
-        task.setState(TaskState.CANCELLED);
-        tasksByPlugin.computeIfAbsent(task.getPlugin(), p -> new HashSet<>()).remove(task);
-        tasksQueue.remove(task);
     }
 
     public void cancelAll(@NotNull Plugin owner) {
@@ -68,12 +114,12 @@ public class Timer {
     public CutletTask runTaskLaterAsync(@NotNull Plugin plugin, long delay, @NotNull TimeUnit timeUnit, @NotNull Runnable runnable) {
         Preconditions.checkState(plugin.isEnabled(), plugin.getName() + " attempted to start task while not enabled!");
         CutletTask task = new CutletTask(this, plugin, runnable, delay, timeUnit, false);
-        tasksQueue.add(task);
         if (runnable instanceof CutletRunnable cutletRunnable) {
             cutletRunnable.task = task;
         }
 
-        tasksByPlugin.computeIfAbsent(plugin, p -> new HashSet<>()).add(task);
+        tasksByPlugin.computeIfAbsent(plugin, p -> ConcurrentHashMap.newKeySet()).add(task);
+        schedule(task);
         return task;
     }
 
@@ -88,43 +134,78 @@ public class Timer {
     public CutletTask runTaskTimerAsync(@NotNull Plugin plugin, long delay, @NotNull TimeUnit timeUnit, @NotNull Runnable runnable) {
         Preconditions.checkState(plugin.isEnabled(), plugin.getName() + " attempted to start task while not enabled!");
         CutletTask task = new CutletTask(this, plugin, runnable, delay, timeUnit, true);
-        tasksQueue.add(task);
         if (runnable instanceof CutletRunnable cutletRunnable) {
             cutletRunnable.task = task;
         }
 
-        tasksByPlugin.computeIfAbsent(plugin, p -> new HashSet<>()).add(task);
+        tasksByPlugin.computeIfAbsent(plugin, p -> ConcurrentHashMap.newKeySet()).add(task);
+        schedule(task);
         return task;
     }
 
+    private void schedule(CutletTask task) {
+        boolean earlier;
+        synchronized (wheel) {
+            if (task.isCancelled()) return;
+            task.timeout = wheel.schedule(task, task.getEnd());
+            earlier = task.getEnd() < wakeUp;
+        }
+        // timer thread sleeps until next deadline, wake it up if this task is earlier
+        if (earlier && thread != null) LockSupport.unpark(thread);
+    }
+
+    private void forget(CutletTask task) {
+        Set<CutletTask> tasks = tasksByPlugin.get(task.getPlugin());
+        if (tasks != null) tasks.remove(task);
+    }
+
+    private void runTask(CutletTask task) {
+        if (!task.getPlugin().isEnabled()) {
+            forget(task);
+            return;
+        }
+        if (!task.changeState(TaskState.WAITING, TaskState.RUNNING)) return;
+        CompletableFuture<Void> future = CompletableFuture.runAsync(task::run);
+        if (task.isRounded()) {
+            future.whenComplete((v, t) -> {
+                if (!task.changeState(TaskState.RUNNING, TaskState.WAITING)) return;
+                task.resetStart();
+                schedule(task);
+            });
+        } else {
+            future.whenComplete((v, t) -> {
+                task.changeState(TaskState.RUNNING, TaskState.FINISHED);
+                forget(task);
+            });
+        }
+    }
+
     protected class TimerThread extends Thread {
 
         @Override
         public void run() {
+            List<CutletTask> expired = new ArrayList<>();
             while (cutlet.isRunning()) {
-                try {
-                    CutletTask task = tasksQueue.take();
-                    if (!task.getPlugin().isEnabled()) {
-                        tasksByPlugin.computeIfAbsent(task.getPlugin(), p -> new HashSet<>()).remove(task);
-                        continue;
-                    }
-                    task.setState(TaskState.RUNNING);
-                    CompletableFuture<Void> future = CompletableFuture.runAsync(task::run);
-                    if (task.isRounded()) {
-                        future.whenComplete((v, t) -> {
-                            task.setState(TaskState.WAITING);
-                            task.resetStart();
-                            tasksQueue.add(task);
-                        });
-                    } else {
-                        future.whenComplete((v, t) -> {
-                            task.setState(TaskState.FINISHED);
-                            tasksByPlugin.computeIfAbsent(task.getPlugin(), p -> new HashSet<>()).remove(task);
-                        });
+                long park;
+                synchronized (wheel) {
+                    long now = CutletTask.now();
+                    wheel.advance(now, task -> {
+                        task.timeout = null;
+                        expired.add(task);
+                    });
+                    // sleep until next occupied tick, but wake up sometimes to check that cutlet is running
+                    wakeUp = Math.min(wheel.nextDeadline(), now + IDLE_PARK);
+                    park = wakeUp - now;
+                }
+                for (CutletTask task : expired) {
+                    try {
+                        runTask(task);
+                    } catch (Exception e) {
+                        cutlet.getLogger().error("Exception at thread task", e);
                     }
-                } catch (InterruptedException e) {
-                    cutlet.getLogger().error("Exception at thread task", e);
                 }
+                expired.clear();
+                if (park > 0) LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(park));
             }
             cutlet.getLogger().info("Cutlet disabled. Disabling");
             super.run();
@@ -0,0 +1,250 @@
+package ru.blc.cutlet.api.timer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Schedule and cancel are O(1), time advance is O(1) per tick plus O(1) per expired timeout.<br>
+ * Every level has {@value #SLOTS} slots, slot of level 0 is one tick, slot of next level is whole previous level.
+ * Timeout is put to slot by its deadline, when time reaches slot of upper level, its timeouts are moved to lower levels.
+ * Timeouts expire with tick precision, not earlier than deadline.<br>
+ * Wheel is not thread safe
+ *
+ * @param <T> timeout value
+ * @see Timer
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 7;
+
+    private final long tick;
+    private final long start;
+    private final Slot<T>[][] levels;
+    /**
+     * Last processed tick
+     */
+    private long current;
+    private int size;
+
+    /**
+     * @param tick  tick duration, at least 1 ms
+     * @param unit  tick unit
+     * @param start current time, ms
+     */
+    public TimingWheel(long tick, @NotNull TimeUnit unit, long start) {
+        this.tick = Math.max(unit.toMillis(tick), 1);
+        this.start = start;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Slot<T>[][] levels = new Slot[LEVELS][SLOTS];
+        this.levels = levels;
+        for (Slot<T>[] level : levels) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Slot<>();
+            }
+        }
+    }
+
+    /**
+     * @return tick duration, ms
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return number of scheduled timeouts
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Time when wheel should be advanced next time. Timeouts can expire at this time or
+     * move from upper level to lower, so caller just advances wheel and asks again
+     *
+     * @return time of next occupied tick, ms. {@link Long#MAX_VALUE} if wheel is empty
+     */
+    public long nextDeadline() {
+        if (size == 0) return Long.MAX_VALUE;
+        return start + nextTick() * tick;
+    }
+
+    /**
+     * @return next tick that processes not empty slot of any level
+     */
+    private long nextTick() {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            // slot of level is processed when time reaches its boundary
+            long boundary = current >>> shift << shift;
+            for (int i = 1; i <= SLOTS; i++) {
+                long time = boundary + ((long) i << shift);
+                if (time >= next) break;
+                if (levels[level][(int) (time >>> shift) & MASK].head != null) {
+                    next = time;
+                    break;
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @param value    timeout value
+     * @param deadline time of expiry, ms. Timeout with passed deadline expires on next tick
+     * @return timeout for cancel
+     */
+    public @NotNull Timeout<T> schedule(@NotNull T value, long deadline) {
+        Timeout<T> timeout = new Timeout<>(value, Math.max(Math.floorDiv(deadline - start + tick - 1, tick), current + 1));
+        insert(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @param timeout timeout
+     * @return true if timeout was scheduled and is removed now
+     */
+    public boolean cancel(@NotNull Timeout<T> timeout) {
+        if (timeout.slot == null) return false;
+        timeout.slot.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances time, expired timeouts are removed from wheel
+     *
+     * @param now     current time, ms
+     * @param expired consumer of expired values
+     */
+    public void advance(long now, @NotNull Consumer<? super T> expired) {
+        long target = Math.floorDiv(now - start, tick);
+        if (size == 0) {
+            current = Math.max(current, target);
+            return;
+        }
+        while (current < target) {
+            // ticks without occupied slots are skipped at once
+            long occupied = nextTick();
+            if (occupied > target) {
+                current = target;
+                return;
+            }
+            long time = current = occupied;
+            // upper levels first, so their timeouts get down to level 0 at this tick
+            int level = 0;
+            while (level + 1 < LEVELS && (time & ((1L << (SLOT_BITS * (level + 1))) - 1)) == 0) level++;
+            for (; level > 0; level--) {
+                Slot<T> slot = levels[level][(int) (time >>> (SLOT_BITS * level)) & MASK];
+                for (Timeout<T> timeout = slot.clear(); timeout != null; ) {
+                    Timeout<T> next = timeout.next;
+                    timeout.next = null;
+                    insert(timeout);
+                    timeout = next;
+                }
+            }
+            Slot<T> slot = levels[0][(int) time & MASK];
+            for (Timeout<T> timeout = slot.clear(); timeout != null; ) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                size--;
+                expired.accept(timeout.value);
+                timeout = next;
+            }
+            if (size == 0) current = target;
+        }
+    }
+
+    private void insert(Timeout<T> timeout) {
+        long delta = timeout.deadline - current;
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= 1L << (SLOT_BITS * (level + 1))) level++;
+        long position = timeout.deadline;
+        if (level == LEVELS - 1 && delta >= 1L << (SLOT_BITS * LEVELS)) {
+            // too far, park in last slot of top level and reinsert when it is reached
+            position = current + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        levels[level][(int) (position >>> (SLOT_BITS * level)) & MASK].add(timeout);
+    }
+
+    /**
+     * Scheduled value
+     */
+    public static final class Timeout<T> {
+
+        private final T value;
+        /**
+         * Deadline tick
+         */
+        private final long deadline;
+        private Slot<T> slot;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        public @NotNull T getValue() {
+            return value;
+        }
+
+        /**
+         * @return true if timeout is still in wheel
+         */
+        public boolean isScheduled() {
+            return slot != null;
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts
+     */
+    private static final class Slot<T> {
+
+        private Timeout<T> head;
+
+        private void add(Timeout<T> timeout) {
+            timeout.slot = this;
+            timeout.previous = null;
+            timeout.next = head;
+            if (head != null) head.previous = timeout;
+            head = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) timeout.next.previous = timeout.previous;
+            timeout.slot = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        /**
+         * Removes all timeouts
+         *
+         * @return first removed timeout, others are linked by next
+         */
+        private Timeout<T> clear() {
+            Timeout<T> first = head;
+            head = null;
+            for (Timeout<T> timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.slot = null;
+                timeout.previous = null;
+            }
+            return first;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package ru.blc.cutlet.api.timing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram.<br>
+ * Values are stored in logarithmic buckets (4 buckets per power of two), so percentiles are approximate,
+ * reported value is upper bound of bucket and can be up to 25% more than real value
+ */
+public class TimingHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 62 * SUB_BUCKETS;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    /**
+     * Count and total of all calls, including not sampled ones
+     */
+    private final LongAdder estimatedCount = new LongAdder();
+    private final LongAdder estimatedTotal = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records one value
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    /**
+     * Records one sampled value
+     *
+     * @param nanos  duration in nanoseconds
+     * @param weight number of calls this value stands for, i.e. {@link Timings#getSampleInterval()}
+     */
+    public void record(long nanos, int weight) {
+        if (nanos < 0) nanos = 0;
+        if (weight < 1) weight = 1;
+        count.increment();
+        total.add(nanos);
+        estimatedCount.add(weight);
+        estimatedTotal.add(nanos * weight);
+        buckets.incrementAndGet(bucket(nanos));
+        long currentMax = max.get();
+        while (nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Adds all values of other histogram to this histogram
+     *
+     * @param other histogram to add
+     */
+    public void merge(TimingHistogram other) {
+        count.add(other.getCount());
+        total.add(other.getTotal(TimeUnit.NANOSECONDS));
+        estimatedCount.add(other.getEstimatedCount());
+        estimatedTotal.add(other.getEstimatedTotal(TimeUnit.NANOSECONDS));
+        for (int i = 0; i < BUCKETS; i++) {
+            long value = other.buckets.get(i);
+            if (value != 0) buckets.addAndGet(i, value);
+        }
+        long otherMax = other.max.get();
+        long currentMax = max.get();
+        while (otherMax > currentMax && !max.compareAndSet(currentMax, otherMax)) {
+            currentMax = max.get();
+        }
+    }
+
+    public void reset() {
+        count.reset();
+        total.reset();
+        estimatedCount.reset();
+        estimatedTotal.reset();
+        max.set(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @param unit time unit
+     * @return sum of all recorded values
+     */
+    public long getTotal(TimeUnit unit) {
+        return unit.convert(total.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return number of calls, recorded values multiplied by their sample interval
+     */
+    public long getEstimatedCount() {
+        return estimatedCount.sum();
+    }
+
+    /**
+     * @param unit time unit
+     * @return sum of all calls, recorded values multiplied by their sample interval
+     */
+    public long getEstimatedTotal(TimeUnit unit) {
+        return unit.convert(estimatedTotal.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit time unit
+     * @return max recorded value
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit time unit
+     * @return average value or 0 if nothing recorded
+     */
+    public double getAverage(TimeUnit unit) {
+        long count = getCount();
+        if (count == 0) return 0;
+        return (double) total.sum() / count / unit.toNanos(1);
+    }
+
+    /**
+     * @param percentile percentile from 0 to 100
+     * @param unit       time unit
+     * @return approximate value of percentile or 0 if nothing recorded
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return unit.convert(Math.min(upperBound(i), max.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+        return getMax(unit);
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return (exponent - 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 2)) - 1;
+    }
+}
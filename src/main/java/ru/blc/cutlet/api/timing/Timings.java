@@ -0,0 +1,92 @@
+package ru.blc.cutlet.api.timing;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+import ru.blc.cutlet.api.event.Event;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Timings of event dispatch.<br>
+ * Disabled by default. When disabled, instrumented code only reads one field
+ *
+ * @see ru.blc.cutlet.api.event.RegisteredListener#getTiming()
+ */
+public final class Timings {
+
+    private static volatile int sampleInterval = 0;
+    private static final Map<Class<? extends Event>, TimingHistogram> events = new ConcurrentHashMap<>();
+
+    private Timings() {
+    }
+
+    /**
+     * @return true if timings are recorded
+     */
+    public static boolean isEnabled() {
+        return sampleInterval != 0;
+    }
+
+    /**
+     * @return sample interval. 0 if disabled
+     * @see #setSampleInterval(int)
+     */
+    public static int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Sets timings sampling.<br>
+     * 0 disables timings, 1 records every call, n records approximately every n-th call
+     *
+     * @param interval sample interval
+     */
+    public static void setSampleInterval(int interval) {
+        if (interval < 0) throw new IllegalArgumentException("interval should not be negative");
+        sampleInterval = interval;
+    }
+
+    /**
+     * Decides if current call should be measured
+     *
+     * @return true if call should be measured
+     */
+    public static boolean shouldSample() {
+        int interval = sampleInterval;
+        return interval != 0 && (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0);
+    }
+
+    /**
+     * @param type event type
+     * @return timing of whole dispatch of specified event type
+     */
+    public static @NotNull TimingHistogram getEventTiming(@NotNull Class<? extends Event> type) {
+        return events.computeIfAbsent(type, t -> new TimingHistogram());
+    }
+
+    /**
+     * @return timings of whole dispatch for every called event type
+     */
+    public static @UnmodifiableView Map<Class<? extends Event>, TimingHistogram> getEventTimings() {
+        return Collections.unmodifiableMap(events);
+    }
+
+    /**
+     * Removes dispatch timings of event types loaded by specified class loader, so disabled bot's classes can be unloaded
+     *
+     * @param loader class loader of bot
+     */
+    public static void removeEvents(@NotNull ClassLoader loader) {
+        events.keySet().removeIf(type -> type.getClassLoader() == loader);
+    }
+
+    /**
+     * Clears event dispatch timings. Listener timings should be reset separately
+     */
+    public static void resetEvents() {
+        events.clear();
+    }
+}
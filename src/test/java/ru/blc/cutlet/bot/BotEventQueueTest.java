@@ -0,0 +1,257 @@
+package ru.blc.cutlet.bot;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.bot.BotEventQueue;
+import ru.blc.cutlet.api.bot.BotManager;
+import ru.blc.cutlet.api.bot.OverflowPolicy;
+import ru.blc.cutlet.api.event.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+public class BotEventQueueTest {
+
+    @Test
+    public void dropPolicies() {
+        Assert.assertEquals(List.of("1", "2"), deliver(OverflowPolicy.DROP_NEWEST, 2, "1", "2", "3"));
+        Assert.assertEquals(List.of("2", "3"), deliver(OverflowPolicy.DROP_OLDEST, 2, "1", "2", "3"));
+    }
+
+    @Test
+    public void coalesceByTypeAndKey() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("queue-coalesce");
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        List<String> calls = new ArrayList<>();
+        try {
+            manager.setEventExecutor(bot, tasks::add);
+            BotEventQueue queue = manager.setEventQueue(bot, 4, OverflowPolicy.COALESCE);
+            manager.registerEvents(bot, new RecordingListener(calls::add));
+            manager.queueEvent(new QueuedEvent("first", "chat"));
+            manager.queueEvent(new OtherQueuedEvent("other", "chat"));
+            manager.queueEvent(new QueuedEvent("second", "chat"));
+            manager.queueEvent(new QueuedEvent("third", "other chat"));
+            Assert.assertEquals(3, queue.getDepth());
+            Assert.assertEquals(1, queue.getCoalesced());
+            runAll(tasks);
+            Assert.assertEquals("replaced in place", List.of("second", "other:other", "third"), calls);
+        } finally {
+            cleanup(manager, bot);
+        }
+    }
+
+    @Test
+    public void blockingProducers() throws Exception {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("queue-block");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        int producers = 4;
+        int events = 500;
+        List<List<String>> received = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            received.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+        try {
+            manager.setEventExecutor(bot, executor);
+            BotEventQueue queue = manager.setEventQueue(bot, 4, OverflowPolicy.BLOCK);
+            manager.registerEvents(bot, new RecordingListener(name -> {
+                String[] parts = name.split(":");
+                received.get(Integer.parseInt(parts[0])).add(parts[1]);
+            }));
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < events; i++) {
+                        manager.queueEvent(new QueuedEvent(producer + ":" + i, null));
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.MINUTES.toMillis(1));
+                Assert.assertFalse("producer is blocked", thread.isAlive());
+            }
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (queue.getDelivered() < producers * events && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            Assert.assertEquals(0, queue.getDropped());
+            Assert.assertTrue(queue.getMaxDepth() <= 4);
+            for (List<String> list : received) {
+                Assert.assertEquals(events, list.size());
+                for (int i = 0; i < events; i++) {
+                    Assert.assertEquals("order of one producer", String.valueOf(i), list.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            cleanup(manager, bot);
+        }
+    }
+
+    @Test
+    public void blockFromDeliveringThread() throws Exception {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("queue-reentrant");
+        List<String> calls = new ArrayList<>();
+        try {
+            manager.setEventExecutor(bot, Runnable::run);
+            BotEventQueue queue = manager.setEventQueue(bot, 1, OverflowPolicy.BLOCK);
+            manager.registerEvents(bot, new RecordingListener(name -> {
+                calls.add(name);
+                if (name.equals("outer")) {
+                    manager.queueEvent(new QueuedEvent("inner", null));
+                    manager.queueEvent(new QueuedEvent("dropped", null));
+                }
+            }));
+            Thread producer = new Thread(() -> manager.queueEvent(new QueuedEvent("outer", null)));
+            producer.start();
+            producer.join(TimeUnit.SECONDS.toMillis(30));
+            Assert.assertFalse("deadlock", producer.isAlive());
+            Assert.assertEquals(List.of("outer", "inner"), calls);
+            Assert.assertEquals(1, queue.getDropped());
+        } finally {
+            cleanup(manager, bot);
+        }
+    }
+
+    @Test
+    public void blockWithRejectingExecutor() throws Exception {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("queue-rejected");
+        try {
+            manager.setEventExecutor(bot, task -> {
+                throw new RejectedExecutionException("shut down");
+            });
+            BotEventQueue queue = manager.setEventQueue(bot, 1, OverflowPolicy.BLOCK);
+            manager.registerEvents(bot, new RecordingListener(name -> {
+            }));
+            Thread producer = new Thread(() -> {
+                manager.queueEvent(new QueuedEvent("queued", null));
+                manager.queueEvent(new QueuedEvent("blocked", null));
+            });
+            producer.start();
+            producer.join(TimeUnit.SECONDS.toMillis(30));
+            Assert.assertFalse("producer waits forever", producer.isAlive());
+            Assert.assertEquals(1, queue.getDropped());
+            Assert.assertEquals(1, queue.getDepth());
+        } finally {
+            cleanup(manager, bot);
+        }
+    }
+
+    private static List<String> deliver(OverflowPolicy policy, int capacity, String... names) {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("queue-" + policy);
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        List<String> calls = new ArrayList<>();
+        try {
+            manager.setEventExecutor(bot, tasks::add);
+            BotEventQueue queue = manager.setEventQueue(bot, capacity, policy);
+            manager.registerEvents(bot, new RecordingListener(calls::add));
+            for (String name : names) {
+                manager.queueEvent(new QueuedEvent(name, null));
+            }
+            Assert.assertEquals(names.length - capacity, queue.getDropped());
+            runAll(tasks);
+            Assert.assertEquals(capacity, queue.getDelivered());
+            return calls;
+        } finally {
+            cleanup(manager, bot);
+        }
+    }
+
+    private static void runAll(Queue<Runnable> tasks) {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static void cleanup(BotManager manager, Bot bot) {
+        manager.removeEventQueue(bot);
+        manager.setEventExecutor(bot, null);
+        HandlerList.unregisterAll(bot);
+    }
+
+    public static class QueuedEvent extends Event implements CoalescingEvent {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        private final String name;
+        private final Object key;
+
+        public QueuedEvent(String name, Object key) {
+            this.name = name;
+            this.key = key;
+        }
+
+        @Override
+        public Object getCoalescingKey() {
+            return key == null ? this : key;
+        }
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class OtherQueuedEvent extends Event implements CoalescingEvent {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        private final String name;
+        private final Object key;
+
+        public OtherQueuedEvent(String name, Object key) {
+            this.name = name;
+            this.key = key;
+        }
+
+        @Override
+        public Object getCoalescingKey() {
+            return key;
+        }
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class RecordingListener implements Listener {
+
+        private final Consumer<String> calls;
+
+        public RecordingListener(Consumer<String> calls) {
+            this.calls = calls;
+        }
+
+        @EventHandler
+        public void onEvent(QueuedEvent event) {
+            calls.accept(event.name);
+        }
+
+        @EventHandler
+        public void onOther(OtherQueuedEvent event) {
+            calls.accept("other:" + event.name);
+        }
+    }
+}
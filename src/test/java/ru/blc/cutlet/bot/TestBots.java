@@ -0,0 +1,96 @@
+package ru.blc.cutlet.bot;
+
+import ru.blc.cutlet.api.Cutlet;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.bot.BotClassLoader;
+import ru.blc.cutlet.api.bot.BotDescription;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Cutlet and bots for tests.<br>
+ * Cutlet is created once, its bots folder is temporary directory. It is not started, but reports that it is running,
+ * so timer thread of the first created {@link ru.blc.cutlet.api.timer.Timer} runs tasks.
+ * Every bot is {@link TestBot} loaded by own {@link BotClassLoader}, bot is enabled but not added to bot manager
+ */
+public final class TestBots {
+
+    private static Cutlet cutlet;
+    private static File jar;
+
+    private TestBots() {
+    }
+
+    public static synchronized Cutlet cutlet() {
+        if (cutlet == null) {
+            try {
+                File folder = Files.createTempDirectory("cutlet").toFile();
+                folder.deleteOnExit();
+                cutlet = new Cutlet() {
+                    @Override
+                    public File getBotsFolder() {
+                        return folder;
+                    }
+
+                    @Override
+                    public boolean isRunning() {
+                        return true;
+                    }
+                };
+                jar = File.createTempFile("bot", ".jar");
+                jar.deleteOnExit();
+                String path = TestBot.class.getName().replace('.', '/') + ".class";
+                try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+                     InputStream in = TestBots.class.getClassLoader().getResourceAsStream(path)) {
+                    if (in == null) throw new IOException("Cannot find " + path);
+                    out.putNextEntry(new JarEntry(path));
+                    in.transferTo(out);
+                    out.closeEntry();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return cutlet;
+    }
+
+    /**
+     * @param name bot name
+     * @return new enabled bot
+     */
+    public static synchronized Bot create(String name) {
+        cutlet();
+        BotDescription description = new BotDescription();
+        description.setName(name);
+        description.setMain(TestBot.class.getName());
+        description.setVersion("1.0");
+        try {
+            BotClassLoader loader = new BotClassLoader(cutlet, jar, description) {
+                @Override
+                protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+                    if (!className.equals(TestBot.class.getName())) return super.loadClass(className, resolve);
+                    synchronized (getClassLoadingLock(className)) {
+                        Class<?> loaded = findLoadedClass(className);
+                        return loaded != null ? loaded : findClass(className);
+                    }
+                }
+            };
+            Bot bot = (Bot) loader.loadClass(TestBot.class.getName()).getConstructor().newInstance();
+            bot.getDirectory().deleteOnExit();
+            bot.setEnabled(true);
+            return bot;
+        } catch (IOException | ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create bot " + name, e);
+        }
+    }
+
+    public static class TestBot extends Bot {
+    }
+}
@@ -0,0 +1,200 @@
+package ru.blc.cutlet.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bean.ChatUser;
+import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandArguments;
+import ru.blc.cutlet.api.command.CommandOutcome;
+import ru.blc.cutlet.api.command.CommandTokenizer;
+import ru.blc.cutlet.api.command.argument.*;
+import ru.blc.cutlet.api.command.sender.DialogType;
+import ru.blc.cutlet.api.command.sender.TargetSearchResult;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ArgumentParserTest {
+
+    private enum Mode {
+        FAST,
+        SAFE
+    }
+
+    @Test
+    public void types() {
+        Assert.assertEquals(Integer.valueOf(-5), ArgumentType.INTEGER.parse("-5"));
+        Assert.assertNull(ArgumentType.INTEGER.parse("5000000000"));
+        Assert.assertNull(ArgumentType.INTEGER.parse("five"));
+        Assert.assertEquals(Long.valueOf(5_000_000_000L), ArgumentType.LONG.parse("5000000000"));
+        Assert.assertNull(ArgumentType.LONG.parse("1.5"));
+        Assert.assertEquals(1.5, ArgumentType.DOUBLE.parse("1.5"), 0);
+        Assert.assertNull(ArgumentType.DOUBLE.parse("NaN"));
+        Assert.assertNull(ArgumentType.DOUBLE.parse("Infinity"));
+        Assert.assertNull(ArgumentType.DOUBLE.parse("x"));
+        for (String text : new String[]{"true", "YES", "1"}) {
+            Assert.assertEquals(Boolean.TRUE, ArgumentType.BOOLEAN.parse(text));
+        }
+        for (String text : new String[]{"False", "no", "0"}) {
+            Assert.assertEquals(Boolean.FALSE, ArgumentType.BOOLEAN.parse(text));
+        }
+        Assert.assertNull(ArgumentType.BOOLEAN.parse("maybe"));
+        Assert.assertEquals("word", ArgumentType.WORD.parse("word"));
+        Assert.assertNull("users are taken from targets", ArgumentType.USER.parse("@user"));
+
+        ArgumentType<Mode> mode = ArgumentType.enumeration(Mode.class);
+        Assert.assertEquals("fast|safe", mode.getName());
+        Assert.assertEquals(Mode.SAFE, mode.parse("Safe"));
+        Assert.assertNull(mode.parse("slow"));
+    }
+
+    @Test
+    public void parse() {
+        TestBots.cutlet();
+        ArgumentSchema schema = new ArgumentSchema();
+        Argument<Integer> amount = schema.required("amount", ArgumentType.INTEGER);
+        Argument<Boolean> silent = schema.optional("silent", ArgumentType.BOOLEAN, false);
+        Argument<String> reason = schema.rest("reason", true);
+        ArgumentParser parser = schema.compile();
+        Assert.assertEquals("<amount:integer> [silent:true|false] [reason...]", parser.getUsage());
+
+        CommandContext context = parse(parser, new TestSender(1), "5 yes was   rude");
+        Assert.assertNotNull(context);
+        Assert.assertEquals(Integer.valueOf(5), context.get(amount));
+        Assert.assertEquals(Boolean.TRUE, context.get(silent));
+        Assert.assertEquals("rest is raw text", "was   rude", context.get(reason));
+
+        context = parse(parser, new TestSender(1), "5");
+        Assert.assertNotNull(context);
+        Assert.assertEquals(Boolean.FALSE, context.get(silent));
+        Assert.assertEquals("", context.get(reason));
+
+        TestSender sender = new TestSender(1);
+        Assert.assertNull(parse(parser, sender, ""));
+        Assert.assertNull(parse(parser, sender, "five"));
+        Assert.assertEquals(2, sender.getMessages().size());
+    }
+
+    @Test
+    public void foreignArgument() {
+        TestBots.cutlet();
+        ArgumentSchema schema = new ArgumentSchema();
+        Argument<String> name = schema.required("name", ArgumentType.WORD);
+        ArgumentSchema other = new ArgumentSchema();
+        Argument<Integer> foreign = other.required("amount", ArgumentType.INTEGER);
+        ArgumentParser parser = schema.compile();
+        Argument<String> late = schema.optional("late", ArgumentType.WORD);
+
+        CommandContext context = parse(parser, new TestSender(1), "cutlet");
+        Assert.assertNotNull(context);
+        Assert.assertEquals("cutlet", context.get(name));
+        try {
+            context.get(foreign);
+            Assert.fail("argument of other schema at same index");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            context.has(late);
+            Assert.fail("argument added after compile");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void tooManyArguments() {
+        TestBots.cutlet();
+        ArgumentSchema schema = new ArgumentSchema();
+        schema.required("name", ArgumentType.WORD);
+        TestSender sender = new TestSender(1);
+        Assert.assertNull(parse(schema.compile(), sender, "first second"));
+        Assert.assertEquals(1, sender.getMessages().size());
+    }
+
+    @Test
+    public void schemaOrder() {
+        ArgumentSchema schema = new ArgumentSchema();
+        schema.optional("optional", ArgumentType.WORD);
+        try {
+            schema.required("required", ArgumentType.WORD);
+            Assert.fail("required after optional");
+        } catch (IllegalStateException expected) {
+        }
+        schema.rest("rest", true);
+        try {
+            schema.optional("after", ArgumentType.WORD);
+            Assert.fail("argument after rest");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            ArgumentSchema duplicates = new ArgumentSchema();
+            duplicates.required("name", ArgumentType.WORD);
+            duplicates.required("NAME", ArgumentType.WORD);
+            Assert.fail("duplicate name");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void mentionsAreSkipped() {
+        TestBots.cutlet();
+        ArgumentSchema schema = new ArgumentSchema();
+        Argument<ChatUser> target = schema.user("target");
+        Argument<Integer> amount = schema.required("amount", ArgumentType.INTEGER);
+        ArgumentParser parser = schema.compile();
+        ChatUser john = new ChatUser(TestSender.MESSENGER, 42);
+
+        TestSender sender = new TestSender(1).setTargets(
+                new TargetSearchResult(john, TargetSearchResult.FindCase.MENTION, "@John  Smith", 5, 17));
+        CommandContext context = parse(parser, sender, "@John  Smith 10");
+        Assert.assertNotNull("mention of two words is skipped", context);
+        Assert.assertEquals(john, context.get(target));
+        Assert.assertEquals(Integer.valueOf(10), context.get(amount));
+
+        sender = new TestSender(1).setTargets(
+                new TargetSearchResult(john, TargetSearchResult.FindCase.FORWARD, null, 0, 0));
+        context = parse(parser, sender, "10");
+        Assert.assertNotNull("forwarded target has no text", context);
+        Assert.assertEquals(john, context.get(target));
+
+        sender = new TestSender(1).setTargets(
+                new TargetSearchResult(john, TargetSearchResult.FindCase.MENTION, "@john", 0, 5));
+        context = parse(parser, sender, "10 @john");
+        Assert.assertNull("mention is not at argument position", context);
+
+        sender = new TestSender(1);
+        Assert.assertNull("required user is missing", parse(parser, sender, "10"));
+        Assert.assertEquals(1, sender.getMessages().size());
+    }
+
+    @Test
+    public void usageErrorKeepsCooldown() {
+        TestBots.cutlet();
+        ArgumentSchema schema = new ArgumentSchema();
+        Argument<Integer> amount = schema.required("amount", ArgumentType.INTEGER);
+        Command command = new Command(null, DialogType.ALL, "give", null, null, null);
+        List<Integer> executed = new ArrayList<>();
+        command.setArguments(schema);
+        command.setCommandExecutor((TypedCommandExecutor) context -> executed.add(context.get(amount)));
+        command.setCooldown(1, TimeUnit.MINUTES, null);
+        TestSender sender = new TestSender(1);
+
+        command.dispatch(sender, "give", "many");
+        Assert.assertEquals(1, command.getMetrics().getCount(CommandOutcome.USAGE));
+        Assert.assertTrue(executed.isEmpty());
+
+        command.dispatch(sender, "give", "3");
+        Assert.assertEquals(List.of(3), executed);
+        Assert.assertEquals(1, command.getMetrics().getCount(CommandOutcome.SUCCESS));
+
+        command.dispatch(sender, "give", "4");
+        Assert.assertEquals(1, command.getMetrics().getCount(CommandOutcome.COOLDOWN));
+        Assert.assertEquals(List.of(3), executed);
+    }
+
+    private static CommandContext parse(ArgumentParser parser, TestSender sender, String text) {
+        CommandArguments args = CommandTokenizer.tokenize(text);
+        return parser.parse(new Command(null, DialogType.ALL, "test", null, null, null), sender, "test", args);
+    }
+}
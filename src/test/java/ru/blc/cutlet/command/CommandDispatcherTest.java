@@ -0,0 +1,115 @@
+package ru.blc.cutlet.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.command.CommandDispatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class CommandDispatcherTest {
+
+    @Test
+    public void orderPerUser() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CommandDispatcher dispatcher = new CommandDispatcher(executor);
+        try {
+            int users = 3;
+            int commands = 200;
+            List<List<Integer>> done = new ArrayList<>();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int user = 0; user < users; user++) {
+                done.add(Collections.synchronizedList(new ArrayList<>()));
+            }
+            for (int i = 0; i < commands; i++) {
+                for (int user = 0; user < users; user++) {
+                    List<Integer> list = done.get(user);
+                    int command = i;
+                    futures.add(dispatcher.dispatch(new TestSender(user), () -> {
+                        if (command % 2 == 0) {
+                            list.add(command);
+                            return null;
+                        }
+                        // command that completes later on other thread
+                        return CompletableFuture.runAsync(() -> list.add(command), executor);
+                    }));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.MINUTES);
+            for (List<Integer> list : done) {
+                Assert.assertEquals(commands, list.size());
+                for (int i = 0; i < commands; i++) {
+                    Assert.assertEquals(i, (int) list.get(i));
+                }
+            }
+            awaitNoLanes(dispatcher);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void usersRunInParallel() throws Exception {
+        CommandDispatcher dispatcher = new CommandDispatcher(Executors.newFixedThreadPool(2));
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Void> blocked = dispatcher.dispatch(new TestSender(1), () -> {
+                await(release);
+                return null;
+            });
+            CompletableFuture<Void> sameUser = dispatcher.dispatch(new TestSender(1), () -> null);
+            CompletableFuture<Void> otherUser = dispatcher.dispatch(new TestSender(2), () -> null);
+            otherUser.get(1, TimeUnit.MINUTES);
+            Assert.assertFalse(blocked.isDone());
+            Assert.assertFalse("waits for previous command of user", sameUser.isDone());
+            // lane of other user is removed right after its command completes
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (dispatcher.getActiveLanes() != 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            Assert.assertEquals(1, dispatcher.getActiveLanes());
+            release.countDown();
+            sameUser.get(1, TimeUnit.MINUTES);
+            awaitNoLanes(dispatcher);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void failureDoesNotStopLane() throws Exception {
+        CommandDispatcher dispatcher = new CommandDispatcher(Executors.newSingleThreadExecutor());
+        try {
+            TestSender sender = new TestSender(1);
+            CompletableFuture<Void> thrown = dispatcher.dispatch(sender, () -> {
+                throw new IllegalStateException("command error");
+            });
+            CompletableFuture<Void> failed = dispatcher.dispatch(sender, () -> CompletableFuture.failedFuture(new IllegalStateException()));
+            CompletableFuture<Void> next = dispatcher.dispatch(sender, () -> null);
+            next.get(1, TimeUnit.MINUTES);
+            Assert.assertTrue(thrown.isCompletedExceptionally());
+            Assert.assertTrue(failed.isCompletedExceptionally());
+            awaitNoLanes(dispatcher);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitNoLanes(CommandDispatcher dispatcher) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (dispatcher.getActiveLanes() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals("drained lanes are removed", 0, dispatcher.getActiveLanes());
+    }
+}
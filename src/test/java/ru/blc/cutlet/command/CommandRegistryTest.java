@@ -0,0 +1,191 @@
+package ru.blc.cutlet.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import ru.blc.cutlet.api.Cutlet;
+import ru.blc.cutlet.api.Plugin;
+import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandRegistry;
+import ru.blc.cutlet.api.command.sender.DialogType;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CommandRegistryTest {
+
+    private static Command command(String name, String... aliases) {
+        return new Command(null, DialogType.ALL, name, null, null, null, aliases);
+    }
+
+    @Test
+    public void registerAndLookup() {
+        CommandRegistry registry = new CommandRegistry();
+        Command help = command("Help", "h", "?");
+        Assert.assertTrue(registry.register(null, help));
+        Assert.assertSame(help, registry.get("HELP", null));
+        Assert.assertSame(help, registry.get("h", null));
+        Assert.assertFalse("alias is taken", registry.register(null, command("hint", "H")));
+        Assert.assertNull("failed registration should not leave aliases", registry.get("hint", null));
+        Assert.assertEquals(1, registry.getCommands(null).size());
+
+        registry.unregister(help);
+        Assert.assertNull(registry.get("help", null));
+        Assert.assertNull(registry.get("?", null));
+        Assert.assertTrue(registry.getCommands(null).isEmpty());
+    }
+
+    @Test
+    public void globalAliasIndex() {
+        CommandRegistry registry = new CommandRegistry();
+        Plugin first = plugin("first");
+        Plugin second = plugin("second");
+        Command firstHelp = command("help");
+        Command secondHelp = command("help", "info");
+        Command cutletInfo = command("info");
+        Assert.assertTrue(registry.register(first, firstHelp));
+        Assert.assertTrue(registry.register(second, secondHelp));
+        Assert.assertSame("earlier registration wins", firstHelp, registry.get("HELP"));
+        Assert.assertSame(secondHelp, registry.get("info"));
+        Assert.assertTrue(registry.register(null, cutletInfo));
+        Assert.assertSame("cutlet command wins", cutletInfo, registry.get("info"));
+        Assert.assertEquals(2, registry.getRegistrations("info").size());
+
+        registry.unregisterAll(first);
+        Assert.assertSame(secondHelp, registry.get("help"));
+        registry.unregister(cutletInfo);
+        Assert.assertSame(secondHelp, registry.get("info"));
+        registry.unregisterAll(second);
+        Assert.assertNull(registry.get("help"));
+        Assert.assertTrue(registry.getRegistrations("info").isEmpty());
+    }
+
+    @Test
+    public void prefixesAndSuggestions() {
+        CommandRegistry registry = new CommandRegistry();
+        Command start = command("start", "run");
+        Command stop = command("stop");
+        Command status = command("status", "st");
+        Assert.assertTrue(registry.register(null, start));
+        Assert.assertTrue(registry.register(null, stop));
+        Assert.assertTrue(registry.register(null, status));
+
+        Assert.assertSame(start, registry.getByPrefix("STAR", null));
+        Assert.assertSame("exact alias wins", status, registry.getByPrefix("st", null));
+        Assert.assertSame(status, registry.getByPrefix("stat", null));
+        Assert.assertNull("ambiguous prefix", registry.getByPrefix("sta", null));
+        Assert.assertNull(registry.getByPrefix("x", null));
+        Assert.assertSame(start, registry.getByPrefix("r", null));
+
+        Assert.assertEquals(List.of("st", "start", "status", "stop"), registry.complete("st", null, 10));
+        Assert.assertEquals(List.of("start", "status"), registry.complete("sta", null, 10));
+        Assert.assertEquals(List.of("st"), registry.complete("s", null, 1));
+
+        Assert.assertEquals(List.of("stop"), registry.suggest("sotp", null, 1, 3));
+        Assert.assertEquals("swap is one edit", List.of("start"), registry.suggest("statr", null, 1, 3));
+        Assert.assertEquals("one alias for every command", List.of("st", "stop"), registry.suggest("sto", null, 1, 3));
+        Assert.assertEquals("closer first", List.of("st", "run"), registry.suggest("rt", null, 2, 3));
+        Assert.assertTrue(registry.suggest("help", null, 2, 3).isEmpty());
+
+        registry.unregister(stop);
+        Assert.assertNull(registry.getByPrefix("sto", null));
+        Assert.assertSame(status, registry.getByPrefix("stat", null));
+    }
+
+    private static Plugin plugin(String name) {
+        return new Plugin() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Logger getLogger() {
+                return null;
+            }
+
+            @Override
+            public Cutlet getCutlet() {
+                return null;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void setEnabled(boolean enabled) {
+            }
+
+            @Override
+            public boolean isLoaded() {
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void concurrentDispatchAndRegistration() throws InterruptedException {
+        CommandRegistry registry = new CommandRegistry();
+        Command stable = command("stable", "s");
+        registry.register(null, stable);
+
+        int writers = 4;
+        int readers = 4;
+        int iterations = 2_000;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        CountDownLatch readersDone = new CountDownLatch(readers);
+
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < iterations; i++) {
+                        Command temporary = command("temp-" + writer + "-" + i, "t" + writer + "-" + i);
+                        Assert.assertTrue(registry.register(null, temporary));
+                        Assert.assertSame(temporary, registry.get("T" + writer + "-" + i, null));
+                        if (i % 2 == 0) registry.unregister(temporary);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    writersDone.countDown();
+                }
+            }).start();
+        }
+        for (int r = 0; r < readers; r++) {
+            new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        Assert.assertSame(stable, registry.get("stable", null));
+                        Assert.assertSame(stable, registry.get("S", null));
+                        Assert.assertTrue(registry.getCommands(null).contains(stable));
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    readersDone.countDown();
+                }
+            }).start();
+        }
+
+        Assert.assertTrue(writersDone.await(1, TimeUnit.MINUTES));
+        running.set(false);
+        Assert.assertTrue(readersDone.await(1, TimeUnit.MINUTES));
+        if (failure.get() != null) throw new AssertionError(failure.get());
+
+        Assert.assertEquals(1 + writers * iterations / 2, registry.getCommands(null).size());
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < iterations; i++) {
+                Command command = registry.get("temp-" + w + "-" + i, null);
+                Assert.assertEquals(i % 2 == 1, command != null);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.blc.cutlet.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.command.CommandArguments;
+import ru.blc.cutlet.api.command.CommandTokenizer;
+
+import java.util.Arrays;
+
+public class CommandTokenizerTest {
+
+    @Test
+    public void whitespaces() {
+        assertTokens("  say \t hello   world ", "say", "hello", "world");
+        assertTokens("   ");
+        assertTokens("");
+    }
+
+    @Test
+    public void quotes() {
+        assertTokens("say \"hello world\" 'single quoted'", "say", "hello world", "single quoted");
+        assertTokens("say \"\"", "say", "");
+        assertTokens("say \"unterminated quote", "say", "unterminated quote");
+        assertTokens("say \"it's\"", "say", "it's");
+        assertTokens("say \"quoted\"tail next", "say", "quotedtail", "next");
+    }
+
+    @Test
+    public void quoteInsideWord() {
+        assertTokens("say I don't know it", "say", "I", "don't", "know", "it");
+        assertTokens("say 5\" screen", "say", "5\"", "screen");
+    }
+
+    @Test
+    public void escapes() {
+        assertTokens("path C:\\temp\\x", "path", "C:\\temp\\x");
+        assertTokens("say \\\"not quoted\\\"", "say", "\"not", "quoted\"");
+        assertTokens("say \"a \\\" b\"", "say", "a \" b");
+        assertTokens("say back\\\\slash", "say", "back\\slash");
+        assertTokens("say end\\", "say", "end\\");
+    }
+
+    @Test
+    public void views() {
+        CommandArguments args = CommandTokenizer.tokenize("cmd first \"second arg\"  third");
+        Assert.assertEquals("\"second arg\"  third", args.getRaw(2));
+        CommandArguments tail = args.from(1);
+        Assert.assertEquals(3, tail.size());
+        Assert.assertEquals("second arg", tail.get(1));
+        Assert.assertTrue(tail.is(0, "FIRST"));
+        Assert.assertTrue(tail.is(1, "Second Arg"));
+        Assert.assertFalse(tail.is(3, "third"));
+        Assert.assertEquals(0, args.from(10).size());
+        try {
+            tail.get(3);
+            Assert.fail("no such argument");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void legacySplit() {
+        assertLegacy("cmd \"hello world\"  it's\nnext", "\"hello", "world\"", "", "it's\nnext");
+        assertLegacy("cmd");
+        assertLegacy("cmd   ");
+        assertLegacy("cmd a\\b", "a\\b");
+        Assert.assertArrayEquals(new String[]{"cmd", "a", "b"}, CommandTokenizer.tokenize("cmd a b").toLegacyArray());
+        Assert.assertArrayEquals(new String[]{"b"}, CommandTokenizer.tokenize("cmd a b").from(2).toLegacyArray());
+    }
+
+    @Test
+    public void manyArguments() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append(i).append(' ');
+        }
+        CommandArguments args = CommandTokenizer.tokenize(text.toString());
+        Assert.assertEquals(100, args.size());
+        Assert.assertEquals("99", args.get(99));
+    }
+
+    /**
+     * Legacy arguments of command are same as text split by spaces without label
+     */
+    private static void assertLegacy(String text, String... expected) {
+        String[] split = text.split(" ");
+        Assert.assertArrayEquals(Arrays.copyOfRange(split, 1, split.length), expected);
+        Assert.assertArrayEquals(expected, CommandTokenizer.tokenize(text).from(1).toLegacyArray());
+    }
+
+    private static void assertTokens(String text, String... expected) {
+        Assert.assertArrayEquals(expected, CommandTokenizer.tokenize(text).toArray());
+    }
+}
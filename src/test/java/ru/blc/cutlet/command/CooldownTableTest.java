@@ -0,0 +1,93 @@
+package ru.blc.cutlet.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.command.CooldownTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CooldownTableTest {
+
+    @Test
+    public void acquireAndRemove() {
+        CooldownTable table = new CooldownTable();
+        Assert.assertEquals(0, table.acquire(1, 60_000));
+        long remaining = table.acquire(1, 60_000);
+        Assert.assertTrue(remaining > 0 && remaining <= 60_000);
+        Assert.assertTrue(table.getRemaining(1) > 0);
+        Assert.assertEquals(0, table.getRemaining(2));
+        Assert.assertEquals(0, table.acquire(2, 60_000));
+
+        table.remove(1);
+        Assert.assertEquals(0, table.getRemaining(1));
+        Assert.assertEquals(0, table.acquire(1, 60_000));
+    }
+
+    @Test
+    public void expiry() throws InterruptedException {
+        CooldownTable table = new CooldownTable();
+        Assert.assertEquals(0, table.acquire(1, 20));
+        Thread.sleep(50);
+        Assert.assertEquals(0, table.getRemaining(1));
+        Assert.assertEquals(0, table.acquire(1, 20));
+    }
+
+    @Test
+    public void longDuration() {
+        CooldownTable table = new CooldownTable();
+        Assert.assertEquals(0, table.acquire(1, Long.MAX_VALUE));
+        Assert.assertTrue(table.getRemaining(1) > 0);
+        Assert.assertTrue(table.acquire(1, 1) > 0);
+        Assert.assertEquals(0, table.acquire(2, Long.MAX_VALUE - 1));
+        Assert.assertTrue(table.getRemaining(2) > 0);
+    }
+
+    @Test
+    public void growth() {
+        CooldownTable table = new CooldownTable();
+        int keys = 100_000;
+        for (int i = 0; i < keys; i++) {
+            Assert.assertEquals(0, table.acquire(i, 60_000));
+        }
+        for (int i = 0; i < keys; i++) {
+            Assert.assertTrue("key " + i, table.getRemaining(i) > 0);
+        }
+    }
+
+    @Test
+    public void racingAcquires() throws Exception {
+        CooldownTable table = new CooldownTable();
+        int threads = 8;
+        int rounds = 500;
+        AtomicInteger[] winners = new AtomicInteger[rounds];
+        for (int i = 0; i < rounds; i++) {
+            winners[i] = new AtomicInteger();
+        }
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int round = 0; round < rounds; round++) {
+                        barrier.await(1, TimeUnit.MINUTES);
+                        if (table.acquire(round, 60_000) == 0) winners[round].incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            thread.start();
+            started.add(thread);
+        }
+        for (Thread thread : started) {
+            thread.join(TimeUnit.MINUTES.toMillis(2));
+        }
+        for (int round = 0; round < rounds; round++) {
+            Assert.assertEquals("winners of round " + round, 1, winners[round].get());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.blc.cutlet.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bean.ChatUser;
+import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.FloodControl;
+import ru.blc.cutlet.api.command.Messenger;
+import ru.blc.cutlet.api.command.RateLimit;
+import ru.blc.cutlet.api.command.sender.DialogType;
+
+import static ru.blc.cutlet.api.command.FloodControl.Result.*;
+
+public class FloodControlTest {
+
+    private static final Messenger OTHER_MESSENGER = new Messenger() {
+    };
+
+    private static Command command(String name) {
+        return new Command(null, DialogType.ALL, name, null, null, null);
+    }
+
+    @Test
+    public void disabledByDefault() {
+        FloodControl control = new FloodControl();
+        ChatUser user = new ChatUser(TestSender.MESSENGER, 1);
+        Command command = command("test");
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(ALLOWED, control.acquire(user, command));
+        }
+    }
+
+    @Test
+    public void globalLimit() {
+        FloodControl control = new FloodControl();
+        control.setGlobalLimit(new RateLimit(3, 0.001));
+        ChatUser user = new ChatUser(TestSender.MESSENGER, 1);
+        Command first = command("first");
+        Command second = command("second");
+        Assert.assertEquals(ALLOWED, control.acquire(user, first));
+        Assert.assertEquals(ALLOWED, control.acquire(user, second));
+        Assert.assertEquals(ALLOWED, control.acquire(user, first));
+        Assert.assertEquals("first rejection is notified", THROTTLED, control.acquire(user, second));
+        Assert.assertEquals(THROTTLED_SILENT, control.acquire(user, first));
+        Assert.assertEquals(THROTTLED_SILENT, control.acquire(user, first));
+
+        Assert.assertEquals("other user has own bucket", ALLOWED, control.acquire(new ChatUser(TestSender.MESSENGER, 2), first));
+        Assert.assertEquals("same id in other messenger", ALLOWED, control.acquire(new ChatUser(OTHER_MESSENGER, 1), first));
+        Assert.assertEquals("console is not limited", ALLOWED, control.acquire(null, first));
+
+        control.setGlobalLimit(null);
+        Assert.assertNull(control.getGlobalLimit());
+        Assert.assertEquals(ALLOWED, control.acquire(user, first));
+    }
+
+    @Test
+    public void commandLimit() {
+        FloodControl control = new FloodControl();
+        control.setGlobalLimit(new RateLimit(4, 0.001));
+        ChatUser user = new ChatUser(TestSender.MESSENGER, 1);
+        Command limited = command("limited");
+        limited.setRateLimit(new RateLimit(1, 0.001));
+        Command free = command("free");
+        Assert.assertEquals(ALLOWED, control.acquire(user, limited));
+        Assert.assertEquals(THROTTLED, control.acquire(user, limited));
+        Assert.assertEquals("other commands use only global limit", ALLOWED, control.acquire(user, free));
+        Assert.assertEquals(ALLOWED, control.acquire(user, free));
+        // global bucket is spent by rejected command too
+        Assert.assertEquals(THROTTLED, control.acquire(user, free));
+    }
+
+    @Test
+    public void refill() throws InterruptedException {
+        FloodControl control = new FloodControl();
+        control.setGlobalLimit(new RateLimit(1, 100));
+        ChatUser user = new ChatUser(TestSender.MESSENGER, 1);
+        Command command = command("test");
+        Assert.assertEquals(ALLOWED, control.acquire(user, command));
+        Assert.assertEquals(THROTTLED, control.acquire(user, command));
+        Thread.sleep(50);
+        Assert.assertEquals(ALLOWED, control.acquire(user, command));
+        Assert.assertEquals("notification is reset by allowed command", THROTTLED, control.acquire(user, command));
+    }
+
+    @Test
+    public void boundedUsers() {
+        FloodControl control = new FloodControl(1);
+        control.setGlobalLimit(new RateLimit(1, 0.001));
+        Command command = command("test");
+        for (int i = 0; i < 100_000; i++) {
+            Assert.assertEquals(ALLOWED, control.acquire(new ChatUser(TestSender.MESSENGER, i), command));
+        }
+        ChatUser user = new ChatUser(TestSender.MESSENGER, 100_000);
+        Assert.assertEquals(ALLOWED, control.acquire(user, command));
+        Assert.assertEquals(THROTTLED, control.acquire(user, command));
+    }
+
+    @Test
+    public void invalidLimit() {
+        try {
+            new RateLimit(0, 1);
+            Assert.fail("empty bucket");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.blc.cutlet.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.command.Command;
+import ru.blc.cutlet.api.command.CommandGuard;
+import ru.blc.cutlet.api.command.CommandOutcome;
+import ru.blc.cutlet.api.command.Messenger;
+import ru.blc.cutlet.api.command.sender.DialogType;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class GuardPlanTest {
+
+    private static final Messenger OTHER_MESSENGER = new Messenger() {
+    };
+
+    @Test
+    public void dialogTypes() {
+        Command pm = new Command(null, DialogType.PRIVATE_MESSAGE, "pm", null, null, null);
+        Assert.assertTrue(pm.isAllowedIn(DialogType.PRIVATE_MESSAGE));
+        Assert.assertTrue(pm.isAllowedIn(DialogType.ALL));
+        Assert.assertFalse(pm.isAllowedIn(DialogType.CONVERSATION));
+        Assert.assertFalse(pm.isAllowedIn(null));
+
+        Command all = new Command(null, DialogType.ALL, "all", null, null, null);
+        Assert.assertTrue(all.isAllowedIn(DialogType.CONVERSATION));
+        Assert.assertTrue(all.isAllowedIn(null));
+    }
+
+    @Test
+    public void permission() {
+        TestBots.cutlet();
+        Command command = command("permission.test");
+        TestSender denied = new TestSender(1);
+        command.dispatch(denied, "test");
+        Assert.assertEquals(1, command.getMetrics().getCount(CommandOutcome.NO_PERMISSION));
+        Assert.assertEquals("sender is notified", 1, denied.getMessages().size());
+
+        command.dispatch(new TestSender(2, "permission.test"), "test");
+        Assert.assertEquals(1, command.getMetrics().getCount(CommandOutcome.SUCCESS));
+    }
+
+    @Test
+    public void messengers() {
+        TestBots.cutlet();
+        Command command = command(null);
+        Assert.assertTrue(command.isAllowed(OTHER_MESSENGER));
+        command.setAllowedMessengers(OTHER_MESSENGER);
+        Assert.assertFalse(command.isAllowed(TestSender.MESSENGER));
+        command.dispatch(new TestSender(1), "test");
+        Assert.assertEquals(1, command.getMetrics().getCount(CommandOutcome.UNSUPPORTED_MESSENGER));
+
+        Messenger[] messengers = {OTHER_MESSENGER};
+        command.setAllowedMessengers(messengers);
+        messengers[0] = TestSender.MESSENGER;
+        Assert.assertFalse("messengers are copied", command.isAllowed(TestSender.MESSENGER));
+
+        command.setAllowedMessengers(OTHER_MESSENGER, TestSender.MESSENGER);
+        command.dispatch(new TestSender(1), "test");
+        Assert.assertEquals("plan is recompiled after change", 1, command.getMetrics().getCount(CommandOutcome.SUCCESS));
+        command.setAllowedMessengers();
+        Assert.assertTrue(command.isAllowed(TestSender.MESSENGER));
+    }
+
+    @Test
+    public void customGuards() {
+        TestBots.cutlet();
+        Command command = command("permission.test");
+        command.setCooldown(1, TimeUnit.MINUTES, null);
+        List<String> calls = new ArrayList<>();
+        CommandGuard first = (c, sender, args) -> calls.add("first");
+        CommandGuard banned = (c, sender, args) -> {
+            calls.add("banned");
+            return sender.getUserSender().userId() != 1;
+        };
+        command.addGuard(first);
+        command.addGuard(banned);
+
+        command.dispatch(new TestSender(1), "test");
+        Assert.assertEquals("permission is checked before custom guards", CommandOutcome.NO_PERMISSION, last(command));
+        Assert.assertTrue(calls.isEmpty());
+
+        TestSender sender = new TestSender(1, "permission.test");
+        command.dispatch(sender, "test");
+        Assert.assertEquals(List.of("first", "banned"), calls);
+        Assert.assertEquals(1, command.getMetrics().getCount(CommandOutcome.REJECTED));
+        Assert.assertTrue("guard notifies sender itself", sender.getMessages().isEmpty());
+
+        command.removeGuard(banned);
+        command.dispatch(sender, "test");
+        Assert.assertEquals("rejected dispatch does not start cooldown", 1, command.getMetrics().getCount(CommandOutcome.SUCCESS));
+        Assert.assertEquals(List.of("first", "banned", "first"), calls);
+    }
+
+    private static CommandOutcome last(Command command) {
+        for (CommandOutcome outcome : CommandOutcome.values()) {
+            if (command.getMetrics().getCount(outcome) != 0) return outcome;
+        }
+        return null;
+    }
+
+    private static Command command(String permission) {
+        Command command = new Command(null, DialogType.ALL, "test", permission, null, null);
+        command.setCommandExecutor((c, sender, alias, args) -> {
+        });
+        return command;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.blc.cutlet.command;
+
+import ru.blc.cutlet.api.bean.ChatUser;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.command.Messenger;
+import ru.blc.cutlet.api.command.sender.CommandSender;
+import ru.blc.cutlet.api.command.sender.DialogType;
+import ru.blc.cutlet.api.command.sender.TargetSearchResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Command sender for tests, records sent messages
+ */
+public class TestSender implements CommandSender {
+
+    public static final Messenger MESSENGER = new Messenger() {
+    };
+
+    private final ChatUser user;
+    private final Set<String> permissions;
+    private final DialogType dialogType;
+    private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+    private List<TargetSearchResult> targets = Collections.emptyList();
+
+    public TestSender(long userId, String... permissions) {
+        this(userId, DialogType.PRIVATE_MESSAGE, permissions);
+    }
+
+    public TestSender(long userId, DialogType dialogType, String... permissions) {
+        this.user = new ChatUser(MESSENGER, userId);
+        this.permissions = Set.of(permissions);
+        this.dialogType = dialogType;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    public TestSender setTargets(TargetSearchResult... targets) {
+        this.targets = List.of(targets);
+        return this;
+    }
+
+    @Override
+    public List<TargetSearchResult> extractTargets(TargetSearchResult.FindCase... filter) {
+        return targets;
+    }
+
+    @Override
+    public Bot getBot() {
+        return null;
+    }
+
+    @Override
+    public ChatUser getUserSender() {
+        return user;
+    }
+
+    @Override
+    public boolean hasPermission(String permission) {
+        return permission == null || permission.isEmpty() || permissions.contains(permission) || permissions.contains("*");
+    }
+
+    @Override
+    public CommandSender getPmSender() {
+        return this;
+    }
+
+    @Override
+    public boolean isDeleteIfPM() {
+        return false;
+    }
+
+    @Override
+    public void setDeleteIfPM(boolean deleteIfPM) {
+    }
+
+    @Override
+    public String getName() {
+        return "user" + user.userId();
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        messages.add(message);
+    }
+
+    @Override
+    public void sendAndDeleteMessage(String message) {
+        messages.add(message);
+    }
+
+    @Override
+    public void sendMessage(Object message) {
+        messages.add(String.valueOf(message));
+    }
+
+    @Override
+    public void sendAndDeleteMessage(Object message) {
+        messages.add(String.valueOf(message));
+    }
+
+    @Override
+    public Messenger getMessenger() {
+        return MESSENGER;
+    }
+
+    @Override
+    public DialogType getDialogType() {
+        return dialogType;
+    }
+}
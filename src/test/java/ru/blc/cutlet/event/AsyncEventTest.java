@@ -0,0 +1,101 @@
+package ru.blc.cutlet.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.bot.BotManager;
+import ru.blc.cutlet.api.event.*;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncEventTest {
+
+    @Test
+    public void rejectedExecutor() throws Exception {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot rejecting = TestBots.create("rejecting");
+        Bot working = TestBots.create("working");
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            manager.setEventExecutor(rejecting, command -> {
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException("shutdown");
+            });
+            manager.registerEvents(rejecting, new RecordingListener("rejecting"));
+            manager.registerEvents(working, new RecordingListener("working"));
+
+            AsyncEvent event = new AsyncEvent();
+            Assert.assertSame(event, manager.callEventAsync(event).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(List.of("working", "working:monitor"), event.calls);
+            Assert.assertEquals("listeners and monitors", 2, rejected.get());
+        } finally {
+            HandlerList.unregisterAll(rejecting);
+            HandlerList.unregisterAll(working);
+        }
+    }
+
+    @Test
+    public void filterBeforeExecutor() throws Exception {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot filtered = TestBots.create("filtered");
+        Bot accepted = TestBots.create("accepted");
+        AtomicInteger submitted = new AtomicInteger();
+        try {
+            manager.setEventExecutor(filtered, command -> {
+                submitted.incrementAndGet();
+                command.run();
+            });
+            manager.registerEvents(filtered, new RecordingListener("filtered"));
+            manager.registerEvents(accepted, new RecordingListener("accepted"));
+
+            AsyncEvent event = new AsyncEvent();
+            manager.callEventAsync(event, bot -> bot == accepted).get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(List.of("accepted", "accepted:monitor"), event.calls);
+            Assert.assertEquals("filtered bot gets no tasks", 0, submitted.get());
+        } finally {
+            HandlerList.unregisterAll(filtered);
+            HandlerList.unregisterAll(accepted);
+        }
+    }
+
+    public static class AsyncEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class RecordingListener implements Listener {
+
+        private final String name;
+
+        public RecordingListener(String name) {
+            this.name = name;
+        }
+
+        @EventHandler
+        public void onEvent(AsyncEvent event) {
+            event.calls.add(name);
+        }
+
+        @EventHandler(eventPriority = EventPriority.MONITOR)
+        public void onMonitor(AsyncEvent event) {
+            event.calls.add(name + ":monitor");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ru.blc.cutlet.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.bot.BotManager;
+import ru.blc.cutlet.api.event.*;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchEventTest {
+
+    @Test
+    public void batchDelivery() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("batch");
+        try {
+            List<String> calls = new ArrayList<>();
+            manager.registerEvents(bot, new BatchListener(calls));
+            BatchedEvent first = new BatchedEvent("first");
+            BatchedEvent second = new BatchedEvent("second");
+            BatchedEvent cancelled = new BatchedEvent("cancelled");
+            cancelled.setCancelled(true);
+            OtherEvent other = new OtherEvent();
+
+            manager.callEvents(List.of(first, other, cancelled, second));
+            Assert.assertEquals("batch handler gets whole batch before next priority",
+                    List.of("batch [first, second]", "single first", "single second", "other"), calls);
+
+            calls.clear();
+            manager.callEvent(new BatchedEvent("alone"));
+            Assert.assertEquals(List.of("batch [alone]", "single alone"), calls);
+
+            calls.clear();
+            manager.callEvents(List.of(first, second), b -> false);
+            Assert.assertEquals("filtered out", List.of(), calls);
+        } finally {
+            HandlerList.unregisterAll(bot);
+        }
+    }
+
+    @Test
+    public void failureAffectsOneEvent() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("batch-failure");
+        try {
+            List<String> calls = new ArrayList<>();
+            manager.registerEvents(bot, new FailingListener(calls));
+            manager.callEvents(List.of(new BatchedEvent("first"), new BatchedEvent("fail"), new BatchedEvent("last")));
+            Assert.assertEquals(List.of("first", "last"), calls);
+        } finally {
+            HandlerList.unregisterAll(bot);
+        }
+    }
+
+    public static class BatchedEvent extends Event implements Cancellable {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        private final String name;
+        private boolean cancelled;
+
+        public BatchedEvent(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void setCancelled(boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static class OtherEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class BatchListener implements Listener {
+
+        private final List<String> calls;
+
+        public BatchListener(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @EventHandler(eventPriority = EventPriority.LOW)
+        public void onBatch(List<BatchedEvent> events) {
+            calls.add("batch " + events);
+        }
+
+        @EventHandler
+        public void onSingle(BatchedEvent event) {
+            calls.add("single " + event);
+        }
+
+        @EventHandler
+        public void onOther(OtherEvent event) {
+            calls.add("other");
+        }
+    }
+
+    public static class FailingListener implements Listener {
+
+        private final List<String> calls;
+
+        public FailingListener(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @EventHandler
+        public void onEvent(BatchedEvent event) {
+            if (event.name.equals("fail")) throw new IllegalStateException("expected");
+            calls.add(event.name);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.blc.cutlet.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.bot.BotManager;
+import ru.blc.cutlet.api.event.*;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventDispatchTest {
+
+    @Test
+    public void targeted() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot first = TestBots.create("first");
+        Bot second = TestBots.create("second");
+        try {
+            manager.registerEvents(first, new RecordingListener("first"));
+            manager.registerEvents(second, new RecordingListener("second"));
+            manager.registerEvents(second, new UnfilteredListener("spy"));
+
+            DispatchEvent event = new DispatchEvent();
+            manager.callEventFor(event, first);
+            Assert.assertEquals(List.of("spy", "first"), event.calls);
+
+            event = new DispatchEvent();
+            manager.callEventFor(event, null);
+            Assert.assertEquals(List.of("spy"), event.calls);
+
+            event = new DispatchEvent();
+            manager.callEvent(event, null);
+            Assert.assertEquals("null filter is not target", List.of("spy", "first", "second"), event.calls);
+
+            event = new DispatchEvent();
+            manager.callEvent(event, bot -> bot == second);
+            Assert.assertEquals(List.of("spy", "second"), event.calls);
+        } finally {
+            HandlerList.unregisterAll(first);
+            HandlerList.unregisterAll(second);
+        }
+    }
+
+    public static class DispatchEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class RecordingListener implements Listener {
+
+        private final String name;
+
+        public RecordingListener(String name) {
+            this.name = name;
+        }
+
+        @EventHandler
+        public void onEvent(DispatchEvent event) {
+            event.calls.add(name);
+        }
+    }
+
+    public static class UnfilteredListener implements Listener {
+
+        private final String name;
+
+        public UnfilteredListener(String name) {
+            this.name = name;
+        }
+
+        @EventHandler(eventPriority = EventPriority.LOW, ignoreFilter = true)
+        public void onEvent(DispatchEvent event) {
+            event.calls.add(name);
+        }
+    }
+}
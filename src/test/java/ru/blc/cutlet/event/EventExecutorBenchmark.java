@@ -0,0 +1,57 @@
+package ru.blc.cutlet.event;
+
+import ru.blc.cutlet.api.event.*;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compares per-event cost of reflective and generated event executors.<br>
+ * Not a unit test, run main method manually
+ */
+public class EventExecutorBenchmark {
+
+    private static final int WARMUP = 5_000_000;
+    private static final int ITERATIONS = 20_000_000;
+
+    public static void main(String[] args) throws Throwable {
+        Method method = BenchmarkListener.class.getMethod("onEvent", ExampleEvent.class);
+        EventExecutor reflective = EventExecutorFactory.reflective(ExampleEvent.class, method);
+        EventExecutor generated = EventExecutorFactory.generated(ExampleEvent.class, method);
+        BenchmarkListener listener = new BenchmarkListener();
+        ExampleEvent event = new ExampleEvent();
+
+        // dispatch loop sees many executor types, so call site should not be monomorphic
+        EventExecutor noop = (l, e) -> {
+        };
+        measure(noop, listener, event);
+        measure(reflective, listener, event);
+        measure(generated, listener, event);
+
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("round %d: reflective %.2f ns/event, generated %.2f ns/event%n", round,
+                    measure(reflective, listener, event), measure(generated, listener, event));
+        }
+        System.out.println("handled " + listener.handled + " events");
+    }
+
+    private static double measure(EventExecutor executor, Listener listener, Event event) throws EventException {
+        for (int i = 0; i < WARMUP; i++) {
+            executor.execute(listener, event);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            executor.execute(listener, event);
+        }
+        return (System.nanoTime() - start) / (double) ITERATIONS;
+    }
+
+    public static class BenchmarkListener implements Listener {
+
+        private long handled;
+
+        @EventHandler
+        public void onEvent(ExampleEvent event) {
+            handled++;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.blc.cutlet.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.BotClassLoader;
+import ru.blc.cutlet.api.event.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class EventExecutorFactoryTest {
+
+    @Test
+    public void sameLoader() throws Throwable {
+        check(CountingListener.class);
+    }
+
+    @Test
+    public void otherLoader() throws Throwable {
+        String name = CountingListener.class.getName();
+        URL location = CountingListener.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{location}, getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+                if (!className.equals(name)) return super.loadClass(className, resolve);
+                synchronized (getClassLoadingLock(className)) {
+                    Class<?> loaded = findLoadedClass(className);
+                    return loaded != null ? loaded : findClass(className);
+                }
+            }
+        }) {
+            Class<?> clazz = loader.loadClass(name);
+            Assert.assertSame(loader, clazz.getClassLoader());
+            check(clazz);
+        }
+    }
+
+    @Test
+    public void botLoader() throws Throwable {
+        String name = CountingListener.class.getName();
+        File file = File.createTempFile("bot", ".jar");
+        try {
+            String path = name.replace('.', '/') + ".class";
+            try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(file));
+                 InputStream is = getClass().getClassLoader().getResourceAsStream(path)) {
+                Assert.assertNotNull(is);
+                jar.putNextEntry(new JarEntry(path));
+                is.transferTo(jar);
+                jar.closeEntry();
+            }
+            BotClassLoader loader = new BotClassLoader(null, file, null) {
+                @Override
+                protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+                    if (!className.equals(name)) return super.loadClass(className, resolve);
+                    synchronized (getClassLoadingLock(className)) {
+                        Class<?> loaded = findLoadedClass(className);
+                        return loaded != null ? loaded : findClass(className);
+                    }
+                }
+            };
+            Class<?> clazz = loader.loadClass(name);
+            Assert.assertSame(loader, clazz.getClassLoader());
+            Assert.assertTrue("bot lookup has full access", MethodHandles.privateLookupIn(clazz, loader.getLookup()).hasFullPrivilegeAccess());
+            check(clazz);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Checks that executors are not reflective and deliver events
+     */
+    private static void check(Class<?> clazz) throws Throwable {
+        Listener listener = (Listener) clazz.getConstructor().newInstance();
+        Method single = clazz.getMethod("onEvent", ExampleEvent.class);
+        Method batch = clazz.getMethod("onEvents", List.class);
+
+        EventExecutor executor = EventExecutorFactory.create(ExampleEvent.class, single);
+        Assert.assertFalse(executor instanceof ReflectiveEventExecutor);
+        EventExecutorFactory.generated(ExampleEvent.class, single);
+        executor.execute(listener, new ExampleEvent());
+        executor.execute(listener, new Event() {
+            @Override
+            public HandlerList getHandlers() {
+                return null;
+            }
+        });
+        Assert.assertEquals(1, ((IntSupplier) listener).getAsInt());
+
+        EventExecutor batchExecutor = EventExecutorFactory.generatedBatch(ExampleEvent.class, batch);
+        ((BatchEventExecutor) batchExecutor).executeBatch(listener, List.of(new ExampleEvent(), new ExampleEvent()));
+        batchExecutor.execute(listener, new ExampleEvent());
+        Assert.assertEquals(4, ((IntSupplier) listener).getAsInt());
+    }
+
+    public static class CountingListener implements Listener, IntSupplier {
+
+        private int handled;
+
+        @EventHandler
+        public void onEvent(ExampleEvent event) {
+            handled++;
+        }
+
+        @EventHandler
+        public void onEvents(List<ExampleEvent> events) {
+            handled += events.size();
+        }
+
+        @Override
+        public int getAsInt() {
+            return handled;
+        }
+    }
+}
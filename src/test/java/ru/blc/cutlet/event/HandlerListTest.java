@@ -0,0 +1,103 @@
+package ru.blc.cutlet.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.event.*;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class HandlerListTest {
+
+    private static final EventExecutor NOOP = (listener, event) -> {
+    };
+
+    @Test
+    public void priorityOrder() {
+        Bot bot = TestBots.create("order");
+        HandlerList handlers = new HandlerList();
+        RegisteredListener high = listener(bot, EventPriority.HIGH, false);
+        RegisteredListener first = listener(bot, EventPriority.NORMAL, false);
+        RegisteredListener second = listener(bot, EventPriority.NORMAL, false);
+        RegisteredListener lowest = listener(bot, EventPriority.LOWEST, false);
+        handlers.register(high);
+        handlers.register(first);
+        handlers.registerAll(List.of(second, lowest));
+        Assert.assertArrayEquals(new RegisteredListener[]{lowest, first, second, high}, handlers.getRegisteredListeners());
+
+        handlers.unregister(first);
+        Assert.assertArrayEquals(new RegisteredListener[]{lowest, second, high}, handlers.getRegisteredListeners());
+        handlers.unregister(bot);
+        Assert.assertFalse(handlers.hasListeners());
+        Assert.assertEquals(0, handlers.getRegisteredListeners().length);
+    }
+
+    @Test
+    public void duplicates() {
+        Bot bot = TestBots.create("duplicates");
+        HandlerList handlers = new HandlerList();
+        RegisteredListener registered = listener(bot, EventPriority.NORMAL, false);
+        RegisteredListener other = listener(bot, EventPriority.NORMAL, false);
+        handlers.register(registered);
+        try {
+            handlers.registerAll(List.of(other, registered));
+            Assert.fail("duplicate registered");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            handlers.registerAll(List.of(other, other));
+            Assert.fail("duplicate registered");
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertArrayEquals("nothing registered on failure", new RegisteredListener[]{registered}, handlers.getRegisteredListeners());
+    }
+
+    @Test
+    public void targeted() {
+        Bot first = TestBots.create("target-first");
+        Bot second = TestBots.create("target-second");
+        Bot spyBot = TestBots.create("target-spy");
+        HandlerList handlers = new HandlerList();
+        RegisteredListener firstListener = listener(first, EventPriority.NORMAL, false);
+        RegisteredListener secondListener = listener(second, EventPriority.NORMAL, false);
+        RegisteredListener spy = listener(spyBot, EventPriority.HIGH, true);
+        handlers.registerAll(List.of(firstListener, secondListener, spy));
+
+        Assert.assertArrayEquals(new RegisteredListener[]{firstListener, spy}, handlers.getTargetedListeners(first));
+        Assert.assertArrayEquals(new RegisteredListener[]{secondListener, spy}, handlers.getTargetedListeners(second));
+        Assert.assertArrayEquals(new RegisteredListener[]{spy}, handlers.getTargetedListeners(spyBot));
+        Assert.assertArrayEquals(new RegisteredListener[]{spy}, handlers.getTargetedListeners(null));
+        Assert.assertArrayEquals(new RegisteredListener[]{spy}, handlers.getBotListeners(spyBot));
+        Assert.assertEquals(Set.of(first, second, spyBot), handlers.getListeningBots());
+        Assert.assertTrue(handlers.hasListeners(bot -> false));
+
+        handlers.unregister(spyBot);
+        Assert.assertArrayEquals(new RegisteredListener[]{firstListener}, handlers.getTargetedListeners(first));
+        Assert.assertTrue(handlers.hasListeners(bot -> bot == second));
+        Assert.assertFalse(handlers.hasListeners(bot -> false));
+    }
+
+    @Test
+    public void manyRegistrations() {
+        Bot bot = TestBots.create("many");
+        HandlerList handlers = new HandlerList();
+        List<RegisteredListener> listeners = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            RegisteredListener listener = listener(bot, EventPriority.values()[i % 5], false);
+            listeners.add(listener);
+            handlers.register(listener);
+        }
+        Assert.assertEquals(listeners.size(), handlers.getRegisteredListeners().length);
+        Assert.assertEquals(listeners.size(), handlers.getTargetedListeners(bot).length);
+        handlers.unregister(bot);
+        Assert.assertFalse(handlers.hasListeners());
+    }
+
+    static RegisteredListener listener(Bot bot, EventPriority priority, boolean ignoringFilter) {
+        return new RegisteredListener(new Listener() {
+        }, NOOP, priority, bot, false, ignoringFilter);
+    }
+}
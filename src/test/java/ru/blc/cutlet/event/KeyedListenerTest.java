@@ -0,0 +1,185 @@
+package ru.blc.cutlet.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.bot.BotManager;
+import ru.blc.cutlet.api.event.*;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class KeyedListenerTest {
+
+    @Test
+    public void keyedDispatch() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("keyed");
+        try {
+            manager.registerEvents(bot, new ChatListener("all"));
+            manager.registerEvents(bot, new ChatListener("first"), 1);
+            manager.registerEvents(bot, new ChatListener("second"), 2);
+
+            ChatEvent event = new ChatEvent(1);
+            manager.callEvent(event);
+            Assert.assertEquals(List.of("all", "first"), event.calls);
+
+            event = new ChatEvent(3);
+            manager.callEvent(event);
+            Assert.assertEquals(List.of("all"), event.calls);
+
+            PlainEvent plain = new PlainEvent();
+            manager.callEvent(plain);
+            Assert.assertEquals("not keyed event type gets all listeners", 3, plain.calls.size());
+        } finally {
+            HandlerList.unregisterAll(bot);
+        }
+        ChatEvent event = new ChatEvent(1);
+        manager.callEvent(event);
+        Assert.assertTrue(event.calls.isEmpty());
+    }
+
+    @Test
+    public void keyIndex() {
+        Bot bot = TestBots.create("key-index");
+        HandlerList handlers = new HandlerList();
+        RegisteredListener unkeyed = HandlerListTest.listener(bot, EventPriority.NORMAL, false);
+        RegisteredListener first = keyed(bot, EventPriority.HIGH, 1);
+        RegisteredListener firstLow = keyed(bot, EventPriority.LOW, 1);
+        RegisteredListener second = keyed(bot, EventPriority.NORMAL, 2);
+        handlers.registerAll(List.of(unkeyed, first, firstLow, second));
+
+        Assert.assertArrayEquals(new RegisteredListener[]{unkeyed}, handlers.getUnkeyedListeners());
+        Assert.assertArrayEquals(new RegisteredListener[]{firstLow, first}, handlers.getKeyedListeners(1));
+        Assert.assertArrayEquals(new RegisteredListener[]{second}, handlers.getKeyedListeners(2));
+        Assert.assertEquals(0, handlers.getKeyedListeners(3).length);
+        Assert.assertArrayEquals(new RegisteredListener[]{firstLow, unkeyed, second, first}, handlers.getRegisteredListeners());
+
+        RegisteredListener[] firstKey = handlers.getKeyedListeners(1);
+        RegisteredListener third = keyed(bot, EventPriority.NORMAL, 3);
+        handlers.register(third);
+        Assert.assertSame("other keys are not copied", firstKey, handlers.getKeyedListeners(1));
+        Assert.assertArrayEquals(new RegisteredListener[]{third}, handlers.getKeyedListeners(3));
+
+        handlers.unregister(second);
+        Assert.assertEquals(0, handlers.getKeyedListeners(2).length);
+        Assert.assertSame(firstKey, handlers.getKeyedListeners(1));
+        Assert.assertEquals(4, handlers.getRegisteredListeners().length);
+        handlers.unregister(bot);
+        Assert.assertFalse(handlers.hasListeners());
+        Assert.assertEquals(0, handlers.getKeyedListeners(1).length);
+    }
+
+    @Test
+    public void snapshotIsImmutable() {
+        Bot bot = TestBots.create("keyed-snapshot");
+        HandlerList handlers = new HandlerList();
+        RegisteredListener unkeyed = HandlerListTest.listener(bot, EventPriority.NORMAL, false);
+        RegisteredListener first = keyed(bot, EventPriority.NORMAL, 1);
+        handlers.registerAll(List.of(unkeyed, first));
+        RegisteredListener[] all = handlers.getRegisteredListeners();
+        HandlerList.KeyedListeners listeners = handlers.getListeners(1);
+
+        RegisteredListener added = keyed(bot, EventPriority.NORMAL, 1);
+        handlers.registerAll(List.of(HandlerListTest.listener(bot, EventPriority.NORMAL, false), added));
+        Assert.assertArrayEquals(new RegisteredListener[]{unkeyed}, listeners.unkeyed());
+        Assert.assertArrayEquals(new RegisteredListener[]{first}, listeners.keyed());
+        Assert.assertArrayEquals(new RegisteredListener[]{unkeyed, first}, all);
+        Assert.assertArrayEquals(new RegisteredListener[]{first, added}, handlers.getListeners(1).keyed());
+        Assert.assertEquals(2, handlers.getListeners(1).unkeyed().length);
+
+        handlers.unregister(first);
+        Assert.assertArrayEquals(new RegisteredListener[]{first}, listeners.keyed());
+        Assert.assertArrayEquals(new RegisteredListener[]{added}, handlers.getKeyedListeners(1));
+    }
+
+    @Test
+    public void manyKeys() {
+        Bot bot = TestBots.create("many-keys");
+        HandlerList handlers = new HandlerList();
+        int keys = 20_000;
+        for (int i = 0; i < keys; i++) {
+            handlers.register(keyed(bot, EventPriority.NORMAL, i));
+        }
+        for (int i = 0; i < keys; i++) {
+            Assert.assertEquals(1, handlers.getKeyedListeners(i).length);
+        }
+        Assert.assertEquals(keys, handlers.getRegisteredListeners().length);
+        for (int i = 0; i < keys; i += 2) {
+            handlers.unregister(handlers.getKeyedListeners(i)[0]);
+        }
+        Assert.assertEquals(keys / 2, handlers.getRegisteredListeners().length);
+        Assert.assertEquals(0, handlers.getKeyedListeners(0).length);
+        Assert.assertEquals(1, handlers.getKeyedListeners(1).length);
+        handlers.unregister(bot);
+        Assert.assertFalse(handlers.hasListeners());
+    }
+
+    private static RegisteredListener keyed(Bot bot, EventPriority priority, long key) {
+        return new RegisteredListener(new Listener() {
+        }, (listener, event) -> {
+        }, priority, bot, false, false, ChatEvent.class, true, key);
+    }
+
+    public static class ChatEvent extends Event implements KeyedEvent {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        private final long chat;
+        private final List<String> calls = new ArrayList<>();
+
+        public ChatEvent(long chat) {
+            this.chat = chat;
+        }
+
+        @Override
+        public long getEventKey() {
+            return chat;
+        }
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class PlainEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class ChatListener implements Listener {
+
+        private final String name;
+
+        public ChatListener(String name) {
+            this.name = name;
+        }
+
+        @EventHandler
+        public void onChat(ChatEvent event) {
+            event.calls.add(name);
+        }
+
+        @EventHandler
+        public void onPlain(PlainEvent event) {
+            event.calls.add(name);
+        }
+    }
+}
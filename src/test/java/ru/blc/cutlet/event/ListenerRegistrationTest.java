@@ -0,0 +1,131 @@
+package ru.blc.cutlet.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.bot.BotManager;
+import ru.blc.cutlet.api.event.*;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ListenerRegistrationTest {
+
+    @Test
+    public void sameClassInstances() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("instances");
+        try {
+            CountingListener first = new CountingListener();
+            CountingListener second = new CountingListener();
+            manager.registerEvents(bot, first);
+            manager.registerEvents(bot, second);
+            RegisteredListener[] listeners = ParentEvent.getHandlerList().getRegisteredListeners();
+            Assert.assertEquals("both handlers of both instances", 4, listeners.length);
+            Assert.assertSame(first, listeners[0].getListener());
+            Assert.assertSame(first, listeners[1].getListener());
+            Assert.assertSame(second, listeners[2].getListener());
+            Assert.assertSame(second, listeners[3].getListener());
+
+            manager.callEvent(new ParentEvent());
+            Assert.assertEquals(1, first.parent);
+            Assert.assertEquals(1, second.parent);
+
+            HandlerList.unregisterAll(first);
+            manager.callEvent(new ParentEvent());
+            Assert.assertEquals(1, first.parent);
+            Assert.assertEquals(2, second.parent);
+        } finally {
+            HandlerList.unregisterAll(bot);
+        }
+    }
+
+    @Test
+    public void subclassWithoutHandlerList() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("subclass");
+        try {
+            CountingListener listener = new CountingListener();
+            manager.registerEvents(bot, listener);
+            Assert.assertEquals("child handler is registered at handler list of parent",
+                    2, ParentEvent.getHandlerList().getRegisteredListeners().length);
+
+            manager.callEvent(new ChildEvent());
+            Assert.assertEquals(1, listener.child);
+            Assert.assertEquals("parent handler gets child events too", 1, listener.parent);
+            manager.callEvent(new ParentEvent());
+            Assert.assertEquals(1, listener.child);
+            Assert.assertEquals(2, listener.parent);
+        } finally {
+            HandlerList.unregisterAll(bot);
+        }
+    }
+
+    @Test
+    public void invalidHandlerSkipped() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Bot bot = TestBots.create("invalid");
+        try {
+            InvalidListener listener = new InvalidListener();
+            manager.registerEvents(bot, listener);
+            manager.callEvent(new ParentEvent());
+            Assert.assertEquals(List.of("valid"), listener.calls);
+        } finally {
+            HandlerList.unregisterAll(bot);
+        }
+    }
+
+    public static class ParentEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class ChildEvent extends ParentEvent {
+    }
+
+    public static class CountingListener implements Listener {
+
+        private int parent;
+        private int child;
+
+        @EventHandler
+        public void onParent(ParentEvent event) {
+            parent++;
+        }
+
+        @EventHandler
+        public void onChild(ChildEvent event) {
+            child++;
+        }
+    }
+
+    public static class InvalidListener implements Listener {
+
+        private final List<String> calls = new ArrayList<>();
+
+        @EventHandler
+        public void onEvent(ParentEvent event) {
+            calls.add("valid");
+        }
+
+        @EventHandler
+        public void onTwo(ParentEvent event, String other) {
+            calls.add("two parameters");
+        }
+
+        @EventHandler
+        public void onString(String event) {
+            calls.add("not event");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.blc.cutlet.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.bot.BotManager;
+import ru.blc.cutlet.api.event.*;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ObservedEventTest {
+
+    @Test
+    public void eventCreatedOnlyIfObserved() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        HandlerList handlers = ObservedEvent.getHandlerList();
+        AtomicInteger created = new AtomicInteger();
+        Assert.assertFalse(handlers.hasListeners());
+        Assert.assertNull(manager.callEventIfObserved(handlers, () -> {
+            created.incrementAndGet();
+            return new ObservedEvent();
+        }));
+        Assert.assertEquals(0, created.get());
+
+        Bot bot = TestBots.create("observer");
+        try {
+            ObservingListener listener = new ObservingListener();
+            manager.registerEvents(bot, listener);
+            Assert.assertTrue(handlers.hasListeners());
+            Assert.assertFalse(handlers.hasListeners(b -> b != bot));
+            Assert.assertNull(manager.callEventIfObserved(handlers, () -> {
+                created.incrementAndGet();
+                return new ObservedEvent();
+            }, b -> b != bot));
+            Assert.assertEquals("filter rejects all listening bots", 0, created.get());
+
+            ObservedEvent event = manager.callEventIfObserved(handlers, ObservedEvent::new, b -> b == bot);
+            Assert.assertNotNull(event);
+            Assert.assertEquals(1, listener.handled);
+
+            Assert.assertTrue("broken filter is reported at dispatch", handlers.hasListeners(b -> {
+                throw new IllegalStateException("expected");
+            }));
+        } finally {
+            HandlerList.unregisterAll(bot);
+        }
+        Assert.assertFalse(handlers.hasListeners());
+    }
+
+    @Test
+    public void unfilteredListenerObservesAll() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        HandlerList handlers = ObservedEvent.getHandlerList();
+        Bot bot = TestBots.create("unfiltered-observer");
+        try {
+            manager.registerEvents(bot, new UnfilteredListener());
+            Assert.assertTrue(handlers.hasListeners(b -> false));
+            Assert.assertNotNull(manager.callEventIfObserved(handlers, ObservedEvent::new, b -> false));
+        } finally {
+            HandlerList.unregisterAll(bot);
+        }
+    }
+
+    public static class ObservedEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class ObservingListener implements Listener {
+
+        private int handled;
+
+        @EventHandler
+        public void onEvent(ObservedEvent event) {
+            handled++;
+        }
+    }
+
+    public static class UnfilteredListener implements Listener {
+
+        @EventHandler(ignoreFilter = true)
+        public void onEvent(ObservedEvent event) {
+        }
+    }
+}
@@ -2,7 +2,13 @@ package ru.blc.cutlet.permission;
 
 import org.junit.Assert;
 import org.junit.Test;
+import ru.blc.cutlet.api.permission.CompiledPermission;
 import ru.blc.cutlet.api.permission.PermissionCalculator;
+import ru.blc.cutlet.api.permission.PermissionDecisionCache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 public class PermissionCalculatorTest {
 
@@ -21,10 +27,105 @@ public class PermissionCalculatorTest {
         Assert.assertFalse("failed testing permission system",PermissionCalculator.isPermissionAllows("example.test.permission", "example.*"));
     }
 
+    @Test
+    public void compiledPermission() {
+        Assert.assertTrue(PermissionCalculator.isPermissionAllows("-example.test", "example.test"));
+        Assert.assertTrue(PermissionCalculator.isPermissionAllows("--Example.*", "-example.TEST.permission"));
+        Assert.assertTrue(PermissionCalculator.isPermissionAllows("example.test.", "example.test"));
+        Assert.assertFalse(PermissionCalculator.isPermissionAllows("example.test", "example.test2"));
+        Assert.assertFalse(PermissionCalculator.isPermissionAllows("example.test", "example.test.permission"));
+        Assert.assertFalse(PermissionCalculator.isPermissionAllows(null, ""));
+        Assert.assertFalse(PermissionCalculator.isPermissionAllows("*", null));
+        Assert.assertFalse("broken base should not throw", PermissionCalculator.isPermissionAllows(".", "example"));
+
+        CompiledPermission compiled = CompiledPermission.of("example.*.permission");
+        Assert.assertEquals(3, compiled.size());
+        Assert.assertTrue(compiled.isWildcard(1));
+        Assert.assertTrue(compiled.allows(CompiledPermission.of("EXAMPLE.test.Permission")));
+        Assert.assertFalse(compiled.allows(CompiledPermission.of("example.test")));
+    }
+
+    @Test
+    public void compiledPermissionCache() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        AtomicInteger wrong = new AtomicInteger();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    String permission = "cache.user" + (i % 10_000) + ".test";
+                    CompiledPermission compiled = CompiledPermission.of(permission);
+                    if (!compiled.getPermission().equals(permission) || !compiled.allows(compiled)) wrong.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals("arbitrary permissions do not break cache", 0, wrong.get());
+        Assert.assertSame("used permission stays cached", CompiledPermission.of("example.hot"), CompiledPermission.of("example.hot"));
+    }
+
     @Test
     public void setCalculator() {
         PermissionCalculator.setCalculator((s1, s2)->true);
         Assert.assertTrue(PermissionCalculator.isPermissionAllows("p1", "p2"));
         PermissionCalculator.setCalculator(null);
     }
+
+    @Test
+    public void decisionCache() {
+        AtomicInteger calls = new AtomicInteger();
+        PermissionDecisionCache cache = new PermissionDecisionCache(64, 1, TimeUnit.MINUTES);
+        PermissionCalculator.setDecisionCache(cache);
+        try {
+            PermissionCalculator.setCalculator((base, check) -> {
+                calls.incrementAndGet();
+                return base.equals(check);
+            });
+            Assert.assertTrue(PermissionCalculator.isPermissionAllows("p1", "p1"));
+            Assert.assertTrue(PermissionCalculator.isPermissionAllows("p1", "p1"));
+            Assert.assertFalse(PermissionCalculator.isPermissionAllows("p1", "p2"));
+            Assert.assertEquals(2, calls.get());
+            Assert.assertEquals(1, cache.getHits());
+            Assert.assertEquals(2, cache.getMisses());
+
+            cache.invalidateBase("p1");
+            Assert.assertTrue(PermissionCalculator.isPermissionAllows("p1", "p1"));
+            Assert.assertEquals(3, calls.get());
+
+            PermissionCalculator.setCalculator((base, check) -> true);
+            Assert.assertEquals(0, cache.size());
+            Assert.assertTrue("decision of old calculator is cleared", PermissionCalculator.isPermissionAllows("p1", "p2"));
+        } finally {
+            PermissionCalculator.setCalculator(null);
+            PermissionCalculator.setDecisionCache(null);
+        }
+    }
+
+    @Test
+    public void decisionCacheBounds() {
+        PermissionDecisionCache cache = new PermissionDecisionCache(32, 1, TimeUnit.MINUTES);
+        cache.put("base", "hot", true);
+        Assert.assertEquals(Boolean.TRUE, cache.get("base", "hot"));
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("base", "cold" + i, false);
+        }
+        Assert.assertTrue(cache.size() <= 32);
+        Assert.assertEquals("used decision survives scan", Boolean.TRUE, cache.get("base", "hot"));
+        cache.invalidatePrefix("HO");
+        Assert.assertNull(cache.get("base", "hot"));
+
+        cache.put("Admin.Base", "check", true);
+        cache.put("other", "check", true);
+        cache.invalidateBase("admin.base");
+        Assert.assertNull("base is matched ignoring case", cache.get("Admin.Base", "check"));
+        Assert.assertEquals(Boolean.TRUE, cache.get("other", "check"));
+
+        PermissionDecisionCache expiring = new PermissionDecisionCache(32, 1, TimeUnit.NANOSECONDS);
+        expiring.put("base", "check", true);
+        LockSupport.parkNanos(1000);
+        Assert.assertNull(expiring.get("base", "check"));
+        Assert.assertEquals(1, expiring.getExpirations());
+    }
 }
@@ -0,0 +1,69 @@
+package ru.blc.cutlet.permission;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bean.ChatUser;
+import ru.blc.cutlet.api.command.Messenger;
+import ru.blc.cutlet.api.permission.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class PermissionResolverTest {
+
+    private static final Messenger MESSENGER = new Messenger() {
+    };
+
+    @Test
+    public void inheritance() throws IOException {
+        File file = File.createTempFile("permissions", ".properties");
+        try {
+            PropertiesPermissionDataSource source = new PropertiesPermissionDataSource(file, Map.of("test", MESSENGER));
+            PermissionResolver resolver = new PermissionResolver(source);
+            resolver.setGroup(new PermissionGroup("default", List.of(), List.of("help")));
+            resolver.setGroup(new PermissionGroup("moderator", List.of(), List.of("ban.*", "-ban.admin")));
+            resolver.setGroup(new PermissionGroup("admin", List.of("moderator"), List.of("admin.*")));
+            ChatUser admin = new ChatUser(MESSENGER, 1);
+            ChatUser user = new ChatUser(MESSENGER, 2);
+            resolver.setUser(new UserPermissions(admin, List.of("Admin"), List.of("-admin.shutdown")));
+
+            Assert.assertTrue(resolver.hasPermission(user, "help"));
+            Assert.assertFalse(resolver.hasPermission(user, "ban.user"));
+            Assert.assertTrue(resolver.hasPermission(admin, "help"));
+            Assert.assertTrue("inherited", resolver.hasPermission(admin, "ban.user"));
+            Assert.assertFalse(resolver.hasPermission(admin, "ban.admin"));
+            Assert.assertTrue(resolver.hasPermission(admin, "admin.reload"));
+            Assert.assertFalse(resolver.hasPermission(admin, "admin.shutdown"));
+
+            resolver.setGroup(new PermissionGroup("moderator", List.of(), List.of("kick")));
+            Assert.assertFalse("group change updates users", resolver.hasPermission(admin, "ban.user"));
+            Assert.assertTrue(resolver.hasPermission(admin, "kick"));
+
+            resolver.save();
+            PermissionResolver loaded = new PermissionResolver(source);
+            loaded.reload();
+            Assert.assertTrue(loaded.hasPermission(admin, "kick"));
+            Assert.assertFalse(loaded.hasPermission(admin, "admin.shutdown"));
+            Assert.assertTrue(loaded.hasPermission(user, "help"));
+
+            loaded.removeUser(admin);
+            Assert.assertFalse(loaded.hasPermission(admin, "kick"));
+            Assert.assertSame(loaded.getPermissions(user), loaded.getPermissions(admin));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void inheritanceCycle() {
+        PermissionResolver resolver = new PermissionResolver(new PropertiesPermissionDataSource(new File("unused"), Map.of()));
+        resolver.setGroup(new PermissionGroup("a", List.of("b"), List.of("a")));
+        resolver.setGroup(new PermissionGroup("b", List.of("a"), List.of("b")));
+        ChatUser user = new ChatUser(null, 1);
+        resolver.setUser(new UserPermissions(user, List.of("a"), List.of()));
+        Assert.assertTrue(resolver.hasPermission(user, "a"));
+        Assert.assertTrue(resolver.hasPermission(user, "b"));
+    }
+}
@@ -0,0 +1,114 @@
+package ru.blc.cutlet.permission;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.permission.PermissionCalculator;
+import ru.blc.cutlet.api.permission.PermissionSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PermissionSetTest {
+
+    @Test
+    public void allows() {
+        PermissionSet set = PermissionSet.of("example.test", "admin.*", "*.info", "other.*.permission");
+        Assert.assertTrue(set.allows("Example.Test"));
+        Assert.assertTrue(set.allows("admin.ban.user"));
+        Assert.assertFalse(set.allows("admin"));
+        Assert.assertTrue(set.allows("anything.info"));
+        Assert.assertTrue(set.allows("other.some.permission"));
+        Assert.assertFalse(set.allows("other.some.thing"));
+        Assert.assertTrue(set.allows("example.*"));
+        Assert.assertFalse(set.allows("example.test.more"));
+        Assert.assertTrue(set.allows(""));
+        Assert.assertFalse(set.allows((String) null));
+        Assert.assertFalse(PermissionSet.EMPTY.allows("example"));
+    }
+
+    @Test
+    public void negations() {
+        PermissionSet set = PermissionSet.of("admin.*", "-admin.ban", "-example.*", "example.test", "*", "-*.secret");
+        Assert.assertTrue(set.allows("admin.kick"));
+        Assert.assertFalse("more literal segments win", set.allows("admin.ban"));
+        Assert.assertTrue("deeper grant is more specific", set.allows("admin.ban.list"));
+        Assert.assertFalse(set.allows("example.other"));
+        Assert.assertTrue(set.allows("example.test"));
+        Assert.assertTrue(set.allows("anything"));
+        Assert.assertFalse(set.allows("some.secret"));
+        Assert.assertFalse("equal grants, deny wins", PermissionSet.of("example.*", "-example.*").allows("example.test"));
+    }
+
+    @Test
+    public void equalGrantAndDeny() {
+        Assert.assertFalse(PermissionSet.of("example.test", "-example.test").allows("example.test"));
+        Assert.assertFalse("order does not matter", PermissionSet.of("-example.test", "example.test").allows("example.test"));
+        Assert.assertFalse(PermissionSet.of("*", "-*").allows("anything"));
+        Assert.assertTrue("more literal segments win over deny", PermissionSet.of("example.test", "-example.*").allows("example.test"));
+        Assert.assertTrue("longer grant wins over deny", PermissionSet.of("example.*.*", "-example.*").allows("example.a.b"));
+    }
+
+    @Test
+    public void superPermissionInCheck() {
+        PermissionSet set = PermissionSet.of("example.test.one", "other.*");
+        Assert.assertTrue(set.allows("example.*.one"));
+        Assert.assertTrue(set.allows("example.*.*"));
+        Assert.assertTrue(set.allows("*.test.one"));
+        Assert.assertFalse(PermissionSet.of("example.test.one").allows("*.test.two"));
+        Assert.assertTrue("other.* allows longer permissions", set.allows("*.test.two"));
+        Assert.assertFalse("shorter check is not allowed by longer grant", set.allows("example.*"));
+        Assert.assertTrue(set.allows("other.*"));
+        Assert.assertFalse(set.allows("*"));
+        Assert.assertFalse(PermissionSet.of("example.test", "-example.test").allows("example.*"));
+        Assert.assertFalse("deny of one branch is as specific as grant of other", PermissionSet.of("example.one", "-example.two").allows("example.*"));
+        Assert.assertTrue(PermissionSet.of("example.one", "-example.*.two").allows("example.*"));
+    }
+
+    /**
+     * Set gives same result as choosing best matching grant by {@link PermissionCalculator#basePermissionsCheck(String, String)}
+     */
+    @Test
+    public void randomEquivalence() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            List<String> grants = new ArrayList<>();
+            int count = 1 + random.nextInt(5);
+            for (int j = 0; j < count; j++) {
+                grants.add((random.nextInt(3) == 0 ? "-" : "") + randomPermission(random));
+            }
+            String check = randomPermission(random);
+            Assert.assertEquals(grants + " " + check, expected(grants, check), PermissionSet.of(grants).allows(check));
+        }
+    }
+
+    private static String randomPermission(Random random) {
+        String[] segments = {"a", "b", "c", "*"};
+        StringBuilder permission = new StringBuilder();
+        int size = 1 + random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) permission.append('.');
+            permission.append(segments[random.nextInt(segments.length)]);
+        }
+        return permission.toString();
+    }
+
+    /**
+     * Best grant has more literal segments, then more segments, then denies
+     */
+    private static boolean expected(List<String> grants, String check) {
+        long best = -1;
+        for (String grant : grants) {
+            boolean deny = grant.startsWith("-");
+            String body = deny ? grant.substring(1) : grant;
+            if (!PermissionCalculator.basePermissionsCheck(body, check)) continue;
+            String[] segments = body.split("\\.");
+            int literal = 0;
+            for (String segment : segments) {
+                if (!segment.equals("*")) literal++;
+            }
+            best = Math.max(best, ((long) literal << 32) | ((long) segments.length << 1) | (deny ? 1 : 0));
+        }
+        return best >= 0 && (best & 1) == 0;
+    }
+}
@@ -0,0 +1,115 @@
+package ru.blc.cutlet.permission;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bean.ChatUser;
+import ru.blc.cutlet.api.command.Messenger;
+import ru.blc.cutlet.api.permission.PermissionData;
+import ru.blc.cutlet.api.permission.PermissionGroup;
+import ru.blc.cutlet.api.permission.PropertiesPermissionDataSource;
+import ru.blc.cutlet.api.permission.UserPermissions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class PropertiesPermissionDataSourceTest {
+
+    private static final Messenger TELEGRAM = new Messenger() {
+    };
+    private static final Messenger DISCORD = new Messenger() {
+    };
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        File file = tempFile();
+        PropertiesPermissionDataSource source = new PropertiesPermissionDataSource(file, Map.of("telegram", TELEGRAM));
+        ChatUser user = new ChatUser(TELEGRAM, 123);
+        ChatUser local = new ChatUser(null, 5);
+        source.save(List.of(new PermissionGroup("default", List.of(), List.of("help")),
+                        new PermissionGroup("admin", List.of("default"), List.of("admin.*", "-admin.shutdown"))),
+                List.of(new UserPermissions(user, List.of("admin"), List.of("bot.debug")),
+                        new UserPermissions(local, List.of(), List.of("console"))));
+
+        Map<String, PermissionGroup> groups = new HashMap<>();
+        for (PermissionGroup group : source.loadGroups()) {
+            groups.put(group.name(), group);
+        }
+        Assert.assertEquals(List.of("default"), groups.get("admin").parents());
+        Assert.assertEquals(List.of("admin.*", "-admin.shutdown"), groups.get("admin").permissions());
+        Assert.assertEquals(List.of("help"), groups.get("default").permissions());
+
+        Map<ChatUser, UserPermissions> users = users(source);
+        Assert.assertEquals(List.of("admin"), users.get(user).groups());
+        Assert.assertEquals(List.of("bot.debug"), users.get(user).permissions());
+        Assert.assertEquals(List.of("console"), users.get(local).permissions());
+        Assert.assertFalse("temp file is moved", new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void unknownMessengersAreKept() throws IOException {
+        File file = tempFile();
+        ChatUser telegramUser = new ChatUser(TELEGRAM, 1);
+        ChatUser discordUser = new ChatUser(DISCORD, 2);
+        new PropertiesPermissionDataSource(file, Map.of("telegram", TELEGRAM, "discord", DISCORD)).save(List.of(),
+                List.of(new UserPermissions(telegramUser, List.of(), List.of("telegram.perm")),
+                        new UserPermissions(discordUser, List.of("admin"), List.of("discord.perm"))));
+
+        // discord bot is not loaded now
+        PropertiesPermissionDataSource telegramOnly = new PropertiesPermissionDataSource(file, Map.of("telegram", TELEGRAM));
+        Map<ChatUser, UserPermissions> users = users(telegramOnly);
+        Assert.assertEquals(Set.of(telegramUser), users.keySet());
+        telegramOnly.save(List.of(), List.of(new UserPermissions(telegramUser, List.of(), List.of("changed"))));
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(text.contains("user.discord.2.permissions=discord.perm"));
+
+        users = users(new PropertiesPermissionDataSource(file, Map.of("telegram", TELEGRAM, "discord", DISCORD)));
+        Assert.assertEquals(List.of("changed"), users.get(telegramUser).permissions());
+        Assert.assertEquals("user of unknown messenger survives reload and save", List.of("discord.perm"), users.get(discordUser).permissions());
+        Assert.assertEquals(List.of("admin"), users.get(discordUser).groups());
+    }
+
+    @Test
+    public void loadReadsGroupsAndUsers() throws IOException {
+        File file = tempFile();
+        PropertiesPermissionDataSource source = new PropertiesPermissionDataSource(file, Map.of("telegram", TELEGRAM));
+        ChatUser user = new ChatUser(TELEGRAM, 7);
+        source.save(List.of(new PermissionGroup("default", List.of(), List.of("help"))),
+                List.of(new UserPermissions(user, List.of(), List.of("bot.debug"))));
+        PermissionData data = source.load();
+        Assert.assertEquals(1, data.groups().size());
+        Assert.assertEquals("default", data.groups().iterator().next().name());
+        Assert.assertEquals(1, data.users().size());
+        Assert.assertEquals(user, data.users().iterator().next().user());
+    }
+
+    @Test
+    public void userOfUnnamedMessengerIsNotSkipped() throws IOException {
+        File file = tempFile();
+        PropertiesPermissionDataSource source = new PropertiesPermissionDataSource(file, Map.of("telegram", TELEGRAM));
+        try {
+            source.save(List.of(), List.of(new UserPermissions(new ChatUser(DISCORD, 1), List.of(), List.of("perm"))));
+            Assert.fail("user would be lost");
+        } catch (IllegalArgumentException expected) {
+        }
+        Assert.assertFalse("nothing is written", file.exists());
+    }
+
+    private static Map<ChatUser, UserPermissions> users(PropertiesPermissionDataSource source) throws IOException {
+        Map<ChatUser, UserPermissions> users = new HashMap<>();
+        for (UserPermissions user : source.loadUsers()) {
+            users.put(user.user(), user);
+        }
+        return users;
+    }
+
+    private static File tempFile() throws IOException {
+        File directory = Files.createTempDirectory("cutlet-permissions").toFile();
+        directory.deleteOnExit();
+        File file = new File(directory, "permissions.properties");
+        file.deleteOnExit();
+        return file;
+    }
+}
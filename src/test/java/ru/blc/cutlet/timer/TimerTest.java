@@ -0,0 +1,94 @@
+package ru.blc.cutlet.timer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.Bot;
+import ru.blc.cutlet.api.timer.CutletTask;
+import ru.blc.cutlet.api.timer.TaskState;
+import ru.blc.cutlet.api.timer.Timer;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TimerTest {
+
+    /**
+     * Only first timer gets timer thread, so all tests share it
+     */
+    private static final Timer timer = new Timer(TestBots.cutlet());
+
+    @Test
+    public void cancel() {
+        Bot bot = TestBots.create("timer");
+        CutletTask later = timer.runTaskLaterAsync(bot, 1, TimeUnit.MINUTES, () -> {
+        });
+        CutletTask repeating = timer.runTaskTimerAsync(bot, 1, TimeUnit.MINUTES, () -> {
+        });
+        CutletTask other = timer.runTaskLaterAsync(bot, 1, TimeUnit.MINUTES, () -> {
+        });
+        Assert.assertEquals(3, timer.getWaitingTasks());
+        Assert.assertEquals(TaskState.WAITING, later.getState());
+
+        later.cancel();
+        Assert.assertTrue(later.isCancelled());
+        Assert.assertEquals(2, timer.getWaitingTasks());
+        later.cancel();
+        Assert.assertEquals("second cancel does nothing", 2, timer.getWaitingTasks());
+
+        timer.cancelAll(bot);
+        Assert.assertTrue(repeating.isCancelled());
+        Assert.assertTrue(other.isCancelled());
+        Assert.assertEquals(0, timer.getWaitingTasks());
+        timer.cancelAll(bot);
+    }
+
+    @Test
+    public void earlierTaskWakesParkedTimer() throws InterruptedException {
+        Bot bot = TestBots.create("timer-wake");
+        try {
+            timer.runTaskLaterAsync(bot, 1, TimeUnit.MINUTES, () -> {
+            });
+            // timer thread parks until its idle limit of 1 second
+            Thread.sleep(50);
+            CountDownLatch ran = new CountDownLatch(1);
+            long start = System.nanoTime();
+            timer.runTaskLaterAsync(bot, 50, TimeUnit.MILLISECONDS, ran::countDown);
+            Assert.assertTrue("task did not run", ran.await(5, TimeUnit.SECONDS));
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Assert.assertTrue("task ran after " + elapsed + " ms", elapsed >= 50 && elapsed < 700);
+        } finally {
+            timer.cancelAll(bot);
+        }
+    }
+
+    @Test
+    public void cancelledRepeatingTaskIsNotRescheduled() throws InterruptedException {
+        Bot bot = TestBots.create("timer-repeat");
+        try {
+            AtomicInteger runs = new AtomicInteger();
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CutletTask task = timer.runTaskTimerAsync(bot, 20, TimeUnit.MILLISECONDS, () -> {
+                runs.incrementAndGet();
+                running.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Assert.assertTrue("task did not run", running.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(TaskState.RUNNING, task.getState());
+            task.cancel();
+            release.countDown();
+            Thread.sleep(200);
+            Assert.assertEquals(1, runs.get());
+            Assert.assertEquals(TaskState.CANCELLED, task.getState());
+            Assert.assertEquals(0, timer.getWaitingTasks());
+        } finally {
+            timer.cancelAll(bot);
+        }
+    }
+}
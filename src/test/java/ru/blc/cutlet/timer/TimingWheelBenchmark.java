@@ -0,0 +1,103 @@
+package ru.blc.cutlet.timer;
+
+import org.jetbrains.annotations.NotNull;
+import ru.blc.cutlet.api.timer.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link TimingWheel} with {@link DelayQueue} that timer used before.<br>
+ * Schedules many short timeouts, cancels most of them (as dialog expiry that is cancelled by answer)
+ * and expires the rest. Run with {@code [timeouts] [rounds]} arguments
+ */
+public class TimingWheelBenchmark {
+
+    private static final long START = 1_000_000;
+
+    public static void main(String[] args) {
+        int timeouts = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long[] deadlines = new long[timeouts];
+        Random random = new Random(42);
+        for (int i = 0; i < timeouts; i++) {
+            deadlines[i] = START + 1 + random.nextInt(60_000);
+        }
+        for (int round = 0; round < rounds; round++) {
+            long wheel = wheel(deadlines);
+            long queue = queue(deadlines);
+            System.out.printf("round %d: %d timeouts, 90%% cancelled. wheel %.1f ms, delay queue %.1f ms%n",
+                    round, timeouts, wheel / 1e6, queue / 1e6);
+        }
+    }
+
+    private static long wheel(long[] deadlines) {
+        long start = System.nanoTime();
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, TimeUnit.MILLISECONDS, START);
+        List<TimingWheel.Timeout<Integer>> scheduled = new ArrayList<>(deadlines.length);
+        for (int i = 0; i < deadlines.length; i++) {
+            scheduled.add(wheel.schedule(i, deadlines[i]));
+        }
+        for (int i = 0; i < deadlines.length; i++) {
+            if (i % 10 != 0) wheel.cancel(scheduled.get(i));
+        }
+        int[] expired = new int[1];
+        for (long now = START; wheel.size() > 0; now += 10) {
+            wheel.advance(now, v -> expired[0]++);
+        }
+        check(expired[0], deadlines.length);
+        return System.nanoTime() - start;
+    }
+
+    private static long queue(long[] deadlines) {
+        long start = System.nanoTime();
+        DelayQueue<Task> queue = new DelayQueue<>();
+        List<Task> scheduled = new ArrayList<>(deadlines.length);
+        for (long deadline : deadlines) {
+            Task task = new Task(deadline);
+            scheduled.add(task);
+            queue.add(task);
+        }
+        for (int i = 0; i < deadlines.length; i++) {
+            if (i % 10 != 0) queue.remove(scheduled.get(i));
+        }
+        int expired = 0;
+        for (long now = START; !queue.isEmpty(); now += 10) {
+            Task.now = now;
+            while (queue.poll() != null) expired++;
+        }
+        check(expired, deadlines.length);
+        return System.nanoTime() - start;
+    }
+
+    private static void check(int expired, int total) {
+        if (expired != (total + 9) / 10) throw new IllegalStateException("Expired " + expired + " of " + total);
+    }
+
+    /**
+     * Task with simulated clock, same as {@link ru.blc.cutlet.api.timer.CutletTask}
+     */
+    private static final class Task implements Delayed {
+
+        private static long now;
+        private final long end;
+
+        private Task(long end) {
+            this.end = end;
+        }
+
+        @Override
+        public long getDelay(@NotNull TimeUnit unit) {
+            return unit.convert(end - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(@NotNull Delayed o) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ru.blc.cutlet.timer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.timer.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class TimingWheelTest {
+
+    @Test
+    public void expiresOnTime() {
+        long start = 1_000_000;
+        long tick = 5;
+        TimingWheel<long[]> wheel = new TimingWheel<>(tick, TimeUnit.MILLISECONDS, start);
+        Random random = new Random(1);
+        List<TimingWheel.Timeout<long[]>> timeouts = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            long delay = random.nextInt(4) == 0 ? random.nextInt(50_000_000) : random.nextInt(100_000);
+            // deadline and expiry time
+            timeouts.add(wheel.schedule(new long[]{start + delay, -1}, start + delay));
+        }
+        int cancelled = 0;
+        for (int i = 0; i < timeouts.size(); i += 3) {
+            Assert.assertTrue(wheel.cancel(timeouts.get(i)));
+            Assert.assertFalse(wheel.cancel(timeouts.get(i)));
+            cancelled++;
+        }
+        Assert.assertEquals(timeouts.size() - cancelled, wheel.size());
+
+        long now = start;
+        while (wheel.size() > 0) {
+            now += 1 + random.nextInt(3) * 1000;
+            long time = now;
+            wheel.advance(now, value -> {
+                Assert.assertEquals("expired once", -1, value[1]);
+                value[1] = time;
+            });
+        }
+        for (int i = 0; i < timeouts.size(); i++) {
+            long[] value = timeouts.get(i).getValue();
+            Assert.assertFalse(timeouts.get(i).isScheduled());
+            if (i % 3 == 0) {
+                Assert.assertEquals("cancelled", -1, value[1]);
+            } else {
+                Assert.assertTrue("not earlier than deadline", value[1] >= value[0]);
+            }
+        }
+    }
+
+    @Test
+    public void tickPrecision() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, TimeUnit.MILLISECONDS, 0);
+        List<String> expired = new ArrayList<>();
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 5_000);
+        wheel.advance(29, expired::add);
+        Assert.assertTrue(expired.isEmpty());
+        wheel.advance(30, expired::add);
+        Assert.assertEquals(List.of("a"), expired);
+        wheel.advance(4_999, expired::add);
+        Assert.assertEquals(1, expired.size());
+        wheel.advance(5_000, expired::add);
+        Assert.assertEquals(List.of("a", "b"), expired);
+        wheel.schedule("late", 0);
+        wheel.advance(5_010, expired::add);
+        Assert.assertEquals("passed deadline expires on next tick", "late", expired.get(2));
+    }
+
+    @Test
+    public void nextDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, TimeUnit.MILLISECONDS, 0);
+        List<String> expired = new ArrayList<>();
+        Assert.assertEquals(Long.MAX_VALUE, wheel.nextDeadline());
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 5_000);
+        Assert.assertEquals(30, wheel.nextDeadline());
+        wheel.advance(30, expired::add);
+        Assert.assertEquals(List.of("a"), expired);
+        long cascade = wheel.nextDeadline();
+        Assert.assertTrue("upper level slot is reached before deadline", cascade > 30 && cascade <= 5_000);
+        wheel.advance(cascade, expired::add);
+        Assert.assertEquals(5_000, wheel.nextDeadline());
+        wheel.advance(5_000, expired::add);
+        Assert.assertEquals(List.of("a", "b"), expired);
+        Assert.assertEquals(Long.MAX_VALUE, wheel.nextDeadline());
+    }
+
+    @Test
+    public void longIdleAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, TimeUnit.MILLISECONDS, 0);
+        List<String> expired = new ArrayList<>();
+        long day = TimeUnit.DAYS.toMillis(1);
+        wheel.schedule("near", 100);
+        wheel.schedule("far", 300 * day);
+        // empty ticks are skipped, so it does not take 300 days of ticks
+        wheel.advance(300 * day - 1, expired::add);
+        Assert.assertEquals(List.of("near"), expired);
+        wheel.advance(300 * day, expired::add);
+        Assert.assertEquals(List.of("near", "far"), expired);
+    }
+
+    @Test
+    public void expiresByDeadlineQueries() {
+        TimingWheel<long[]> wheel = new TimingWheel<>(1, TimeUnit.MILLISECONDS, 0);
+        Random random = new Random(2);
+        List<long[]> values = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            long deadline = 1 + random.nextInt(10_000_000);
+            long[] value = {deadline, -1};
+            values.add(value);
+            wheel.schedule(value, deadline);
+        }
+        // timer thread sleeps until next deadline and advances wheel to it
+        while (wheel.size() > 0) {
+            long now = wheel.nextDeadline();
+            wheel.advance(now, value -> value[1] = now);
+        }
+        for (long[] value : values) {
+            Assert.assertEquals("expires exactly at deadline tick", value[0], value[1]);
+        }
+    }
+}
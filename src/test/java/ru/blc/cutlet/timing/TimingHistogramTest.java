@@ -0,0 +1,34 @@
+package ru.blc.cutlet.timing;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.timing.TimingHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+public class TimingHistogramTest {
+
+    @Test
+    public void sampledTotals() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(1_000);
+        histogram.record(2_000, 10);
+        histogram.record(3_000, 0);
+        Assert.assertEquals(3, histogram.getCount());
+        Assert.assertEquals(6_000, histogram.getTotal(TimeUnit.NANOSECONDS));
+        Assert.assertEquals(12, histogram.getEstimatedCount());
+        Assert.assertEquals(24_000, histogram.getEstimatedTotal(TimeUnit.NANOSECONDS));
+        Assert.assertEquals(3_000, histogram.getMax(TimeUnit.NANOSECONDS));
+
+        TimingHistogram merged = new TimingHistogram();
+        merged.record(500, 2);
+        merged.merge(histogram);
+        Assert.assertEquals(4, merged.getCount());
+        Assert.assertEquals(14, merged.getEstimatedCount());
+        Assert.assertEquals(25_000, merged.getEstimatedTotal(TimeUnit.NANOSECONDS));
+
+        merged.reset();
+        Assert.assertEquals(0, merged.getEstimatedCount());
+        Assert.assertEquals(0, merged.getEstimatedTotal(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,54 @@
+package ru.blc.cutlet.timing;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.blc.cutlet.api.bot.BotManager;
+import ru.blc.cutlet.api.event.Event;
+import ru.blc.cutlet.api.event.HandlerList;
+import ru.blc.cutlet.api.timing.Timings;
+import ru.blc.cutlet.bot.TestBots;
+
+import java.util.List;
+
+public class TimingsTest {
+
+    @Test
+    public void allDispatchPathsRecorded() {
+        BotManager manager = TestBots.cutlet().getBotManager();
+        Timings.setSampleInterval(1);
+        try {
+            Timings.resetEvents();
+            manager.callEvent(new TimedEvent());
+            manager.callEventFor(new TimedEvent(), null);
+            manager.callEvents(List.of(new TimedEvent(), new TimedEvent()));
+            Assert.assertEquals(3, Timings.getEventTiming(TimedEvent.class).getCount());
+        } finally {
+            Timings.setSampleInterval(0);
+            Timings.resetEvents();
+        }
+    }
+
+    @Test
+    public void removeEventsOfClassLoader() {
+        Timings.getEventTiming(TimedEvent.class).record(1);
+        Timings.removeEvents(new ClassLoader() {
+        });
+        Assert.assertTrue(Timings.getEventTimings().containsKey(TimedEvent.class));
+        Timings.removeEvents(TimedEvent.class.getClassLoader());
+        Assert.assertFalse(Timings.getEventTimings().containsKey(TimedEvent.class));
+    }
+
+    public static class TimedEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+}